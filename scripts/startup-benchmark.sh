@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Сравнивает время до первого вывода CLI с архивом AppCDS и без него.
+#
+#   scripts/startup-benchmark.sh [число запусков] [аргументы CLI...]
+#
+# По умолчанию CLI получает невалидную ссылку и сразу печатает ошибку: замер не зависит от сети.
+# С реальной ссылкой и --no-daemon замер включает извлечение yt-dlp и работу yt-dlp.
+set -euo pipefail
+
+script_dir="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+runs="${1:-10}"
+shift || true
+cli_args=("$@")
+if [[ ${#cli_args[@]} -eq 0 ]]; then
+    cli_args=(--no-daemon "not-a-youtube-link")
+fi
+
+now_micros() {
+    if [[ -n "${EPOCHREALTIME:-}" ]]; then
+        echo $(( ${EPOCHREALTIME/[.,]/} ))
+    else
+        echo $(( $(date +%s%N) / 1000 ))
+    fi
+}
+
+# Время от запуска до первого байта в stdout или stderr, в миллисекундах
+first_output_millis() {
+    local start first
+    start=$(now_micros)
+    first=$( { "$script_dir/yt-subtitles-loader" "${cli_args[@]}" 2>&1 || true; } \
+        | { head -c 1 >/dev/null; now_micros; cat >/dev/null; } )
+    echo $(( (first - start) / 1000 ))
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+measure() {
+    local mode="$1"
+    # Прогревочный запуск: файловый кэш ОС и извлечённый yt-dlp
+    YT_SUBTITLES_LOADER_CDS="$mode" first_output_millis >/dev/null
+    for _ in $(seq "$runs"); do
+        YT_SUBTITLES_LOADER_CDS="$mode" first_output_millis
+    done | median
+}
+
+without_cds=$(measure off)
+with_cds=$(measure on)
+
+echo "Время до первого вывода, медиана из $runs запусков:"
+echo "  без AppCDS: ${without_cds} мс"
+echo "  с AppCDS:   ${with_cds} мс"
@@ -0,0 +1,117 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Наборы данных для бенчмарков.
+ * Короткие фикстуры лежат в ресурсах, многочасовые автосубтитры генерируются в формате YouTube,
+ * чтобы не хранить в репозитории файлы на несколько мегабайт.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String SHORT_MANUAL_VTT = "SHORT_MANUAL";
+    public static final String LONG_AUTO_VTT = "LONG_AUTO";
+
+    private static final String[] WORDS = {
+        "so", "today", "we're", "going", "to", "talk", "about", "garbage", "collection", "in", "the", "jvm",
+        "and", "why", "allocation", "matters", "a", "lot", "more", "than", "you", "might", "think", "let's",
+        "start", "with", "simple", "example", "loop", "that", "concatenates", "strings", "every", "iteration"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    public static String vtt(String fixture) {
+        return switch (fixture) {
+            case SHORT_MANUAL_VTT -> readResource("/fixtures/short-manual.vtt");
+            case LONG_AUTO_VTT -> autoCaptionsVtt(Duration.ofHours(3));
+            default -> throw new IllegalArgumentException("Неизвестная фикстура: " + fixture);
+        };
+    }
+
+    public static String listSubsManyLanguages() {
+        return readResource("/fixtures/list-subs-many-languages.txt");
+    }
+
+    /**
+     * Генерирует автосубтитры в том виде, в котором их отдаёт YouTube: у каждой реплики есть пословные метки
+     * {@code <00:00:01.199><c> word</c>}, а предыдущая строка повторяется в следующей реплике (бегущая строка)
+     */
+    public static String autoCaptionsVtt(Duration duration) {
+        StringBuilder vtt = new StringBuilder("WEBVTT\nKind: captions\nLanguage: en\n\n");
+
+        long cueMillis = 2_720;
+        long totalMillis = duration.toMillis();
+        int wordIndex = 0;
+        String previousLine = "";
+
+        for (long start = 0; start + cueMillis <= totalMillis; start += cueMillis) {
+            StringBuilder plainLine = new StringBuilder();
+            StringBuilder taggedLine = new StringBuilder();
+
+            for (int i = 0; i < 5; i++) {
+                String word = WORDS[wordIndex++ % WORDS.length];
+                long wordStart = start + i * (cueMillis / 5);
+
+                if (i == 0) {
+                    taggedLine.append(word);
+                } else {
+                    taggedLine.append('<').append(timestamp(wordStart)).append("><c> ").append(word).append("</c>");
+                    plainLine.append(' ');
+                }
+                plainLine.append(word);
+            }
+
+            long end = start + cueMillis;
+            vtt.append(timestamp(start)).append(" --> ").append(timestamp(end - 10)).append(" align:start position:0%\n")
+                .append(previousLine.isEmpty() ? " " : previousLine).append('\n')
+                .append(taggedLine).append("\n\n");
+            vtt.append(timestamp(end - 10)).append(" --> ").append(timestamp(end)).append(" align:start position:0%\n")
+                .append(plainLine).append("\n \n\n");
+
+            previousLine = plainLine.toString();
+        }
+
+        return vtt.toString();
+    }
+
+    private static String timestamp(long millis) {
+        return String.format("%02d:%02d:%02d.%03d",
+            millis / 3_600_000, millis / 60_000 % 60, millis / 1_000 % 60, millis % 1_000);
+    }
+
+    /**
+     * Фейковый yt-dlp с протоколом воркера пула, который, как и настоящий, тратит ~300 мс на запуск
+     *
+     * @return исполняемый скрипт в заданном каталоге
+     */
+    public static Path fakeYtDlp(Path directory) {
+        try {
+            Path script = directory.resolve("fake-yt-dlp.sh");
+            Files.writeString(script, readResource("/fake-yt-dlp.sh"));
+            script.toFile().setExecutable(true);
+
+            return script;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readResource(String path) {
+        try (InputStream inputStream = BenchmarkFixtures.class.getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Не найден ресурс: " + path);
+            }
+
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.panyukovnn.ytsubtitlesloader.util.VttCleaner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение однопроходного {@link VttCleaner} с прежней цепочкой {@code String.replaceAll}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VttCleanerBenchmark {
+
+    @Param({BenchmarkFixtures.SHORT_MANUAL_VTT, BenchmarkFixtures.LONG_AUTO_VTT})
+    private String fixture;
+
+    private List<String> lines;
+
+    @Setup
+    public void setUp() {
+        lines = List.of(BenchmarkFixtures.vtt(fixture).split("\n"));
+    }
+
+    @Benchmark
+    public List<String> regexChain() {
+        List<String> cleanedLines = new ArrayList<>();
+
+        for (String line : lines) {
+            String cleanedLine = line
+                .replaceAll("<[^>]+>", "")
+                .replaceAll("\\d{2}:\\d{2}:\\d{2}\\.\\d{3}", "")
+                .replaceAll("-->.*", "")
+                .replaceAll("align:\\w+ position:\\d+%", "")
+                .replaceAll("[\\p{Cntrl}&&[^\r\n\t]]", "")
+                .replaceAll("\\s{2,}", " ")
+                .trim();
+
+            if (!cleanedLine.isEmpty()) {
+                cleanedLines.add(cleanedLine);
+            }
+        }
+
+        return cleanedLines;
+    }
+
+    @Benchmark
+    public List<String> vttCleaner() {
+        return new VttCleaner().clean(lines);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.panyukovnn.ytsubtitlesloader.util.RollingCaptionDeduplicator;
+import ru.panyukovnn.ytsubtitlesloader.util.VttCleaner;
+import ru.panyukovnn.ytsubtitlesloader.util.VttTextAssembler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь от файла субтитров до текста: прежняя обработка со списками строк против построчного {@link VttTextAssembler}.
+ * Разницу в пиковой памяти показывает {@code gc.alloc.rate.norm}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VttTextAssemblerBenchmark {
+
+    @Param({BenchmarkFixtures.SHORT_MANUAL_VTT, BenchmarkFixtures.LONG_AUTO_VTT})
+    private String fixture;
+
+    private Path file;
+    private boolean isAuto;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("vtt-benchmark", ".vtt");
+        Files.writeString(file, BenchmarkFixtures.vtt(fixture));
+        isAuto = BenchmarkFixtures.LONG_AUTO_VTT.equals(fixture);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String listPipeline() throws IOException {
+        String content = Files.readString(file).trim();
+        List<String> cleanedLines = new VttCleaner().clean(List.of(content.split("\n")));
+
+        if (isAuto) {
+            RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator();
+            List<String> uniqueLines = new ArrayList<>(cleanedLines.size());
+            for (String line : cleanedLines) {
+                String newWords = deduplicator.accept(line);
+                if (!newWords.isEmpty()) {
+                    uniqueLines.add(newWords);
+                }
+            }
+            cleanedLines = uniqueLines;
+        }
+
+        return String.join(" ", cleanedLines);
+    }
+
+    @Benchmark
+    public String streamingAssembler() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new VttTextAssembler(isAuto).assemble(reader);
+        }
+    }
+}
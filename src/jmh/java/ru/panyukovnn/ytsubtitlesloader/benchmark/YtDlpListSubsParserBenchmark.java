@@ -0,0 +1,39 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.panyukovnn.ytsubtitlesloader.dto.AvailableSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpListSubsParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор вывода yt-dlp --list-subs для видео с сотнями языков автоперевода
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class YtDlpListSubsParserBenchmark {
+
+    private final YtDlpListSubsParser ytDlpListSubsParser = new YtDlpListSubsParser();
+
+    private String listSubsOutput;
+
+    @Setup
+    public void setUp() {
+        listSubsOutput = BenchmarkFixtures.listSubsManyLanguages();
+    }
+
+    @Benchmark
+    public AvailableSubtitles parse() throws IOException {
+        return ytDlpListSubsParser.parse(new BufferedReader(new StringReader(listSubsOutput)));
+    }
+}
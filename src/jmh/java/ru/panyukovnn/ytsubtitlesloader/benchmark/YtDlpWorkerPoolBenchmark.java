@@ -0,0 +1,78 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.panyukovnn.ytsubtitlesloader.config.YtDlpWorkerPoolProperties;
+import ru.panyukovnn.ytsubtitlesloader.service.ProcessYtDlpExecutor;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpExecutionResult;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpExecutor;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpProcessBuilderCreator;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpWorkerPool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка одного запуска yt-dlp: новый процесс на вызов против прогретого воркера из пула.
+ * yt-dlp подменён скриптом с той же ценой запуска, поэтому замер показывает именно экономию на старте процесса
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class YtDlpWorkerPoolBenchmark {
+
+    private static final List<String> ARGUMENTS = List.of("--list-subs", "https://youtu.be/dQw4w9WgXcQ");
+
+    @Param({"PROCESS_PER_CALL", "WORKER_POOL"})
+    public String executorType;
+
+    private Path directory;
+    private YtDlpExecutor executor;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("yt-dlp-worker-pool-benchmark");
+        Path fakeYtDlp = BenchmarkFixtures.fakeYtDlp(directory);
+
+        executor = switch (executorType) {
+            case "PROCESS_PER_CALL" -> new ProcessYtDlpExecutor(new YtDlpProcessBuilderCreator(fakeYtDlp));
+            case "WORKER_POOL" -> new YtDlpWorkerPool(new YtDlpWorkerPoolProperties(
+                List.of("bash", fakeYtDlp.toString(), "--worker"),
+                1,
+                Integer.MAX_VALUE,
+                Duration.ofMillis(200),
+                Duration.ofSeconds(2),
+                Duration.ofSeconds(10),
+                Duration.ofSeconds(10),
+                Duration.ofSeconds(10)
+            ));
+            default -> throw new IllegalArgumentException("Неизвестный исполнитель: " + executorType);
+        };
+
+        // Первый вызов пула дожидается запуска воркера
+        executor.execute(ARGUMENTS);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.close();
+        Files.deleteIfExists(directory.resolve("fake-yt-dlp.sh"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public YtDlpExecutionResult execute() throws Exception {
+        return executor.execute(ARGUMENTS);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkParser;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Валидация и очистка ссылок, которые выполняются на каждый запрос.
+ * {@code uriValidation} и {@code uriValidationAndCleaning} — прежний путь через {@link URI} и {@link URL},
+ * {@code parserValidation} и {@code parserVideoId} — однопроходный {@link YtLinkParser}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class YtLinkHelperBenchmark {
+
+    private static final Pattern VIDEO_ID_PATTERN = Pattern.compile("^[\\w-]{11}$");
+
+    @Param({
+        "https://www.youtube.com/watch?v=dQw4w9WgXcQ&list=PLxyz&index=5&t=42s",
+        "https://youtu.be/dQw4w9WgXcQ",
+        "https://www.youtube.com/shorts/abc12345678",
+        "https://example.com/watch?v=dQw4w9WgXcQ"
+    })
+    private String url;
+
+    private final YtLinkHelper ytLinkHelper = new YtLinkHelper();
+
+    @Benchmark
+    public boolean uriValidation() {
+        return isValidWithUri(url);
+    }
+
+    @Benchmark
+    public String uriValidationAndCleaning() {
+        return isValidWithUri(url) ? ytLinkHelper.removeRedundantQueryParamsFromYoutubeLint(url) : null;
+    }
+
+    @Benchmark
+    public boolean parserValidation() {
+        return ytLinkHelper.isValidYoutubeUrl(url);
+    }
+
+    @Benchmark
+    public Optional<VideoId> parserVideoId() {
+        return ytLinkHelper.extractVideoId(url);
+    }
+
+    /**
+     * Прежняя реализация {@link YtLinkHelper#isValidYoutubeUrl(String)}
+     */
+    private static boolean isValidWithUri(String url) {
+        try {
+            URL parsedUrl = new URI(url).toURL();
+            String host = parsedUrl.getHost().toLowerCase();
+            String path = parsedUrl.getPath();
+            String query = parsedUrl.getQuery();
+
+            if (host.isEmpty() || host.startsWith(".") || !host.matches("^[a-z0-9.-]+$")) {
+                return false;
+            }
+
+            boolean youtubeHost = host.equals("youtube.com") || host.equals("youtu.be");
+            if (!youtubeHost && host.endsWith(".youtube.com")) {
+                String[] parts = host.split("\\.");
+                youtubeHost = parts.length >= 3 && parts[parts.length - 2].equals("youtube") && parts[parts.length - 1].equals("com");
+            }
+            if (!youtubeHost) {
+                return false;
+            }
+
+            if (host.equals("youtu.be")) {
+                return VIDEO_ID_PATTERN.matcher(path.replaceFirst("^/", "")).matches();
+            }
+            if (path.startsWith("/watch")) {
+                if (query == null) {
+                    return false;
+                }
+                for (String param : query.split("&")) {
+                    if (param.startsWith("v=")) {
+                        return VIDEO_ID_PATTERN.matcher(param.substring(2)).matches();
+                    }
+                }
+            } else if (path.startsWith("/shorts/") || path.startsWith("/live/")) {
+                String[] segments = path.split("/");
+                return segments.length >= 3 && VIDEO_ID_PATTERN.matcher(segments[2]).matches();
+            }
+
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.panyukovnn.ytsubtitlesloader.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesDaemon;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesDaemonClient;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы одного вызова через демон: HTTP-запрос на loopback и передача текста часового видео.
+ * Загрузчик демона подменён и сразу отдаёт готовый текст, поэтому замер показывает цену пересылки,
+ * которую стоит сравнить со стартом JVM с извлечением yt-dlp ({@code time java -jar ... --no-daemon})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YtSubtitlesDaemonBenchmark {
+
+    private static final String LINK = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+
+    private YtSubtitlesDaemon daemon;
+    private YtSubtitlesDaemonClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text = "so today we are going to talk about benchmarks ".repeat(1_500);
+        YtSubtitles subtitles = new YtSubtitles(LINK, null, SubtitlesLang.EN, text);
+
+        daemon = new YtSubtitlesDaemon(link -> subtitles, 0);
+        client = new YtSubtitlesDaemonClient(daemon.getPort());
+    }
+
+    @TearDown
+    public void tearDown() {
+        daemon.close();
+    }
+
+    @Benchmark
+    public Optional<YtSubtitles> daemonRoundTrip() {
+        return client.tryLoad(LINK);
+    }
+}
@@ -2,17 +2,40 @@ package ru.panyukovnn.ytsubtitlesloader;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
-import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.config.TranscriptStoreProperties;
+import ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesCacheProperties;
+import ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesLoaderProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
 import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
 import ru.panyukovnn.ytsubtitlesloader.factory.YtSubtitlesLoaderFactory;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesDaemon;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesDaemonClient;
 import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesLoader;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesMetrics;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+import ru.panyukovnn.ytsubtitlesloader.util.VttTextAssembler;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkParser;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * CLI приложение для загрузки и очистки субтитров из YouTube видео.
  * Использует Picocli для обработки аргументов командной строки.
+ * <p>
+ * С {@code --daemon} запускается как демон с прогретым загрузчиком, обычный запуск сначала пробует переслать
+ * ссылку демону и загружает субтитры сам, только если демон не запущен.
  */
 @Command(
     name = "yt-subtitles-loader",
@@ -24,20 +47,91 @@ public class YtSubtitlesLoaderCli implements Callable<Integer> {
 
     @Parameters(
         index = "0",
+        arity = "0..1",
         description = "YouTube video URL (e.g., https://www.youtube.com/watch?v=dQw4w9WgXcQ)"
     )
     private String youtubeUrl;
 
+    @Option(
+        names = "--format",
+        description = "Формат вывода: ${COMPLETION-CANDIDATES} (по умолчанию: ${DEFAULT-VALUE})"
+    )
+    private TranscriptFormat format = TranscriptFormat.PLAIN;
+
+    @Option(
+        names = "--lang",
+        split = ",",
+        description = "Языки субтитров в порядке приоритета, теги BCP-47 через запятую (по умолчанию: ru,en)"
+    )
+    private List<String> languages;
+
+    @Option(names = "--daemon", description = "Запустить демон с прогретым загрузчиком вместо загрузки одной ссылки")
+    private boolean daemon;
+
+    @Option(names = "--port", description = "Порт демона на loopback-интерфейсе (по умолчанию: ${DEFAULT-VALUE})")
+    private int port = YtSubtitlesDaemon.DEFAULT_PORT;
+
+    @Option(names = "--no-daemon", description = "Не обращаться к демону, загрузить субтитры в этом процессе")
+    private boolean noDaemon;
+
+    @Option(
+        names = "--store",
+        description = "Каталог хранилища субтитров на диске: повторные запуски берут из него уже загруженные субтитры"
+    )
+    private Path storeDirectory;
+
+    /**
+     * Тренировочный запуск для архива AppCDS (задача {@code cdsArchive}): проходит путь обычного вызова без обращения к сети
+     */
+    @Option(names = "--cds-training", hidden = true)
+    private boolean cdsTraining;
+
     @Override
     public Integer call() {
+        YtSubtitlesLoaderFactory factory = new YtSubtitlesLoaderFactory();
+        YtSubtitlesLoaderProperties properties = new YtSubtitlesLoaderProperties();
+
+        try {
+            if (languages != null) {
+                properties.setLanguages(SubtitlesLang.listOf(String.join(",", languages)));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Некорректный список языков: " + e.getMessage());
+            return 2;
+        }
+
+        if (storeDirectory != null) {
+            properties.setTranscriptStore(TranscriptStoreProperties.of(storeDirectory));
+        }
+
         try {
-            YtSubtitlesLoaderFactory factory = new YtSubtitlesLoaderFactory();
-            YtSubtitlesLoader loader = factory.createYtSubtitlesLoader();
+            if (daemon) {
+                return runDaemon(factory, properties);
+            }
+            if (cdsTraining) {
+                return runCdsTraining(factory);
+            }
+
+            // Ссылка проверяется до создания загрузчика: опечатка не должна стоить извлечения yt-dlp
+            if (youtubeUrl == null || YtLinkParser.parse(youtubeUrl).isEmpty()) {
+                throw new YtLoadingException("824c", "Невалидная ссылка youtube: " + youtubeUrl);
+            }
+
+            // Выводим ТОЛЬКО субтитры в stdout, в UTF-8 и по мере очистки: память не зависит от длины видео
+            OutputStream stdout = new BufferedOutputStream(System.out);
+
+            // Демон выбирает языки по приоритету, с которым он запущен
+            Optional<YtSubtitlesInfo> fromDaemon = noDaemon || languages != null
+                ? Optional.empty()
+                : new YtSubtitlesDaemonClient(port).tryLoad(youtubeUrl, format, stdout);
 
-            YtSubtitles result = loader.load(youtubeUrl);
+            if (fromDaemon.isEmpty()) {
+                try (YtSubtitlesLoader loader = factory.createYtSubtitlesLoader(properties)) {
+                    loader.load(youtubeUrl, format, stdout);
+                }
+            }
 
-            // Выводим ТОЛЬКО текст субтитров в stdout
-            System.out.println(result.subtitles());
+            stdout.flush();
 
             return 0;
         } catch (YtLoadingException e) {
@@ -52,8 +146,56 @@ public class YtSubtitlesLoaderCli implements Callable<Integer> {
         }
     }
 
+    /**
+     * Демон работает до завершения JVM (Ctrl+C, SIGTERM) и закрывает загрузчик в shutdown hook.
+     * В демоне включён кэш в памяти: повторные запросы той же ссылки из конвейеров не запускают yt-dlp.
+     * Метрики демона доступны через JMX и на {@code /metrics}.
+     */
+    private Integer runDaemon(YtSubtitlesLoaderFactory factory, YtSubtitlesLoaderProperties properties) throws Exception {
+        YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+        properties.setCache(YtSubtitlesCacheProperties.of()).setMetrics(metrics);
+        YtSubtitlesDaemon ytSubtitlesDaemon = new YtSubtitlesDaemon(factory.createYtSubtitlesLoader(properties), port, metrics);
+        metrics.registerMBean("daemon-" + ytSubtitlesDaemon.getPort());
+        CountDownLatch stopped = new CountDownLatch(1);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ytSubtitlesDaemon.close();
+            metrics.close();
+            stopped.countDown();
+        }, "yt-subtitles-daemon-shutdown"));
+
+        stopped.await();
+
+        return 0;
+    }
+
+    /**
+     * Загружает классы, которые нужны обычному вызову: разбор ссылки, обращение к демону, сборка загрузчика
+     * с извлечением yt-dlp и очистка субтитров. Сеть не используется: демон ищется на заведомо свободном порту.
+     */
+    private Integer runCdsTraining(YtSubtitlesLoaderFactory factory) throws Exception {
+        String link = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+        YtLinkParser.parse(link);
+
+        int freePort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            freePort = socket.getLocalPort();
+        }
+        new YtSubtitlesDaemonClient(freePort).tryLoad(link, format, OutputStream.nullOutputStream());
+
+        try (YtSubtitlesLoader ignored = factory.createYtSubtitlesLoader()) {
+            String vtt = "WEBVTT\nKind: captions\nLanguage: ru\n\n00:00:00.000 --> 00:00:01.000\nпривет<00:00:00.500><c> мир</c>\n";
+            new VttTextAssembler(true, format.newEncoder(OutputStream.nullOutputStream()))
+                .write(new BufferedReader(new StringReader(vtt)));
+        }
+
+        return 0;
+    }
+
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new YtSubtitlesLoaderCli()).execute(args);
+        int exitCode = new CommandLine(new YtSubtitlesLoaderCli())
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(args);
         System.exit(exitCode);
     }
 }
@@ -0,0 +1,46 @@
+package ru.panyukovnn.ytsubtitlesloader.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки временных файлов yt-dlp и их фоновой очистки
+ *
+ * @param directory        каталог, в котором создаются подкаталоги загрузок
+ * @param maxAge           подкаталог старше этого возраста считается брошенным (например, после аварийного завершения) и удаляется
+ * @param sweepInterval    период фоновой очистки
+ * @param maxDeletesPerRun сколько брошенных подкаталогов и файлов удаляется за один проход, остальные ждут следующего
+ */
+public record TempFilesProperties(
+    Path directory,
+    Duration maxAge,
+    Duration sweepInterval,
+    int maxDeletesPerRun
+) {
+
+    public TempFilesProperties {
+        if (directory == null) {
+            throw new IllegalArgumentException("Не задан каталог временных файлов");
+        }
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Возраст временных файлов должен быть положительным: " + maxAge);
+        }
+        if (sweepInterval.isNegative() || sweepInterval.isZero()) {
+            throw new IllegalArgumentException("Период очистки временных файлов должен быть положительным: " + sweepInterval);
+        }
+        if (maxDeletesPerRun < 1) {
+            throw new IllegalArgumentException("Число удалений за проход должно быть положительным: " + maxDeletesPerRun);
+        }
+    }
+
+    /**
+     * Настройки по умолчанию: {@code ./temp-subtitles}, брошенные файлы старше 15 минут, проход раз в 5 минут
+     */
+    public static TempFilesProperties of() {
+        return of(Path.of("./temp-subtitles"));
+    }
+
+    public static TempFilesProperties of(Path directory) {
+        return new TempFilesProperties(directory, Duration.ofMinutes(15), Duration.ofMinutes(5), 1_000);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.panyukovnn.ytsubtitlesloader.config;
+
+import java.nio.file.Path;
+
+/**
+ * Настройки хранилища субтитров на диске
+ *
+ * @param directory каталог хранилища
+ * @param maxBytes  суммарный размер сжатых субтитров, после которого вытесняются давно не запрашивавшиеся
+ */
+public record TranscriptStoreProperties(
+    Path directory,
+    long maxBytes
+) {
+
+    public TranscriptStoreProperties {
+        if (directory == null) {
+            throw new IllegalArgumentException("Не задан каталог хранилища субтитров");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Размер хранилища субтитров должен быть положительным: " + maxBytes);
+        }
+    }
+
+    /**
+     * Настройки по умолчанию: 1 ГБ сжатых субтитров, это десятки тысяч видео
+     */
+    public static TranscriptStoreProperties of(Path directory) {
+        return new TranscriptStoreProperties(directory, 1024L * 1024 * 1024);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.panyukovnn.ytsubtitlesloader.config;
+
+import java.time.Duration;
+
+/**
+ * Ограничение частоты запусков yt-dlp и повторы при ограничении запросов со стороны YouTube
+ *
+ * @param permitsPerSecond сколько запусков yt-dlp в секунду допускается в среднем
+ * @param burst            сколько запусков допускается подряд без ожидания после простоя
+ * @param maxAttempts      сколько всего попыток делается при временной ошибке (HTTP 429, проверка на бота), от {@code 1}
+ * @param initialBackoff   пауза перед первым повтором, каждый следующий повтор ждёт вдвое дольше
+ * @param maxBackoff       предел паузы перед повтором
+ */
+public record YtDlpRateLimitProperties(
+    double permitsPerSecond,
+    int burst,
+    int maxAttempts,
+    Duration initialBackoff,
+    Duration maxBackoff
+) {
+
+    public YtDlpRateLimitProperties {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("Частота запусков yt-dlp должна быть положительной: " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Число запусков подряд должно быть положительным: " + burst);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Число попыток должно быть положительным: " + maxAttempts);
+        }
+        if (initialBackoff.isNegative() || initialBackoff.isZero()) {
+            throw new IllegalArgumentException("Пауза перед повтором должна быть положительной: " + initialBackoff);
+        }
+        if (maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Предел паузы меньше начальной паузы: " + maxBackoff);
+        }
+    }
+
+    /**
+     * Настройки по умолчанию: в среднем 2 запуска в секунду, до 5 подряд, 4 попытки с паузой от 5 секунд до 2 минут
+     */
+    public static YtDlpRateLimitProperties of() {
+        return new YtDlpRateLimitProperties(2, 5, 4, Duration.ofSeconds(5), Duration.ofMinutes(2));
+    }
+}
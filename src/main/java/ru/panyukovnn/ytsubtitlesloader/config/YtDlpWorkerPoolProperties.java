@@ -0,0 +1,55 @@
+package ru.panyukovnn.ytsubtitlesloader.config;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройки пула долгоживущих воркеров yt-dlp
+ *
+ * @param command             команда запуска воркера, например {@code python3 yt_dlp_worker.py}
+ * @param size                количество воркеров
+ * @param maxJobsPerWorker    после скольких задач воркер перезапускается, чтобы не копить память и состояние
+ * @param healthCheckInterval как часто проверять простаивающие воркеры
+ * @param healthCheckTimeout  сколько ждать ответа воркера на проверку
+ * @param startupTimeout      сколько ждать готовности нового воркера
+ * @param acquireTimeout      сколько запрос ждёт свободного воркера
+ * @param jobTimeout          сколько ждать очередной строки вывода задачи, после чего воркер считается зависшим и заменяется
+ */
+public record YtDlpWorkerPoolProperties(
+    List<String> command,
+    int size,
+    int maxJobsPerWorker,
+    Duration healthCheckInterval,
+    Duration healthCheckTimeout,
+    Duration startupTimeout,
+    Duration acquireTimeout,
+    Duration jobTimeout
+) {
+
+    public YtDlpWorkerPoolProperties {
+        if (command == null || command.isEmpty()) {
+            throw new IllegalArgumentException("Не задана команда запуска воркера yt-dlp");
+        }
+        if (size < 1 || maxJobsPerWorker < 1) {
+            throw new IllegalArgumentException("Размер пула и лимит задач на воркер должны быть положительными");
+        }
+
+        command = List.copyOf(command);
+    }
+
+    /**
+     * Настройки по умолчанию для заданной команды запуска воркера
+     */
+    public static YtDlpWorkerPoolProperties of(List<String> command) {
+        return new YtDlpWorkerPoolProperties(
+            command,
+            4,
+            100,
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(5),
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(60),
+            Duration.ofMinutes(5)
+        );
+    }
+}
@@ -0,0 +1,31 @@
+package ru.panyukovnn.ytsubtitlesloader.config;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша загруженных субтитров в памяти
+ *
+ * @param maxWeight  суммарный вес записей, после которого вытесняются давно не запрашивавшиеся; вес записи — длина текста субтитров в символах плюс 8 на каждую реплику с временными метками
+ * @param timeToLive сколько запись живёт после загрузки, после чего субтитры загружаются заново
+ */
+public record YtSubtitlesCacheProperties(
+    long maxWeight,
+    Duration timeToLive
+) {
+
+    public YtSubtitlesCacheProperties {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Максимальный вес кэша должен быть положительным: " + maxWeight);
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Время жизни записи кэша должно быть положительным: " + timeToLive);
+        }
+    }
+
+    /**
+     * Настройки по умолчанию: около 64 миллионов символов текста (порядка тысячи часовых видео) на 6 часов
+     */
+    public static YtSubtitlesCacheProperties of() {
+        return new YtSubtitlesCacheProperties(64L * 1024 * 1024, Duration.ofHours(6));
+    }
+}
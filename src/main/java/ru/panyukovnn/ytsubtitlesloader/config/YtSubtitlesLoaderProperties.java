@@ -0,0 +1,155 @@
+package ru.panyukovnn.ytsubtitlesloader.config;
+
+import jakarta.annotation.Nullable;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.service.ProcessRunner;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesMetrics;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройки загрузчика субтитров. Значения по умолчанию соответствуют поведению без настроек.
+ */
+public class YtSubtitlesLoaderProperties {
+
+    /**
+     * Языки субтитров в порядке приоритета. Все они скачиваются одним запуском yt-dlp, ручные субтитры языка
+     * предпочитаются автоматическим, но язык с большим приоритетом важнее типа субтитров.
+     */
+    private List<SubtitlesLang> languages = SubtitlesLang.DEFAULT_PRIORITY;
+
+    /**
+     * Если не задан, yt-dlp запускается отдельным процессом на каждую загрузку
+     */
+    @Nullable
+    private YtDlpWorkerPoolProperties workerPool;
+
+    /**
+     * Если не задан, субтитры не кэшируются в памяти
+     */
+    @Nullable
+    private YtSubtitlesCacheProperties cache;
+
+    /**
+     * Если не задан, субтитры не сохраняются на диск и после перезапуска загружаются заново
+     */
+    @Nullable
+    private TranscriptStoreProperties transcriptStore;
+
+    /**
+     * Частота запусков yt-dlp, общая для всех загрузок загрузчика, и повторы при ограничении запросов со стороны YouTube
+     */
+    private YtDlpRateLimitProperties rateLimit = YtDlpRateLimitProperties.of();
+
+    /**
+     * Метрики этапов загрузки, ошибок и процессов yt-dlp. Если не заданы, загрузчик создаёт свои и наружу они не видны.
+     * Один экземпляр можно передать нескольким загрузчикам, чтобы отдавать общие метрики через JMX или демон.
+     */
+    @Nullable
+    private YtSubtitlesMetrics metrics;
+
+    /**
+     * Каталог временных файлов yt-dlp и период его фоновой очистки
+     */
+    private TempFilesProperties tempFiles = TempFilesProperties.of();
+
+    /**
+     * Сколько ждать завершения отдельного процесса yt-dlp, после чего он уничтожается вместе с потомками
+     */
+    private Duration processTimeout = ProcessRunner.DEFAULT_TIMEOUT;
+
+    /**
+     * Сколько байт stdout и stderr процесса yt-dlp сохранять в памяти, остаток отбрасывается
+     */
+    private int maxProcessOutputBytes = ProcessRunner.DEFAULT_MAX_OUTPUT_BYTES;
+
+    public List<SubtitlesLang> getLanguages() {
+        return languages;
+    }
+
+    public YtSubtitlesLoaderProperties setLanguages(List<SubtitlesLang> languages) {
+        if (languages.isEmpty()) {
+            throw new IllegalArgumentException("Не задан ни один язык субтитров");
+        }
+
+        this.languages = List.copyOf(languages);
+        return this;
+    }
+
+    @Nullable
+    public YtDlpWorkerPoolProperties getWorkerPool() {
+        return workerPool;
+    }
+
+    public YtSubtitlesLoaderProperties setWorkerPool(@Nullable YtDlpWorkerPoolProperties workerPool) {
+        this.workerPool = workerPool;
+        return this;
+    }
+
+    @Nullable
+    public YtSubtitlesCacheProperties getCache() {
+        return cache;
+    }
+
+    public YtSubtitlesLoaderProperties setCache(@Nullable YtSubtitlesCacheProperties cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    @Nullable
+    public TranscriptStoreProperties getTranscriptStore() {
+        return transcriptStore;
+    }
+
+    public YtSubtitlesLoaderProperties setTranscriptStore(@Nullable TranscriptStoreProperties transcriptStore) {
+        this.transcriptStore = transcriptStore;
+        return this;
+    }
+
+    public YtDlpRateLimitProperties getRateLimit() {
+        return rateLimit;
+    }
+
+    public YtSubtitlesLoaderProperties setRateLimit(YtDlpRateLimitProperties rateLimit) {
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    @Nullable
+    public YtSubtitlesMetrics getMetrics() {
+        return metrics;
+    }
+
+    public YtSubtitlesLoaderProperties setMetrics(@Nullable YtSubtitlesMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public TempFilesProperties getTempFiles() {
+        return tempFiles;
+    }
+
+    public YtSubtitlesLoaderProperties setTempFiles(TempFilesProperties tempFiles) {
+        this.tempFiles = tempFiles;
+        return this;
+    }
+
+    public Duration getProcessTimeout() {
+        return processTimeout;
+    }
+
+    public YtSubtitlesLoaderProperties setProcessTimeout(Duration processTimeout) {
+        this.processTimeout = processTimeout;
+        return this;
+    }
+
+    public int getMaxProcessOutputBytes() {
+        return maxProcessOutputBytes;
+    }
+
+    public YtSubtitlesLoaderProperties setMaxProcessOutputBytes(int maxProcessOutputBytes) {
+        this.maxProcessOutputBytes = maxProcessOutputBytes;
+        return this;
+    }
+}
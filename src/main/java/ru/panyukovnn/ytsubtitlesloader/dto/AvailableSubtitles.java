@@ -0,0 +1,23 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+import java.util.Set;
+
+/**
+ * Коды языков, для которых по данным yt-dlp --list-subs есть субтитры в формате vtt
+ *
+ * @param manualLanguages    ручные субтитры
+ * @param automaticLanguages автоматические субтитры
+ */
+public record AvailableSubtitles(
+    Set<String> manualLanguages,
+    Set<String> automaticLanguages
+) {
+
+    /**
+     * yt-dlp при запросе ручных и автоматических субтитров одного языка скачивает ручные,
+     * поэтому скачанный файл ручной, если ручные субтитры на этом языке есть в списке
+     */
+    public boolean isManual(String langCode) {
+        return manualLanguages.contains(langCode);
+    }
+}
@@ -0,0 +1,198 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+import java.util.Arrays;
+
+/**
+ * Реплики субтитров с временными метками в компактном виде.
+ * <p>
+ * Вместо списка объектов реплики хранятся в параллельных массивах {@code int}: начало и конец в миллисекундах
+ * и границы текста реплики в общем тексте. Общий текст — это {@link YtSubtitles#subtitles()}: реплики в нём идут
+ * подряд через пробел, поэтому модель добавляет к тексту только 16 байт на реплику.
+ * Начала реплик не убывают, что позволяет искать реплику по времени двоичным поиском.
+ * <p>
+ * Экземпляр неизменяемый и потокобезопасный.
+ */
+public final class SubtitleCues {
+
+    private static final SubtitleCues EMPTY = new SubtitleCues("", new int[0], new int[0], new int[0], new int[0]);
+
+    private final String text;
+    private final int[] startMillis;
+    private final int[] endMillis;
+    private final int[] textStarts;
+    private final int[] textEnds;
+
+    private SubtitleCues(String text, int[] startMillis, int[] endMillis, int[] textStarts, int[] textEnds) {
+        this.text = text;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.textStarts = textStarts;
+        this.textEnds = textEnds;
+    }
+
+    public static SubtitleCues empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return startMillis.length;
+    }
+
+    public int startMillis(int index) {
+        return startMillis[index];
+    }
+
+    public int endMillis(int index) {
+        return endMillis[index];
+    }
+
+    /**
+     * @return текст реплики; строка создаётся при каждом вызове
+     */
+    public String text(int index) {
+        return text.substring(textStarts[index], textEnds[index]);
+    }
+
+    /**
+     * @return смещение начала текста реплики в {@link #text()}
+     */
+    public int textStart(int index) {
+        return textStarts[index];
+    }
+
+    /**
+     * @return смещение за концом текста реплики в {@link #text()}
+     */
+    public int textEnd(int index) {
+        return textEnds[index];
+    }
+
+    /**
+     * @return общий текст всех реплик
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Последняя реплика, начавшаяся не позже заданного момента: с неё нужно начинать показ при перемотке
+     *
+     * @return индекс реплики, либо {@code -1}, если момент раньше первой реплики
+     */
+    public int indexAt(int millis) {
+        int low = 0;
+        int high = startMillis.length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (startMillis[middle] <= millis) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return high;
+    }
+
+    /**
+     * @return индекс реплики, которая показывается в заданный момент, либо {@code -1}, если в этот момент реплики нет
+     */
+    public int indexCovering(int millis) {
+        int index = indexAt(millis);
+
+        return index >= 0 && millis < endMillis[index] ? index : -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SubtitleCues other)) {
+            return false;
+        }
+
+        return text.equals(other.text)
+            && Arrays.equals(startMillis, other.startMillis)
+            && Arrays.equals(endMillis, other.endMillis)
+            && Arrays.equals(textStarts, other.textStarts)
+            && Arrays.equals(textEnds, other.textEnds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * text.hashCode() + Arrays.hashCode(startMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "SubtitleCues[size=" + size() + "]";
+    }
+
+    /**
+     * Собирает реплики по мере записи их текста. Соседние части текста с одинаковым временем объединяются в одну реплику,
+     * начало реплики раньше предыдущей сдвигается к началу предыдущей.
+     */
+    public static final class Builder {
+
+        private int[] startMillis = new int[64];
+        private int[] endMillis = new int[64];
+        private int[] textStarts = new int[64];
+        private int[] textEnds = new int[64];
+        private int size;
+
+        /**
+         * @param textStart смещение начала части текста в общем тексте
+         * @param textEnd   смещение за концом части текста
+         */
+        public Builder append(int start, int end, int textStart, int textEnd) {
+            if (size > 0 && startMillis[size - 1] == start && endMillis[size - 1] == end) {
+                textEnds[size - 1] = textEnd;
+                return this;
+            }
+            if (size > 0 && start < startMillis[size - 1]) {
+                // Спецификация WebVTT требует неубывающих начал; нарушение в файле не должно ломать двоичный поиск
+                start = startMillis[size - 1];
+                end = Math.max(start, end);
+            }
+
+            if (size == startMillis.length) {
+                int capacity = size * 2;
+                startMillis = Arrays.copyOf(startMillis, capacity);
+                endMillis = Arrays.copyOf(endMillis, capacity);
+                textStarts = Arrays.copyOf(textStarts, capacity);
+                textEnds = Arrays.copyOf(textEnds, capacity);
+            }
+
+            startMillis[size] = start;
+            endMillis[size] = end;
+            textStarts[size] = textStart;
+            textEnds[size] = textEnd;
+            size++;
+
+            return this;
+        }
+
+        /**
+         * @param text общий текст, на который указывают смещения
+         */
+        public SubtitleCues build(String text) {
+            if (size == 0) {
+                return text.isEmpty() ? EMPTY : new SubtitleCues(text, new int[0], new int[0], new int[0], new int[0]);
+            }
+            if (textEnds[size - 1] > text.length()) {
+                throw new IllegalArgumentException("Смещение текста реплики за пределами текста: " + textEnds[size - 1]);
+            }
+
+            return new SubtitleCues(
+                text,
+                Arrays.copyOf(startMillis, size),
+                Arrays.copyOf(endMillis, size),
+                Arrays.copyOf(textStarts, size),
+                Arrays.copyOf(textEnds, size)
+            );
+        }
+    }
+}
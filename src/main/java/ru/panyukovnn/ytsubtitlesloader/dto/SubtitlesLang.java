@@ -1,17 +1,123 @@
 package ru.panyukovnn.ytsubtitlesloader.dto;
 
-public enum SubtitlesLang {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
-    RU("ru"),
-    EN("en");
+/**
+ * Язык субтитров — тег BCP-47, например {@code ru}, {@code en-GB}, {@code zh-Hans}.
+ * <p>
+ * Тег приводится к принятому в BCP-47 регистру: язык строчными, письменность с заглавной, регион заглавными.
+ * Так же YouTube называет дорожки субтитров, поэтому тег можно передавать в {@code --sub-langs} yt-dlp как есть.
+ * Значения с одинаковым тегом равны.
+ */
+public final class SubtitlesLang {
+
+    public static final SubtitlesLang RU = new SubtitlesLang("ru");
+    public static final SubtitlesLang EN = new SubtitlesLang("en");
+
+    /**
+     * Приоритет языков по умолчанию
+     */
+    public static final List<SubtitlesLang> DEFAULT_PRIORITY = List.of(RU, EN);
+
+    private static final Pattern TAG_PATTERN = Pattern.compile("[A-Za-z]{2,8}(-[A-Za-z0-9]{1,8})*");
 
     private final String lang;
 
-    SubtitlesLang(String lang) {
+    private SubtitlesLang(String lang) {
         this.lang = lang;
     }
 
+    /**
+     * @param tag тег BCP-47 в любом регистре, также принимается {@code _} вместо {@code -}
+     * @throws IllegalArgumentException если тег некорректен
+     */
+    public static SubtitlesLang of(String tag) {
+        String normalized = tag.trim().replace('_', '-');
+
+        if (!TAG_PATTERN.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Некорректный тег языка: " + tag);
+        }
+
+        String[] subtags = normalized.split("-");
+        StringBuilder canonical = new StringBuilder(subtags[0].toLowerCase(Locale.ROOT));
+
+        for (int i = 1; i < subtags.length; i++) {
+            String subtag = subtags[i];
+            canonical.append('-');
+
+            if (subtag.length() == 4 && Character.isLetter(subtag.charAt(0))) {
+                canonical.append(Character.toUpperCase(subtag.charAt(0))).append(subtag.substring(1).toLowerCase(Locale.ROOT));
+            } else if (subtag.length() == 2 || (subtag.length() == 3 && Character.isDigit(subtag.charAt(0)))) {
+                canonical.append(subtag.toUpperCase(Locale.ROOT));
+            } else {
+                canonical.append(subtag.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        String canonicalTag = canonical.toString();
+
+        return RU.lang.equals(canonicalTag) ? RU : EN.lang.equals(canonicalTag) ? EN : new SubtitlesLang(canonicalTag);
+    }
+
+    /**
+     * @param tags теги через запятую в порядке приоритета, например {@code "de,en-GB,en"}; повторы отбрасываются
+     */
+    public static List<SubtitlesLang> listOf(String tags) {
+        List<SubtitlesLang> langs = new ArrayList<>();
+
+        for (String tag : tags.split(",")) {
+            if (tag.isBlank()) {
+                continue;
+            }
+
+            SubtitlesLang lang = of(tag);
+            if (!langs.contains(lang)) {
+                langs.add(lang);
+            }
+        }
+
+        if (langs.isEmpty()) {
+            throw new IllegalArgumentException("Не задан ни один язык: " + tags);
+        }
+
+        return List.copyOf(langs);
+    }
+
     public String getLang() {
         return lang;
     }
+
+    /**
+     * Считаем подходящими сам тег и более узкие теги, начинающиеся с него (en → en-GB, zh-Hans → zh-Hans-CN),
+     * как при базовой фильтрации RFC 4647. Регистр не учитывается.
+     */
+    public boolean matches(String langCode) {
+        return langCode.regionMatches(true, 0, lang, 0, lang.length())
+            && (langCode.length() == lang.length() || langCode.charAt(lang.length()) == '-');
+    }
+
+    /**
+     * @return совпадает ли код с тегом без учёта регистра, в отличие от более узкого варианта
+     */
+    public boolean isExactly(String langCode) {
+        return lang.equalsIgnoreCase(langCode);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof SubtitlesLang other && lang.equals(other.lang));
+    }
+
+    @Override
+    public int hashCode() {
+        return lang.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return lang;
+    }
 }
@@ -0,0 +1,15 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+/**
+ * Ключ субтитров в хранилище
+ *
+ * @param videoId идентификатор видео
+ * @param lang    язык субтитров
+ * @param isAuto  автоматические ли субтитры
+ */
+public record TranscriptKey(
+    VideoId videoId,
+    SubtitlesLang lang,
+    boolean isAuto
+) {
+}
@@ -0,0 +1,27 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+/**
+ * Идентификатор видео YouTube: 11 символов из {@code [A-Za-z0-9_-]}
+ */
+public record VideoId(String value) {
+
+    public static final int LENGTH = 11;
+
+    public VideoId {
+        if (value == null || value.length() != LENGTH) {
+            throw new IllegalArgumentException("Идентификатор видео должен состоять из " + LENGTH + " символов: " + value);
+        }
+    }
+
+    /**
+     * Каноническая ссылка на видео без лишних параметров
+     */
+    public String watchUrl() {
+        return "https://www.youtube.com/watch?v=" + value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
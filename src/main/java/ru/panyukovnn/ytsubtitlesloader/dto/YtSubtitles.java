@@ -1,9 +1,19 @@
 package ru.panyukovnn.ytsubtitlesloader.dto;
 
+import jakarta.annotation.Nullable;
+
+/**
+ * @param cues реплики с временными метками поверх текста {@code subtitles}; {@code null}, если источник не передаёт время
+ */
 public record YtSubtitles(
     String link,
     String title,
     SubtitlesLang lang,
-    String subtitles
+    String subtitles,
+    @Nullable SubtitleCues cues
 ) {
+
+    public YtSubtitles(String link, String title, SubtitlesLang lang, String subtitles) {
+        this(link, title, lang, subtitles, null);
+    }
 }
@@ -0,0 +1,19 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+/**
+ * Снимок счётчиков кэша субтитров
+ *
+ * @param hits      запросы, обслуженные из кэша
+ * @param misses    запросы, ушедшие в загрузку
+ * @param evictions записи, вытесненные по весу или удалённые по истечении времени жизни
+ * @param size      текущее число записей
+ * @param weight    текущий суммарный вес записей
+ */
+public record YtSubtitlesCacheStats(
+    long hits,
+    long misses,
+    long evictions,
+    int size,
+    long weight
+) {
+}
@@ -0,0 +1,11 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+/**
+ * Сведения о субтитрах, текст которых записан в приёмник потоковой загрузки
+ */
+public record YtSubtitlesInfo(
+    String link,
+    String title,
+    SubtitlesLang lang
+) {
+}
@@ -0,0 +1,26 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+import jakarta.annotation.Nullable;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+/**
+ * Результат загрузки одной ссылки из пакета: субтитры либо ошибка
+ */
+public record YtSubtitlesResult(
+    String link,
+    @Nullable YtSubtitles subtitles,
+    @Nullable YtLoadingException error
+) {
+
+    public static YtSubtitlesResult success(String link, YtSubtitles subtitles) {
+        return new YtSubtitlesResult(link, subtitles, null);
+    }
+
+    public static YtSubtitlesResult failure(String link, YtLoadingException error) {
+        return new YtSubtitlesResult(link, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -1,8 +1,25 @@
 package ru.panyukovnn.ytsubtitlesloader.factory;
 
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.TranscriptStoreProperties;
+import ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesLoaderProperties;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.service.CachingYtSubtitlesLoader;
+import ru.panyukovnn.ytsubtitlesloader.service.DiskTranscriptStore;
+import ru.panyukovnn.ytsubtitlesloader.service.MeteredYtDlpExecutor;
+import ru.panyukovnn.ytsubtitlesloader.service.ProcessRunner;
+import ru.panyukovnn.ytsubtitlesloader.service.ProcessYtDlpExecutor;
+import ru.panyukovnn.ytsubtitlesloader.service.RateLimitedYtDlpExecutor;
+import ru.panyukovnn.ytsubtitlesloader.service.SingleFlightYtSubtitlesLoader;
+import ru.panyukovnn.ytsubtitlesloader.service.TempFilesJanitor;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpExecutor;
 import ru.panyukovnn.ytsubtitlesloader.service.YtDlpProcessBuilderCreator;
+import ru.panyukovnn.ytsubtitlesloader.service.YtDlpWorkerPool;
 import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesLoader;
 import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesLoaderImpl;
+import ru.panyukovnn.ytsubtitlesloader.service.YtSubtitlesMetrics;
 import ru.panyukovnn.ytsubtitlesloader.util.YtDlpExecutableExtractor;
 import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
 
@@ -14,14 +31,74 @@ import java.nio.file.Path;
  */
 public class YtSubtitlesLoaderFactory {
 
+    private static final Logger log = LoggerFactory.getLogger(YtSubtitlesLoaderFactory.class);
+
     /**
      * Создает и возвращает полностью инициализированный YtSubtitlesLoader
      */
     public YtSubtitlesLoader createYtSubtitlesLoader() {
-        Path ytDlpPath = YtDlpExecutableExtractor.extractExecutable();
-        YtDlpProcessBuilderCreator processBuilderCreator = new YtDlpProcessBuilderCreator(ytDlpPath);
+        return createYtSubtitlesLoader(new YtSubtitlesLoaderProperties());
+    }
+
+    /**
+     * Создает YtSubtitlesLoader с заданными настройками.
+     * Загрузчик нужно закрыть: он владеет фоновой очисткой временных файлов, а также пулом воркеров yt-dlp
+     * и хранилищем субтитров, если они включены в настройках.
+     */
+    public YtSubtitlesLoader createYtSubtitlesLoader(YtSubtitlesLoaderProperties properties) {
         YtLinkHelper ytLinkHelper = new YtLinkHelper();
+        YtSubtitlesMetrics metrics = properties.getMetrics() != null ? properties.getMetrics() : new YtSubtitlesMetrics();
+
+        // Хранилище открывается первым: если оно не откроется, пул воркеров не останется запущенным
+        DiskTranscriptStore transcriptStore = openTranscriptStore(properties.getTranscriptStore());
+
+        YtDlpProcessBuilderCreator processBuilderCreator;
+        YtDlpExecutor ytDlpExecutor;
+        if (properties.getWorkerPool() != null) {
+            // Воркеры запускают yt-dlp своей командой: встроенный исполняемый файл не извлекается
+            processBuilderCreator = YtDlpProcessBuilderCreator.argumentsOnly();
+            ytDlpExecutor = new YtDlpWorkerPool(properties.getWorkerPool());
+        } else {
+            Path ytDlpPath = YtDlpExecutableExtractor.extractExecutable();
+            processBuilderCreator = new YtDlpProcessBuilderCreator(ytDlpPath);
+            ytDlpExecutor = new ProcessYtDlpExecutor(processBuilderCreator, new ProcessRunner(properties.getProcessTimeout(), properties.getMaxProcessOutputBytes()));
+        }
+        ytDlpExecutor = new MeteredYtDlpExecutor(ytDlpExecutor, metrics);
+        // Ограничитель общий для всех загрузок этого загрузчика, включая пакетные и асинхронные
+        ytDlpExecutor = new RateLimitedYtDlpExecutor(ytDlpExecutor, properties.getRateLimit());
+
+        TempFilesJanitor tempFilesJanitor = new TempFilesJanitor(properties.getTempFiles(), metrics);
+
+        YtSubtitlesLoader loader = new YtSubtitlesLoaderImpl(
+            ytLinkHelper, processBuilderCreator, ytDlpExecutor, transcriptStore, tempFilesJanitor, properties.getLanguages(), metrics);
+        loader = new SingleFlightYtSubtitlesLoader(loader, ytLinkHelper);
+
+        if (properties.getCache() != null) {
+            loader = new CachingYtSubtitlesLoader(loader, ytLinkHelper, properties.getCache());
+        }
+
+        return loader;
+    }
+
+    /**
+     * Каталог хранилища, занятый другим процессом (например, демоном), не мешает загрузке: она идёт без хранилища
+     */
+    @Nullable
+    private static DiskTranscriptStore openTranscriptStore(@Nullable TranscriptStoreProperties properties) {
+        if (properties == null) {
+            return null;
+        }
+
+        try {
+            return new DiskTranscriptStore(properties);
+        } catch (YtLoadingException e) {
+            if (!"d5c2".equals(e.getId())) {
+                throw e;
+            }
+
+            log.warn("{}, субтитры загружаются без него", e.getMessage());
 
-        return new YtSubtitlesLoaderImpl(ytLinkHelper, processBuilderCreator);
+            return null;
+        }
     }
 }
@@ -0,0 +1,206 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesCacheProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesCacheStats;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Кэширующий декоратор загрузчика.
+ * <p>
+ * Ключ — идентификатор видео, поэтому {@code youtu.be/ID}, {@code watch?v=ID} и {@code /shorts/ID} попадают в одну запись.
+ * Записи вытесняются в порядке давности обращения, когда суммарная длина текста субтитров превышает
+ * {@link YtSubtitlesCacheProperties#maxWeight()}, и удаляются по истечении {@link YtSubtitlesCacheProperties#timeToLive()}.
+ * Ошибки загрузки не кэшируются. Загрузка выполняется вне блокировки, одновременные промахи по одному видео
+ * объединяет {@link SingleFlightYtSubtitlesLoader}.
+ * <p>
+ * Потоковая загрузка в приёмник или в поток заданного формата отдаёт закэшированные субтитры, а при промахе пишет текст прямо в приёмник и не кэширует его:
+ * иначе пришлось бы собрать в памяти весь текст, от чего потоковая загрузка и избавляет.
+ * Загрузка нескольких языков не кэшируется: запись кэша хранит один язык видео.
+ */
+public class CachingYtSubtitlesLoader implements YtSubtitlesLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingYtSubtitlesLoader.class);
+
+    private final YtSubtitlesLoader delegate;
+    private final YtLinkHelper ytLinkHelper;
+    private final YtSubtitlesCacheProperties properties;
+
+    // Порядок доступа: первая запись — давнее всего запрошенная
+    private final LinkedHashMap<VideoId, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingYtSubtitlesLoader(YtSubtitlesLoader delegate, YtLinkHelper ytLinkHelper, YtSubtitlesCacheProperties properties) {
+        this.delegate = delegate;
+        this.ytLinkHelper = ytLinkHelper;
+        this.properties = properties;
+    }
+
+    @Override
+    public YtSubtitles load(String dirtyLink) {
+        Optional<VideoId> videoId = ytLinkHelper.extractVideoId(dirtyLink);
+        if (videoId.isEmpty()) {
+            // Невалидную ссылку отклонит сам загрузчик
+            return delegate.load(dirtyLink);
+        }
+
+        YtSubtitles cached = get(videoId.get());
+        if (cached != null) {
+            log.debug("Субтитры видео {} взяты из кэша", videoId.get());
+
+            return cached;
+        }
+
+        YtSubtitles subtitles = delegate.load(dirtyLink);
+        put(videoId.get(), subtitles);
+
+        return subtitles;
+    }
+
+    @Override
+    public YtSubtitlesInfo load(String dirtyLink, Writer sink) {
+        Optional<VideoId> videoId = ytLinkHelper.extractVideoId(dirtyLink);
+        YtSubtitles cached = videoId.isPresent() ? get(videoId.get()) : null;
+
+        if (cached == null) {
+            return delegate.load(dirtyLink, sink);
+        }
+
+        log.debug("Субтитры видео {} взяты из кэша", videoId.get());
+
+        try {
+            sink.write(cached.subtitles());
+        } catch (IOException e) {
+            throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+        }
+
+        return new YtSubtitlesInfo(cached.link(), cached.title(), cached.lang());
+    }
+
+    @Override
+    public YtSubtitlesInfo load(String dirtyLink, TranscriptFormat format, OutputStream output) {
+        Optional<VideoId> videoId = ytLinkHelper.extractVideoId(dirtyLink);
+        YtSubtitles cached = videoId.isPresent() ? get(videoId.get()) : null;
+
+        if (cached == null) {
+            return delegate.load(dirtyLink, format, output);
+        }
+
+        log.debug("Субтитры видео {} взяты из кэша", videoId.get());
+
+        try {
+            format.write(cached, output);
+        } catch (IOException e) {
+            throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+        }
+
+        return new YtSubtitlesInfo(cached.link(), cached.title(), cached.lang());
+    }
+
+    @Override
+    public List<YtSubtitles> loadLanguages(String dirtyLink, int maxLanguages) {
+        return delegate.loadLanguages(dirtyLink, maxLanguages);
+    }
+
+    public synchronized YtSubtitlesCacheStats stats() {
+        return new YtSubtitlesCacheStats(hits, misses, evictions, entries.size(), weight);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private synchronized YtSubtitles get(VideoId videoId) {
+        CacheEntry entry = entries.get(videoId);
+
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            remove(videoId, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+
+        return entry.subtitles();
+    }
+
+    private synchronized void put(VideoId videoId, YtSubtitles subtitles) {
+        long entryWeight = weigh(subtitles);
+        if (entryWeight > properties.maxWeight()) {
+            log.debug("Субтитры видео {} не помещаются в кэш: {} символов", videoId, entryWeight);
+            return;
+        }
+
+        CacheEntry previous = entries.put(videoId, new CacheEntry(subtitles, entryWeight, System.nanoTime() + properties.timeToLive().toNanos()));
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+        weight += entryWeight;
+
+        evictExpiredAndOverweight();
+    }
+
+    private void evictExpiredAndOverweight() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<VideoId, CacheEntry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            CacheEntry entry = iterator.next().getValue();
+
+            if (weight <= properties.maxWeight() && !entry.isExpired(now)) {
+                // Дальше записи запрашивались позже, просроченные среди них удалятся при обращении
+                return;
+            }
+
+            iterator.remove();
+            weight -= entry.weight();
+            evictions++;
+        }
+    }
+
+    private void remove(VideoId videoId, CacheEntry entry) {
+        entries.remove(videoId);
+        weight -= entry.weight();
+        evictions++;
+    }
+
+    /**
+     * Реплика хранит четыре {@code int}, это 16 байт или 8 символов текста
+     */
+    private static long weigh(YtSubtitles subtitles) {
+        long textWeight = subtitles.subtitles() == null ? 0 : subtitles.subtitles().length();
+        long cuesWeight = subtitles.cues() == null ? 0 : 8L * subtitles.cues().size();
+
+        return Math.max(1, textWeight + cuesWeight);
+    }
+
+    private record CacheEntry(YtSubtitles subtitles, long weight, long expiresAtNanos) {
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
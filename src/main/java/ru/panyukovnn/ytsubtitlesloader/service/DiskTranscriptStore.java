@@ -0,0 +1,546 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.TranscriptStoreProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.AvailableSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.TranscriptKey;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Хранилище исходных VTT-субтитров на диске, переживающее перезапуск приложения.
+ * <p>
+ * Содержимое сжимается {@link java.util.zip.Deflater} и хранится по адресу своего SHA-256 в {@code objects/<2 символа>/<хэш>.z},
+ * поэтому одинаковые субтитры занимают место один раз. Соответствие ключа и хэша хранится в журнале {@code index.log},
+ * который при открытии хранилища читается в память: поиск не обходит каталоги. Там же хранится список субтитров видео
+ * из вывода yt-dlp: по нему загрузчик понимает, что более приоритетных субтитров, чем сохранённые, у видео нет.
+ * <p>
+ * Запись устойчива к падению процесса: объект пишется во временный файл и атомарно переименовывается, и только потом
+ * в журнал добавляется строка. Оборванная последняя строка журнала при чтении пропускается, а объекты без ссылок
+ * из журнала удаляются при открытии. Когда суммарный размер объектов превышает {@link TranscriptStoreProperties#maxBytes()},
+ * вытесняются давно не запрашивавшиеся ключи.
+ * <p>
+ * Каталогом владеет один экземпляр: на всё время жизни хранилища берётся исключительная блокировка файла {@code .lock}.
+ * Иначе открытие второго экземпляра, например разового запуска CLI рядом с демоном, переписало бы журнал первого
+ * и удалило бы его новые объекты как объекты без ссылок.
+ */
+public class DiskTranscriptStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskTranscriptStore.class);
+
+    private static final String LOCK_FILE = ".lock";
+    private static final String INDEX_FILE = "index.log";
+    private static final String OBJECTS_DIR = "objects";
+    private static final String OBJECT_EXTENSION = ".z";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String INCOMING_PREFIX = "incoming-";
+    private static final String PUT = "PUT";
+    private static final String DEL = "DEL";
+    private static final String LST = "LST";
+
+    /**
+     * Журнал переписывается, когда устаревших строк в нём становится больше, чем актуальных, плюс этот запас
+     */
+    private static final int COMPACTION_SLACK = 1000;
+
+    /**
+     * Временные файлы записи старше этого возраста остались от упавшего процесса и удаляются при открытии
+     */
+    private static final Duration STALE_INCOMING_AGE = Duration.ofHours(1);
+
+    private final Path objectsDir;
+    private final Path indexFile;
+    private final long maxBytes;
+
+    // Порядок доступа: первый ключ — давнее всего запрошенный
+    private final LinkedHashMap<TranscriptKey, IndexEntry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, ObjectRef> objects = new HashMap<>();
+    // Списки хранятся, пока у видео есть субтитры в хранилище: лишние отбрасываются при переписывании журнала
+    private final Map<VideoId, AvailableSubtitles> listings = new HashMap<>();
+    private long totalBytes;
+    private int indexRecords;
+    private BufferedWriter indexWriter;
+    private FileChannel lockChannel;
+
+    /**
+     * @throws YtLoadingException {@code d5c2}, если каталог уже открыт другим экземпляром хранилища
+     */
+    public DiskTranscriptStore(TranscriptStoreProperties properties) {
+        Path directory = properties.directory();
+        this.objectsDir = directory.resolve(OBJECTS_DIR);
+        this.indexFile = directory.resolve(INDEX_FILE);
+        this.maxBytes = properties.maxBytes();
+
+        try {
+            Files.createDirectories(objectsDir);
+            lock(directory.resolve(LOCK_FILE));
+            replayIndex();
+            deleteUnreferencedObjects();
+            compactIndex();
+            evictOverweight();
+        } catch (IOException e) {
+            close();
+
+            throw new YtLoadingException("a31d", "Не удалось открыть хранилище субтитров: " + directory, e);
+        } catch (RuntimeException e) {
+            close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * @return исходные VTT-субтитры, либо пустой Optional, если их нет в хранилище
+     */
+    public Optional<String> get(TranscriptKey key) {
+        Optional<BufferedReader> reader = open(key);
+        if (reader.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try (BufferedReader opened = reader.get()) {
+            StringBuilder content = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = opened.read(buffer)) != -1) {
+                content.append(buffer, 0, read);
+            }
+
+            return Optional.of(content.toString());
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать субтитры {} из хранилища: {}", key, e.getMessage(), e);
+
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Открывает субтитры для потокового чтения: распаковка идёт по мере чтения, файл целиком в память не загружается.
+     * Читатель нужно закрыть.
+     *
+     * @return читатель исходных VTT-субтитров, либо пустой Optional, если их нет в хранилище
+     */
+    public Optional<BufferedReader> open(TranscriptKey key) {
+        IndexEntry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        // Объект открывается вне блокировки; если его успели вытеснить, считаем это промахом.
+        // Уже открытый файл остаётся читаемым, даже если его удалят
+        try {
+            InputStream inputStream = new InflaterInputStream(Files.newInputStream(objectPath(entry.hash())));
+
+            return Optional.of(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+        } catch (NoSuchFileException e) {
+            log.debug("Субтитры {} вытеснены из хранилища во время чтения", key);
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать субтитры {} из хранилища: {}", key, e.getMessage(), e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * @return список субтитров видео, сохранённый последней загрузкой, либо пустой Optional, если его нет
+     */
+    public synchronized Optional<AvailableSubtitles> listing(VideoId videoId) {
+        return Optional.ofNullable(listings.get(videoId));
+    }
+
+    /**
+     * Сохраняет полный список субтитров видео из вывода yt-dlp --list-subs.
+     * Ошибка записи только логируется: хранилище не должно ломать загрузку
+     */
+    public synchronized void putListing(VideoId videoId, AvailableSubtitles availableSubtitles) {
+        listings.put(videoId, availableSubtitles);
+
+        try {
+            appendRecord(formatListing(videoId, availableSubtitles));
+            compactIfNeeded();
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить список субтитров видео {} в хранилище: {}", videoId, e.getMessage(), e);
+        }
+    }
+
+    public void put(TranscriptKey key, String content) {
+        put(key, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Сохраняет субтитры, читая их потоком: содержимое сжимается и хэшируется за один проход без загрузки в память.
+     * Ошибка записи только логируется: хранилище не должно ломать загрузку
+     */
+    public void put(TranscriptKey key, InputStream content) {
+        Path tempObject = objectsDir.resolve(INCOMING_PREFIX + UUID.randomUUID() + TEMP_EXTENSION);
+
+        try {
+            // Сжатие выполняется вне блокировки, под ней только обновление индекса
+            String hash = writeTempObject(content, tempObject);
+            commit(key, hash, tempObject);
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить субтитры {} в хранилище: {}", key, e.getMessage(), e);
+        } finally {
+            deleteFile(tempObject);
+        }
+    }
+
+    /**
+     * @return суммарный размер сжатых субтитров в байтах
+     */
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Закрывает журнал и снимает блокировку каталога: после этого его может открыть другой экземпляр
+     */
+    @Override
+    public synchronized void close() {
+        closeIndexWriter();
+
+        if (lockChannel == null) {
+            return;
+        }
+
+        try {
+            // Закрытие канала снимает и блокировку
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось снять блокировку хранилища субтитров: {}", e.getMessage(), e);
+        }
+        lockChannel = null;
+    }
+
+    private void lock(Path lockFile) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Каталог уже открыт другим экземпляром в этой же JVM
+            lock = null;
+        }
+
+        if (lock == null) {
+            channel.close();
+
+            throw new YtLoadingException("d5c2", "Хранилище субтитров уже открыто другим процессом: " + lockFile.getParent());
+        }
+
+        lockChannel = channel;
+    }
+
+    private void closeIndexWriter() {
+        if (indexWriter == null) {
+            return;
+        }
+
+        try {
+            indexWriter.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть журнал хранилища субтитров: {}", e.getMessage(), e);
+        }
+        indexWriter = null;
+    }
+
+    private void replayIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    applyRecord(line);
+                } catch (RuntimeException e) {
+                    // Строка могла оборваться при падении процесса во время записи
+                    log.warn("Пропущена повреждённая строка журнала хранилища субтитров: {}", line);
+                }
+            }
+        }
+    }
+
+    private void applyRecord(String line) {
+        // Пустые поля сохраняются: у видео может не быть ручных или автоматических субтитров
+        String[] fields = line.split("\t", -1);
+        if (fields[0].equals(LST) && fields.length == 4) {
+            listings.put(new VideoId(fields[1]), new AvailableSubtitles(parseLangCodes(fields[2]), parseLangCodes(fields[3])));
+            return;
+        }
+
+        // Прежние версии писали имя константы (RU, EN): тег нормализуется к тому же значению
+        TranscriptKey key = new TranscriptKey(new VideoId(fields[1]), SubtitlesLang.of(fields[2]), Boolean.parseBoolean(fields[3]));
+
+        IndexEntry previous;
+        if (fields[0].equals(PUT) && fields.length == 6) {
+            long size = Long.parseLong(fields[5]);
+            previous = index.put(key, new IndexEntry(fields[4], size));
+            retain(fields[4], size);
+        } else if (fields[0].equals(DEL) && fields.length == 4) {
+            previous = index.remove(key);
+        } else {
+            throw new IllegalArgumentException("Неизвестная строка журнала");
+        }
+
+        // Файлы не удаляем: на объект может сослаться следующая строка журнала, лишние удалятся после чтения
+        if (previous != null) {
+            release(previous.hash());
+        }
+    }
+
+    private void deleteUnreferencedObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(objectsDir)) {
+            files.filter(Files::isRegularFile)
+                .filter(file -> isIncoming(file) ? isStale(file) : !objects.containsKey(hashOf(file)))
+                .forEach(this::deleteFile);
+        }
+
+        Iterator<Map.Entry<TranscriptKey, IndexEntry>> iterator = index.entrySet().iterator();
+        while (iterator.hasNext()) {
+            IndexEntry entry = iterator.next().getValue();
+
+            if (!Files.exists(objectPath(entry.hash()))) {
+                log.warn("Объект {} из журнала хранилища субтитров отсутствует на диске", entry.hash());
+                iterator.remove();
+                release(entry.hash());
+            }
+        }
+    }
+
+    private void evictOverweight() throws IOException {
+        Iterator<Map.Entry<TranscriptKey, IndexEntry>> iterator = index.entrySet().iterator();
+
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<TranscriptKey, IndexEntry> evicted = iterator.next();
+            iterator.remove();
+
+            // Сначала журнал, затем файл: после падения между ними останется лишь объект без ссылок
+            appendRecord(DEL + '\t' + formatKey(evicted.getKey()));
+            if (release(evicted.getValue().hash())) {
+                deleteFile(objectPath(evicted.getValue().hash()));
+            }
+
+            log.debug("Субтитры {} вытеснены из хранилища", evicted.getKey());
+        }
+    }
+
+    private void compactIndex() throws IOException {
+        closeIndexWriter();
+
+        Set<VideoId> storedVideos = new HashSet<>();
+        for (TranscriptKey key : index.keySet()) {
+            storedVideos.add(key.videoId());
+        }
+        listings.keySet().retainAll(storedVideos);
+
+        Path tempIndex = indexFile.resolveSibling(INDEX_FILE + TEMP_EXTENSION);
+        try (BufferedWriter writer = Files.newBufferedWriter(tempIndex, StandardCharsets.UTF_8)) {
+            for (Map.Entry<TranscriptKey, IndexEntry> entry : index.entrySet()) {
+                writer.write(PUT + '\t' + formatKey(entry.getKey()) + '\t' + entry.getValue().hash() + '\t' + entry.getValue().size());
+                writer.newLine();
+            }
+            for (Map.Entry<VideoId, AvailableSubtitles> listing : listings.entrySet()) {
+                writer.write(formatListing(listing.getKey(), listing.getValue()));
+                writer.newLine();
+            }
+        }
+        force(tempIndex);
+        Files.move(tempIndex, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        indexRecords = index.size() + listings.size();
+        indexWriter = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void appendRecord(String record) throws IOException {
+        indexWriter.write(record);
+        indexWriter.newLine();
+        indexWriter.flush();
+        indexRecords++;
+    }
+
+    private synchronized void commit(TranscriptKey key, String hash, Path tempObject) throws IOException {
+        ObjectRef object = objects.get(hash);
+        long size;
+
+        if (object != null) {
+            size = object.size();
+        } else {
+            Path objectFile = objectPath(hash);
+            Files.createDirectories(objectFile.getParent());
+            Files.move(tempObject, objectFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            size = Files.size(objectFile);
+        }
+
+        IndexEntry previous = index.put(key, new IndexEntry(hash, size));
+        retain(hash, size);
+        if (previous != null && release(previous.hash())) {
+            deleteFile(objectPath(previous.hash()));
+        }
+
+        appendRecord(PUT + '\t' + formatKey(key) + '\t' + hash + '\t' + size);
+        evictOverweight();
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (indexRecords > (index.size() + listings.size()) * 2 + COMPACTION_SLACK) {
+            compactIndex();
+        }
+    }
+
+    /**
+     * @return SHA-256 исходного содержимого
+     */
+    private static String writeTempObject(InputStream content, Path tempObject) throws IOException {
+        MessageDigest digest = sha256();
+
+        try (InputStream inputStream = new DigestInputStream(content, digest);
+             OutputStream outputStream = new DeflaterOutputStream(Files.newOutputStream(tempObject))) {
+            inputStream.transferTo(outputStream);
+        }
+        force(tempObject);
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void retain(String hash, long size) {
+        ObjectRef object = objects.get(hash);
+
+        if (object == null) {
+            objects.put(hash, new ObjectRef(size, 1));
+            totalBytes += size;
+        } else {
+            objects.put(hash, new ObjectRef(object.size(), object.references() + 1));
+        }
+    }
+
+    /**
+     * @return true, если на объект не осталось ключей и его файл можно удалить
+     */
+    private boolean release(String hash) {
+        ObjectRef object = objects.get(hash);
+        if (object == null) {
+            return false;
+        }
+
+        if (object.references() > 1) {
+            objects.put(hash, new ObjectRef(object.size(), object.references() - 1));
+            return false;
+        }
+
+        objects.remove(hash);
+        totalBytes -= object.size();
+
+        return true;
+    }
+
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить файл хранилища субтитров: {}", file, e);
+        }
+    }
+
+    private Path objectPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash + OBJECT_EXTENSION);
+    }
+
+    private static boolean isIncoming(Path file) {
+        return file.getFileName().toString().startsWith(INCOMING_PREFIX);
+    }
+
+    /**
+     * Свежий временный файл может дописывать ещё работающий процесс прежней версии, которая не брала блокировку,
+     * поэтому удаляются только давние
+     */
+    private static boolean isStale(Path incoming) {
+        try {
+            return Files.getLastModifiedTime(incoming).toInstant().isBefore(Instant.now().minus(STALE_INCOMING_AGE));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String hashOf(Path object) {
+        String fileName = object.getFileName().toString();
+
+        return fileName.endsWith(OBJECT_EXTENSION) ? fileName.substring(0, fileName.length() - OBJECT_EXTENSION.length()) : fileName;
+    }
+
+    private static String formatKey(TranscriptKey key) {
+        return key.videoId().value() + '\t' + key.lang().getLang() + '\t' + key.isAuto();
+    }
+
+    private static String formatListing(VideoId videoId, AvailableSubtitles availableSubtitles) {
+        return LST + '\t' + videoId.value() + '\t' + String.join(",", availableSubtitles.manualLanguages())
+            + '\t' + String.join(",", availableSubtitles.automaticLanguages());
+    }
+
+    private static Set<String> parseLangCodes(String field) {
+        return field.isEmpty() ? Set.of() : Set.of(field.split(","));
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private record IndexEntry(String hash, long size) {
+    }
+
+    private record ObjectRef(long size, int references) {
+    }
+}
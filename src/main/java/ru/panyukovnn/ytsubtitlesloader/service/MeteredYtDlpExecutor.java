@@ -0,0 +1,36 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Декоратор запуска yt-dlp, учитывающий в метриках длительность запуска и число запущенных сейчас процессов.
+ * Стоит под {@link RateLimitedYtDlpExecutor}: ожидание ограничителя в длительность запуска не попадает.
+ */
+public class MeteredYtDlpExecutor implements YtDlpExecutor {
+
+    private final YtDlpExecutor delegate;
+    private final YtSubtitlesMetrics metrics;
+
+    public MeteredYtDlpExecutor(YtDlpExecutor delegate, YtSubtitlesMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public YtDlpExecutionResult execute(List<String> arguments) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        metrics.ytDlpProcessStarted();
+
+        try {
+            return delegate.execute(arguments);
+        } finally {
+            metrics.ytDlpProcessFinished(startNanos);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: вычитывание канала вывода процесса в отдельном виртуальном потоке, от запуска до закрытия канала
+ */
+@Name("ru.panyukovnn.ytsubtitlesloader.ProcessOutputDrain")
+@Label("Чтение вывода процесса")
+@Category({"YouTube Subtitles Loader", "yt-dlp"})
+final class ProcessOutputDrainEvent extends jdk.jfr.Event {
+
+    @Label("PID")
+    long pid;
+
+    @Label("Канал")
+    @Description("stdout или stderr")
+    String stream;
+
+    @Label("Прочитано")
+    @DataAmount
+    long bytes;
+
+    @Label("Отброшено")
+    @Description("Байты сверх лимита вывода, прочитанные и не сохранённые")
+    @DataAmount
+    long droppedBytes;
+}
@@ -0,0 +1,256 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Запуск внешнего процесса с ожиданием результата.
+ * <p>
+ * stdout и stderr вычитываются одновременно в отдельных виртуальных потоках, поэтому процесс не блокируется
+ * на переполненном буфере одного из каналов. Каналы читаются только доступными байтами: потомок, переживший
+ * процесс и унаследовавший его каналы, не оставляет чтение заблокированным навсегда. В память сохраняется не больше {@code maxOutputBytes} каждого канала,
+ * остаток вычитывается и отбрасывается. Если процесс не завершился за {@code timeout} или ожидание прервано,
+ * процесс уничтожается вместе с потомками. В любом случае процесс дожидаются, чтобы не оставлять зомби.
+ * <p>
+ * Создание процесса, его время жизни и чтение каналов записываются событиями JFR {@link YtDlpSpawnEvent},
+ * {@link YtDlpProcessEvent} и {@link ProcessOutputDrainEvent}, связанными по PID.
+ */
+public class ProcessRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessRunner.class);
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+    public static final int DEFAULT_MAX_OUTPUT_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Сколько ждать завершения уничтоженного процесса и закрытия его каналов вывода
+     */
+    private static final Duration REAP_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Сколько ждать завершения уничтоженных потомков, прежде чем уничтожить сам процесс
+     */
+    private static final Duration DESCENDANTS_REAP_TIMEOUT = Duration.ofSeconds(1);
+
+    /**
+     * Как часто проверять канал, в котором нет доступных байт
+     */
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+    private final Duration timeout;
+    private final int maxOutputBytes;
+
+    public ProcessRunner() {
+        this(DEFAULT_TIMEOUT, DEFAULT_MAX_OUTPUT_BYTES);
+    }
+
+    public ProcessRunner(Duration timeout, int maxOutputBytes) {
+        if (timeout.isNegative() || timeout.isZero() || maxOutputBytes < 1) {
+            throw new IllegalArgumentException("Таймаут и лимит вывода процесса должны быть положительными");
+        }
+
+        this.timeout = timeout;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    public YtDlpExecutionResult run(ProcessBuilder processBuilder) throws IOException, InterruptedException {
+        YtDlpProcessEvent processEvent = new YtDlpProcessEvent();
+        processEvent.begin();
+
+        Process process = start(processBuilder);
+        processEvent.pid = process.pid();
+        boolean exited = false;
+        OutputDrain stdout = null;
+        OutputDrain stderr = null;
+
+        try {
+            process.getOutputStream().close();
+
+            stdout = OutputDrain.start(process, process.getInputStream(), maxOutputBytes, "stdout");
+            stderr = OutputDrain.start(process, process.getErrorStream(), maxOutputBytes, "stderr");
+
+            if (!process.waitFor(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                processEvent.timedOut = true;
+                throw new YtLoadingException("e4a0", "Процесс yt-dlp не завершился за " + timeout);
+            }
+            exited = true;
+
+            // Чтение завершается вслед за процессом, даже если каналы держит открытыми переживший его потомок
+            if (!stdout.await(REAP_TIMEOUT) || !stderr.await(REAP_TIMEOUT)) {
+                log.warn("Чтение вывода процесса pid {} не завершилось после его завершения", process.pid());
+            }
+
+            processEvent.exitCode = process.exitValue();
+
+            return new YtDlpExecutionResult(process.exitValue(), stdout.text(), stderr.text());
+        } finally {
+            if (!exited) {
+                destroyTree(process);
+            }
+
+            processEvent.end();
+            if (processEvent.shouldCommit()) {
+                processEvent.stdoutBytes = stdout == null ? 0 : stdout.totalBytes;
+                processEvent.stderrBytes = stderr == null ? 0 : stderr.totalBytes;
+                processEvent.commit();
+            }
+        }
+    }
+
+    private static Process start(ProcessBuilder processBuilder) throws IOException {
+        YtDlpSpawnEvent spawnEvent = new YtDlpSpawnEvent();
+        spawnEvent.begin();
+
+        Process process = processBuilder.start();
+
+        spawnEvent.end();
+        if (spawnEvent.shouldCommit()) {
+            spawnEvent.pid = process.pid();
+            spawnEvent.command = String.join(" ", processBuilder.command());
+            spawnEvent.commit();
+        }
+
+        return process;
+    }
+
+    /**
+     * Уничтожает процесс вместе с потомками и дожидается его завершения, чтобы процесс не дописал файлы после очистки
+     */
+    static void destroyTree(Process process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+
+        try {
+            // Пока процесс жив, он успевает дождаться своих уничтоженных потомков. Иначе они переходят к init,
+            // который может не сразу их подобрать, и остаются зомби
+            CompletableFuture.allOf(descendants.stream().map(ProcessHandle::onExit).toArray(CompletableFuture[]::new))
+                .get(DESCENDANTS_REAP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Потомки процесса pid {} не завершились за {}", process.pid(), DESCENDANTS_REAP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        process.destroyForcibly();
+
+        try {
+            if (!process.waitFor(REAP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Процесс pid {} не завершился за {} после уничтожения", process.pid(), REAP_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Вычитывает канал, сохраняя только начало вывода, пока процесс жив, и затем остаток, уже доступный в канале.
+     * Блокирующий read() не используется: после завершения процесса его каналы может держать потомок,
+     * которого {@link Process#descendants()} уже не находит, и закрытие канала с нашей стороны не прерывает
+     * заблокированное чтение.
+     */
+    private static class OutputDrain {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final Thread thread;
+        private final int maxBytes;
+        private final Process process;
+        private final String stream;
+
+        private long droppedBytes;
+        private volatile long totalBytes;
+
+        private OutputDrain(Process process, InputStream inputStream, int maxBytes, String stream) {
+            this.maxBytes = maxBytes;
+            this.process = process;
+            this.stream = stream;
+            this.thread = Thread.ofVirtual().name("process-output-drain").unstarted(() -> drain(inputStream));
+        }
+
+        static OutputDrain start(Process process, InputStream inputStream, int maxBytes, String stream) {
+            OutputDrain drain = new OutputDrain(process, inputStream, maxBytes, stream);
+            drain.thread.start();
+
+            return drain;
+        }
+
+        boolean await(Duration timeout) throws InterruptedException {
+            return thread.join(timeout);
+        }
+
+        /**
+         * Вызывается после {@link #await(Duration)}; если канал не закрылся, возвращает прочитанное к этому моменту
+         */
+        String text() {
+            synchronized (buffer) {
+                if (droppedBytes > 0) {
+                    log.warn("Вывод процесса превысил {} байт, отброшено {} байт", maxBytes, droppedBytes);
+                }
+
+                return buffer.toString(StandardCharsets.UTF_8);
+            }
+        }
+
+        private void keep(byte[] chunk, int read) {
+            synchronized (buffer) {
+                int kept = Math.min(read, maxBytes - buffer.size());
+                buffer.write(chunk, 0, kept);
+                droppedBytes += read - kept;
+                totalBytes += read;
+            }
+        }
+
+        private void drain(InputStream inputStream) {
+            ProcessOutputDrainEvent event = new ProcessOutputDrainEvent();
+            event.begin();
+            byte[] chunk = new byte[8192];
+
+            try (inputStream) {
+                while (true) {
+                    // Завершение проверяется до доступных байт: всё, что процесс успел записать, уже в канале
+                    boolean alive = process.isAlive();
+                    int available = inputStream.available();
+
+                    if (available > 0) {
+                        int read = inputStream.read(chunk, 0, Math.min(available, chunk.length));
+                        if (read == -1) {
+                            break;
+                        }
+                        keep(chunk, read);
+                    } else if (!alive) {
+                        break;
+                    } else {
+                        Thread.sleep(POLL_INTERVAL);
+                    }
+                }
+            } catch (IOException e) {
+                // Канал закрывается при уничтожении процесса, прочитанного достаточно
+                log.debug("Чтение вывода процесса прервано: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.pid = process.pid();
+                    event.stream = stream;
+                    event.bytes = totalBytes;
+                    synchronized (buffer) {
+                        event.droppedBytes = droppedBytes;
+                    }
+                    event.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Запускает новый процесс yt-dlp на каждый вызов
+ */
+public class ProcessYtDlpExecutor implements YtDlpExecutor {
+
+    private final YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator;
+    private final ProcessRunner processRunner;
+
+    public ProcessYtDlpExecutor(YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator) {
+        this(ytDlpProcessBuilderCreator, new ProcessRunner());
+    }
+
+    public ProcessYtDlpExecutor(YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator, ProcessRunner processRunner) {
+        this.ytDlpProcessBuilderCreator = ytDlpProcessBuilderCreator;
+        this.processRunner = processRunner;
+    }
+
+    /**
+     * Прерывание вызывающего потока или таймаут уничтожают yt-dlp вместе с дочерними процессами
+     */
+    @Override
+    public YtDlpExecutionResult execute(List<String> arguments) throws IOException, InterruptedException {
+        return processRunner.run(ytDlpProcessBuilderCreator.createProcessBuilder(arguments));
+    }
+}
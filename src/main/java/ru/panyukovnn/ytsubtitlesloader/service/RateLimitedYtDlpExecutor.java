@@ -0,0 +1,111 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.YtDlpRateLimitProperties;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Декоратор запуска yt-dlp с общим ограничителем частоты и повторами временных ошибок.
+ * <p>
+ * Каждый запуск, включая повторы, ждёт разрешения {@link TokenBucketRateLimiter}. Запуск целиком повторяется
+ * с экспоненциальной паузой и случайным разбросом, только если yt-dlp завершился временной ошибкой
+ * ({@link YtDlpFailureClassifier}) ещё до списка субтитров: тогда ничего не скачано. Если список получен,
+ * результат возвращается как есть, даже с временной ошибкой отдельной дорожки: скачанные дорожки уже на диске,
+ * а недостающие загрузчик докачивает отдельным запуском. Так же возвращается результат запуска без {@code --list-subs}.
+ * После временной ошибки ограничитель на время паузы не выдаёт разрешений остальным запускам, в том числе докачке.
+ * Постоянные ошибки возвращаются без повторов.
+ */
+public class RateLimitedYtDlpExecutor implements YtDlpExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitedYtDlpExecutor.class);
+
+    private final YtDlpExecutor delegate;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final YtDlpRateLimitProperties properties;
+
+    public RateLimitedYtDlpExecutor(YtDlpExecutor delegate, YtDlpRateLimitProperties properties) {
+        this(delegate, new TokenBucketRateLimiter(properties.permitsPerSecond(), properties.burst()), properties);
+    }
+
+    public RateLimitedYtDlpExecutor(YtDlpExecutor delegate, TokenBucketRateLimiter rateLimiter, YtDlpRateLimitProperties properties) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    /**
+     * @throws YtLoadingException {@code 7d3b}, если список субтитров не удалось получить за {@link YtDlpRateLimitProperties#maxAttempts()} попыток
+     */
+    @Override
+    public YtDlpExecutionResult execute(List<String> arguments) throws IOException, InterruptedException {
+        boolean listing = arguments.contains("--list-subs");
+
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire();
+
+            YtDlpExecutionResult result = delegate.execute(arguments);
+
+            if (!YtDlpFailureClassifier.isTransient(result)) {
+                return result;
+            }
+
+            Duration backoff = backoff(attempt);
+            rateLimiter.pause(backoff);
+
+            if (!listing) {
+                // Докачку не повторяем: не скачавшиеся дорожки заменят следующие кандидаты
+                log.warn("Временная ошибка yt-dlp при докачке дорожек, скачанные дорожки будут использованы: {}",
+                    firstErrorLine(result.stderr()));
+
+                return result;
+            }
+            if (YtDlpFailureClassifier.hasSubtitlesListing(result)) {
+                log.warn("Временная ошибка yt-dlp после получения списка субтитров, недостающие дорожки будут докачаны: {}",
+                    firstErrorLine(result.stderr()));
+
+                return result;
+            }
+            if (attempt == properties.maxAttempts()) {
+                log.warn("Error output: {}", result.stderr());
+
+                throw new YtLoadingException("7d3b", "YouTube ограничивает запросы, попытки загрузки исчерпаны: " + attempt);
+            }
+
+            log.warn("Временная ошибка yt-dlp (попытка {} из {}), повтор через {} мс: {}",
+                attempt, properties.maxAttempts(), backoff.toMillis(), firstErrorLine(result.stderr()));
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Половина паузы фиксирована, вторая половина случайна: повторы не сходятся в одну точку, но и не становятся слишком частыми
+     */
+    Duration backoff(int attempt) {
+        long maxMillis = properties.maxBackoff().toMillis();
+        long exponentialMillis = properties.initialBackoff().toMillis() << Math.min(attempt - 1, 30);
+        long backoffMillis = Math.min(maxMillis, exponentialMillis < 0 ? maxMillis : exponentialMillis);
+        long halfMillis = backoffMillis / 2;
+
+        return Duration.ofMillis(halfMillis + ThreadLocalRandom.current().nextLong(backoffMillis - halfMillis + 1));
+    }
+
+    private static String firstErrorLine(String stderr) {
+        for (String line : stderr.split("\n")) {
+            if (line.startsWith("ERROR")) {
+                return line;
+            }
+        }
+
+        return stderr.lines().findFirst().orElse("");
+    }
+}
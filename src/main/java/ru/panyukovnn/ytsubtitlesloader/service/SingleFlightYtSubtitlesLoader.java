@@ -0,0 +1,136 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Декоратор, объединяющий одновременные запросы одного видео.
+ * <p>
+ * Первый вызов по идентификатору видео выполняет загрузку, а все вызовы, пришедшие до её завершения,
+ * ждут тот же результат, включая ту же ошибку. После завершения запись удаляется, следующий вызов загружает заново.
+ * Исключение — прерывание загружающего потока: оно относится только к нему, поэтому ожидающие повторяют загрузку сами.
+ * <p>
+ * Потоковая загрузка в приёмник или поток не объединяется: текст пишется в приёмник конкретного вызова и не может быть общим.
+ * Загрузка нескольких языков тоже передаётся загрузчику как есть.
+ */
+public class SingleFlightYtSubtitlesLoader implements YtSubtitlesLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightYtSubtitlesLoader.class);
+
+    private static final String INTERRUPTED_ERROR_ID = "7e21";
+
+    private final YtSubtitlesLoader delegate;
+    private final YtLinkHelper ytLinkHelper;
+    private final ConcurrentMap<VideoId, CompletableFuture<YtSubtitles>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightYtSubtitlesLoader(YtSubtitlesLoader delegate, YtLinkHelper ytLinkHelper) {
+        this.delegate = delegate;
+        this.ytLinkHelper = ytLinkHelper;
+    }
+
+    @Override
+    public YtSubtitles load(String dirtyLink) {
+        Optional<VideoId> videoId = ytLinkHelper.extractVideoId(dirtyLink);
+        if (videoId.isEmpty()) {
+            // Невалидную ссылку отклонит сам загрузчик
+            return delegate.load(dirtyLink);
+        }
+
+        while (true) {
+            CompletableFuture<YtSubtitles> flight = new CompletableFuture<>();
+            CompletableFuture<YtSubtitles> existing = inFlight.putIfAbsent(videoId.get(), flight);
+
+            if (existing == null) {
+                return lead(videoId.get(), dirtyLink, flight);
+            }
+
+            log.debug("Загрузка видео {} уже выполняется, ожидаем её результат", videoId.get());
+
+            try {
+                return await(existing);
+            } catch (YtLoadingException e) {
+                if (!INTERRUPTED_ERROR_ID.equals(e.getId()) || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public YtSubtitlesInfo load(String dirtyLink, Writer sink) {
+        return delegate.load(dirtyLink, sink);
+    }
+
+    @Override
+    public YtSubtitlesInfo load(String dirtyLink, TranscriptFormat format, OutputStream output) {
+        return delegate.load(dirtyLink, format, output);
+    }
+
+    @Override
+    public List<YtSubtitles> loadLanguages(String dirtyLink, int maxLanguages) {
+        return delegate.loadLanguages(dirtyLink, maxLanguages);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * @return выполняющаяся загрузка видео, если она есть
+     */
+    Optional<CompletableFuture<YtSubtitles>> inFlight(VideoId videoId) {
+        return Optional.ofNullable(inFlight.get(videoId));
+    }
+
+    private YtSubtitles lead(VideoId videoId, String dirtyLink, CompletableFuture<YtSubtitles> flight) {
+        try {
+            YtSubtitles subtitles = delegate.load(dirtyLink);
+            flight.complete(subtitles);
+
+            return subtitles;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            inFlight.remove(videoId, flight);
+        }
+    }
+
+    private static YtSubtitles await(CompletableFuture<YtSubtitles> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new YtLoadingException(INTERRUPTED_ERROR_ID, "Ожидание загрузки субтитров прервано", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+
+            throw new YtLoadingException("63e9", "Не удалось извлечь субтитры из видео", cause);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: разбор и очистка одного файла субтитров VTT с записью текста в приёмник
+ */
+@Name("ru.panyukovnn.ytsubtitlesloader.SubtitlesClean")
+@Label("Очистка субтитров")
+@Category({"YouTube Subtitles Loader", "Субтитры"})
+final class SubtitlesCleanEvent extends jdk.jfr.Event {
+
+    @Label("Видео")
+    String videoId;
+
+    @Label("Язык")
+    @Description("Код дорожки субтитров")
+    String language;
+
+    @Label("Автоматические")
+    boolean auto;
+
+    @Label("Из хранилища")
+    boolean fromStore;
+
+    @Label("Размер файла")
+    @Description("-1 для субтитров из хранилища")
+    @DataAmount
+    long fileBytes = -1;
+
+    @Label("Записано символов")
+    long writtenChars;
+}
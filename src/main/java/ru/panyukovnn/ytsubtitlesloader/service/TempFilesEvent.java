@@ -0,0 +1,29 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: операция с временными файлами: создание и удаление подкаталога загрузки, фоновый проход очистки
+ */
+@Name("ru.panyukovnn.ytsubtitlesloader.TempFiles")
+@Label("Временные файлы")
+@Category({"YouTube Subtitles Loader", "Временные файлы"})
+final class TempFilesEvent extends jdk.jfr.Event {
+
+    @Label("Операция")
+    @Description("create, delete или sweep")
+    String operation;
+
+    @Label("Путь")
+    String path;
+
+    @Label("Удалено записей")
+    @Description("Для прохода очистки — удалённые записи каталога, для удаления подкаталога — файлы и каталоги в нём")
+    int deletedEntries;
+
+    @Label("Успешно")
+    boolean succeeded;
+}
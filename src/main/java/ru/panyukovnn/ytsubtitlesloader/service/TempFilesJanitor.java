@@ -0,0 +1,213 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.TempFilesProperties;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Временные файлы загрузок.
+ * <p>
+ * Каждая загрузка получает собственный подкаталог и удаляет его целиком по завершении, поэтому на пути запроса
+ * каталог временных файлов не просматривается. Подкаталоги, брошенные после аварийного завершения, и файлы прежних
+ * версий в корне удаляет фоновый проход по расписанию. Подкаталоги текущих загрузок проход не трогает,
+ * за один проход удаляется не больше {@link TempFilesProperties#maxDeletesPerRun()} записей.
+ * Создание и удаление подкаталогов и проходы очистки записываются событиями JFR {@link TempFilesEvent}.
+ */
+public class TempFilesJanitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TempFilesJanitor.class);
+
+    private static final String REQUEST_DIRECTORY_PREFIX = "request-";
+
+    private final TempFilesProperties properties;
+    private final Path directory;
+    private final Set<Path> activeDirectories = ConcurrentHashMap.newKeySet();
+    private final YtSubtitlesMetrics metrics;
+    private final ScheduledExecutorService sweepExecutor;
+
+    public TempFilesJanitor(TempFilesProperties properties) {
+        this(properties, new YtSubtitlesMetrics());
+    }
+
+    /**
+     * @param metrics метрики, в которые пишется длительность фоновых проходов
+     */
+    public TempFilesJanitor(TempFilesProperties properties, YtSubtitlesMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        // yt-dlp и воркеры пула получают абсолютный путь и не зависят от своего рабочего каталога
+        this.directory = properties.directory().toAbsolutePath().normalize();
+        this.sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "temp-files-janitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Первый проход сразу: после аварийного завершения в каталоге могли остаться файлы
+        long intervalMillis = properties.sweepInterval().toMillis();
+        sweepExecutor.scheduleWithFixedDelay(this::sweepSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Создаёт подкаталог для файлов одной загрузки. Его нужно удалить через {@link #deleteRequestDirectory(Path)}.
+     */
+    public Path createRequestDirectory() throws IOException {
+        TempFilesEvent event = new TempFilesEvent();
+        event.begin();
+
+        Files.createDirectories(directory);
+
+        Path requestDirectory = Files.createTempDirectory(directory, REQUEST_DIRECTORY_PREFIX);
+        activeDirectories.add(requestDirectory);
+
+        commit(event, "create", requestDirectory, 0, true);
+
+        return requestDirectory;
+    }
+
+    /**
+     * Удаляет подкаталог загрузки со всем содержимым. Если удалить не удалось, его позже удалит фоновый проход.
+     */
+    public void deleteRequestDirectory(Path requestDirectory) {
+        TempFilesEvent event = new TempFilesEvent();
+        event.begin();
+
+        try {
+            int deleted = deleteRecursively(requestDirectory);
+            commit(event, "delete", requestDirectory, deleted, true);
+        } catch (IOException e) {
+            commit(event, "delete", requestDirectory, 0, false);
+            log.warn("Не удалось удалить временные файлы загрузки: {}", requestDirectory, e);
+        } finally {
+            activeDirectories.remove(requestDirectory);
+        }
+    }
+
+    @Override
+    public void close() {
+        sweepExecutor.shutdownNow();
+    }
+
+    /**
+     * Удаляет записи каталога старше {@link TempFilesProperties#maxAge()}, кроме подкаталогов текущих загрузок
+     *
+     * @return количество удалённых записей
+     */
+    int sweep() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        Instant expirationTime = Instant.now().minus(properties.maxAge());
+        int deleted = 0;
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (deleted == properties.maxDeletesPerRun()) {
+                    log.debug("Достигнут предел удалений за проход, оставшиеся временные файлы будут удалены позже");
+                    break;
+                }
+                if (activeDirectories.contains(entry) || !isExpired(entry, expirationTime)) {
+                    continue;
+                }
+
+                try {
+                    deleteRecursively(entry);
+                    deleted++;
+                    log.debug("Удален старый временный файл: {}", entry);
+                } catch (IOException e) {
+                    log.warn("Не удалось удалить временный файл: {}", entry, e);
+                }
+            }
+        }
+
+        return deleted;
+    }
+
+    private void sweepSafely() {
+        long startNanos = System.nanoTime();
+        TempFilesEvent event = new TempFilesEvent();
+        event.begin();
+
+        try {
+            commit(event, "sweep", directory, sweep(), true);
+        } catch (Exception e) {
+            commit(event, "sweep", directory, 0, false);
+            log.warn("Ошибка при очистке временных файлов: {}", e.getMessage(), e);
+        } finally {
+            metrics.record(YtSubtitlesMetrics.Phase.TEMP_SWEEP, startNanos);
+        }
+    }
+
+    private static void commit(TempFilesEvent event, String operation, Path path, int deletedEntries, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = path.toString();
+            event.deletedEntries = deletedEntries;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    private static boolean isExpired(Path entry, Instant expirationTime) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+            return attributes.lastModifiedTime().toInstant().isBefore(expirationTime);
+        } catch (IOException e) {
+            // Запись уже удалена
+            return false;
+        }
+    }
+
+    /**
+     * @return количество удалённых файлов и каталогов
+     */
+    private static int deleteRecursively(Path path) throws IOException {
+        int[] deleted = {0};
+
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    if (Files.deleteIfExists(file)) {
+                        deleted[0]++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    if (e != null) {
+                        throw e;
+                    }
+                    if (Files.deleteIfExists(dir)) {
+                        deleted[0]++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (NoSuchFileException e) {
+            // Удалено параллельно
+        }
+
+        return deleted[0];
+    }
+}
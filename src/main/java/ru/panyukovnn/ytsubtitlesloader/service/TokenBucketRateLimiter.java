@@ -0,0 +1,63 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничитель частоты по алгоритму token bucket, общий для всех потоков.
+ * <p>
+ * Вместо счётчика токенов хранится момент, когда освободится следующее разрешение: каждое разрешение сдвигает его
+ * на интервал между разрешениями, а после простоя он отстаёт от текущего времени не больше чем на запас {@code burst}.
+ * Ожидание выполняется вне блокировки, поэтому ждущие потоки не мешают друг другу получать свою очередь.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long nanosPerPermit;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+
+    private long nextFreeNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        this.nanosPerPermit = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = (burst - 1) * nanosPerPermit;
+        this.nanoClock = nanoClock;
+        this.nextFreeNanos = nanoClock.getAsLong() - burstNanos;
+    }
+
+    /**
+     * Ждёт разрешения. Прерывание потока прекращает ожидание, занятая очередь при этом не возвращается.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Не выдаёт разрешений в течение паузы, в том числе уже ждущим очереди после неё: так все запуски
+     * отступают разом, когда YouTube начинает ограничивать запросы
+     */
+    public synchronized void pause(Duration duration) {
+        nextFreeNanos = Math.max(nextFreeNanos, nanoClock.getAsLong() + duration.toNanos());
+    }
+
+    /**
+     * @return сколько ждать полученного разрешения
+     */
+    synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        long permitNanos = Math.max(nextFreeNanos, now - burstNanos);
+
+        nextFreeNanos = permitNanos + nanosPerPermit;
+
+        return permitNanos - now;
+    }
+}
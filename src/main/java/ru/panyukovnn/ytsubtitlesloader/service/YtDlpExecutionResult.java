@@ -0,0 +1,11 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+/**
+ * Результат одного запуска yt-dlp
+ */
+public record YtDlpExecutionResult(
+    int exitCode,
+    String stdout,
+    String stderr
+) {
+}
@@ -0,0 +1,19 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Запуск yt-dlp с заданными аргументами: отдельным процессом или в прогретом воркере из пула
+ */
+public interface YtDlpExecutor extends AutoCloseable {
+
+    /**
+     * @param arguments аргументы yt-dlp без пути к исполняемому файлу
+     */
+    YtDlpExecutionResult execute(List<String> arguments) throws IOException, InterruptedException;
+
+    @Override
+    default void close() {
+    }
+}
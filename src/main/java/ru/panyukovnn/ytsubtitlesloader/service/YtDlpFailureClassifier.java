@@ -0,0 +1,88 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Отличает временные ошибки yt-dlp, которые имеет смысл повторить, от постоянных, по тексту stderr
+ */
+public final class YtDlpFailureClassifier {
+
+    /**
+     * Ограничение запросов и проверка на бота снимаются паузой, сетевые сбои — повтором.
+     * Остальное (видео удалено, приватное, недоступно в регионе) повтор не исправит.
+     */
+    private static final List<String> TRANSIENT_MARKERS = List.of(
+        "http error 429",
+        "too many requests",
+        "sign in to confirm you",
+        "confirm you're not a bot",
+        "http error 503",
+        "http error 502",
+        "timed out",
+        "connection reset",
+        "temporary failure in name resolution",
+        "remote end closed connection"
+    );
+
+    /**
+     * Строки, которыми yt-dlp начинает вывод --list-subs, в том числе когда субтитров у видео нет
+     */
+    private static final List<String> LISTING_MARKERS = List.of(
+        "available subtitles for",
+        "available automatic captions for",
+        "has no subtitles",
+        "has no automatic captions"
+    );
+
+    private YtDlpFailureClassifier() {
+    }
+
+    public static boolean isTransient(YtDlpExecutionResult result) {
+        if (result.exitCode() == 0 || result.stderr() == null) {
+            return false;
+        }
+
+        String stderr = result.stderr().toLowerCase(Locale.ROOT);
+        for (String marker : TRANSIENT_MARKERS) {
+            if (stderr.contains(marker)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return напечатал ли yt-dlp обе части списка, ручные и автоматические субтитры: только по полному списку
+     * можно судить, каких субтитров у видео нет
+     */
+    public static boolean hasCompleteSubtitlesListing(YtDlpExecutionResult result) {
+        if (result.stdout() == null) {
+            return false;
+        }
+
+        String stdout = result.stdout().toLowerCase(Locale.ROOT);
+
+        return (stdout.contains("available subtitles for") || stdout.contains("has no subtitles"))
+            && (stdout.contains("available automatic captions for") || stdout.contains("has no automatic captions"));
+    }
+
+    /**
+     * @return напечатал ли yt-dlp список субтитров: если да, сведения о видео получены и часть дорожек могла скачаться
+     */
+    public static boolean hasSubtitlesListing(YtDlpExecutionResult result) {
+        if (result.stdout() == null) {
+            return false;
+        }
+
+        String stdout = result.stdout().toLowerCase(Locale.ROOT);
+        for (String marker : LISTING_MARKERS) {
+            if (stdout.contains(marker)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import ru.panyukovnn.ytsubtitlesloader.dto.AvailableSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Разбирает вывод yt-dlp --list-subs.
+ * Вынесен из загрузчика, чтобы разбор можно было тестировать и замерять без запуска процесса.
+ */
+public class YtDlpListSubsParser {
+
+    private final List<SubtitlesLang> languages;
+
+    public YtDlpListSubsParser() {
+        this(SubtitlesLang.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param languages языки, субтитры на которых попадают в результат вместе с региональными вариантами
+     */
+    public YtDlpListSubsParser(List<SubtitlesLang> languages) {
+        this.languages = languages;
+    }
+
+    public AvailableSubtitles parse(BufferedReader stdoutReader) throws IOException {
+        String line;
+        boolean inAutomaticSection = false;
+
+        Set<String> manualLanguages = new HashSet<>();
+        Set<String> automaticLanguages = new HashSet<>();
+
+        while ((line = stdoutReader.readLine()) != null) {
+            String lower = line.toLowerCase();
+
+            if (lower.contains("automatic captions")) {
+                inAutomaticSection = true;
+                continue;
+            }
+            if (lower.contains("available subtitles")) {
+                inAutomaticSection = false;
+                continue;
+            }
+
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            // Ожидаем строки вида: "<langCode>    <formats...>"
+            int firstSpace = trimmed.indexOf(' ');
+            if (firstSpace <= 0) {
+                continue;
+            }
+
+            String langCode = trimmed.substring(0, firstSpace).trim();
+            String formats = trimmed.substring(firstSpace).toLowerCase();
+
+            // Пропускаем заголовки "Language  formats" и т.п.
+            if ("language".equals(langCode)) {
+                continue;
+            }
+
+            boolean hasVtt = formats.contains("vtt");
+            if (!hasVtt) {
+                continue;
+            }
+
+            // Считаем настроенные коды и их варианты (en-GB, ru-...).
+            if (!isSupportedLanguage(langCode)) {
+                continue;
+            }
+
+            if (inAutomaticSection) {
+                automaticLanguages.add(langCode);
+            } else {
+                manualLanguages.add(langCode);
+            }
+        }
+
+        return new AvailableSubtitles(manualLanguages, automaticLanguages);
+    }
+
+    private boolean isSupportedLanguage(String langCode) {
+        for (SubtitlesLang lang : languages) {
+            if (lang.matches(langCode)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -1,12 +1,12 @@
 package ru.panyukovnn.ytsubtitlesloader.service;
 
 import org.apache.commons.lang3.tuple.Pair;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Данный класс вынесен отдельно для удобства тестирования
@@ -19,37 +19,108 @@ public class YtDlpProcessBuilderCreator {
         this.ytDlpExecutablePath = ytDlpExecutablePath;
     }
 
-    public ProcessBuilder createListSubsProcessBuilder(String videoUrl) {
-        return new ProcessBuilder(
-            ytDlpExecutablePath.toString(),
+    /**
+     * Только аргументы, без исполняемого файла: для пула воркеров, которые запускают yt-dlp сами
+     */
+    public static YtDlpProcessBuilderCreator argumentsOnly() {
+        return new YtDlpProcessBuilderCreator(null);
+    }
+
+    /**
+     * @param arguments аргументы yt-dlp без пути к исполняемому файлу
+     */
+    public ProcessBuilder createProcessBuilder(List<String> arguments) {
+        if (ytDlpExecutablePath == null) {
+            throw new IllegalStateException("Исполняемый файл yt-dlp не задан, доступны только аргументы");
+        }
+
+        List<String> command = new ArrayList<>(arguments.size() + 1);
+        command.add(ytDlpExecutablePath.toString());
+        command.addAll(arguments);
+
+        return new ProcessBuilder(command).directory(new File("."));
+    }
+
+    /**
+     * Аргументы для языков по умолчанию, см. {@link #createListAndDownloadArguments(String, Path, List)}
+     */
+    public Pair<List<String>, Path> createListAndDownloadArguments(String videoUrl, Path outputDirectory) {
+        return createListAndDownloadArguments(videoUrl, outputDirectory, SubtitlesLang.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * За один запуск yt-dlp печатает список доступных субтитров (--list-subs) и скачивает ручные
+     * и автоматические субтитры всех заданных языков. Без --no-simulate опция --list-subs только печатает список.
+     * Аргументы не содержат пути к исполняемому файлу, поэтому подходят и для отдельного процесса, и для воркера из пула.
+     *
+     * @param outputDirectory подкаталог загрузки, в который yt-dlp пишет файлы субтитров
+     * @param languages       языки субтитров, каждый вместе с региональными вариантами
+     * @return аргументы и шаблон пути к файлам без расширения, реальные файлы: {@code <шаблон>.<lang>.vtt}
+     */
+    public Pair<List<String>, Path> createListAndDownloadArguments(String videoUrl, Path outputDirectory, List<SubtitlesLang> languages) {
+        Path outputPathTemplate = outputDirectory.resolve("subs");
+
+        List<String> arguments = List.of(
             "--list-subs",
+            "--no-simulate",
+            "--skip-download",
+            "--write-subs",
+            "--write-auto-subs",
+            "--sub-langs", subLangs(languages),
+            "--sub-format", "vtt",
+            "-o", outputPathTemplate.toString(),
             videoUrl
-        ).directory(new File("."));
-    }
+        );
 
-    public Pair<ProcessBuilder, Path> createProcessBuilder(String videoUrl, String lang, boolean isAutoSubs) throws IOException {
-        // Создаём директорию для временных файлов
-        Path tempDir = Path.of("./temp-subtitles");
-        Files.createDirectories(tempDir);
+        return Pair.of(arguments, outputPathTemplate);
+    }
 
-        // Указываем имя без расширения, т.к. yt-dlp автоматически добавит язык и .vtt
-        String tempFileNameWithoutExt = "temp_subs_" + UUID.randomUUID().toString().substring(0, 8);
-        Path outputPathTemplate = tempDir.resolve(tempFileNameWithoutExt);
-        String subsType = isAutoSubs ? "--write-auto-subs" : "--write-subs";
+    /**
+     * Докачивает субтитры конкретных дорожек, уже известных из списка, без повторного --list-subs
+     *
+     * @param outputPathTemplate шаблон пути к файлам из {@link #createListAndDownloadArguments(String, Path, List)}
+     * @param langCodes          коды дорожек из вывода --list-subs
+     */
+    public List<String> createDownloadArguments(String videoUrl, Path outputPathTemplate, List<String> langCodes) {
+        return List.of(
+            "--skip-download",
+            "--write-subs",
+            "--write-auto-subs",
+            "--sub-langs", String.join(",", langCodes),
+            "--sub-format", "vtt",
+            "-o", outputPathTemplate.toString(),
+            videoUrl
+        );
+    }
 
-        ProcessBuilder processBuilder = new ProcessBuilder(
-            ytDlpExecutablePath.toString(),
+    /**
+     * Скачивает только автоматические субтитры дорожек, у которых есть ручные субтитры с тем же кодом:
+     * с --write-subs yt-dlp записал бы в файл {@code <шаблон>.<lang>.vtt} ручные
+     *
+     * @param outputPathTemplate отдельный шаблон пути, чтобы yt-dlp не пропустил дорожку из-за уже существующего файла
+     * @param langCodes          коды дорожек из вывода --list-subs
+     */
+    public List<String> createAutoDownloadArguments(String videoUrl, Path outputPathTemplate, List<String> langCodes) {
+        return List.of(
             "--skip-download",
-            subsType,
-            "--sub-lang", lang,
+            "--write-auto-subs",
+            "--sub-langs", String.join(",", langCodes),
             "--sub-format", "vtt",
             "-o", outputPathTemplate.toString(),
             videoUrl
-        ).directory(new File("."));
+        );
+    }
 
-        // Реальный файл будет иметь формат: temp_subs_<timestamp>.<lang>.vtt
-        Path actualOutputPath = tempDir.resolve(tempFileNameWithoutExt + "." + lang + ".vtt");
+    /**
+     * @return значение --sub-langs: базовые коды и их региональные варианты, например "ru,ru-.*,en,en-.*"
+     */
+    private static String subLangs(List<SubtitlesLang> languages) {
+        List<String> subLangs = new ArrayList<>();
+        for (SubtitlesLang lang : languages) {
+            subLangs.add(lang.getLang());
+            subLangs.add(lang.getLang() + "-.*");
+        }
 
-        return Pair.of(processBuilder, actualOutputPath);
+        return String.join(",", subLangs);
     }
 }
@@ -0,0 +1,35 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: время жизни процесса yt-dlp от создания до завершения, включая ожидание в {@link Process#waitFor}
+ * и дочитывание каналов вывода
+ */
+@Name("ru.panyukovnn.ytsubtitlesloader.YtDlpProcess")
+@Label("Процесс yt-dlp")
+@Category({"YouTube Subtitles Loader", "yt-dlp"})
+final class YtDlpProcessEvent extends jdk.jfr.Event {
+
+    @Label("PID")
+    long pid;
+
+    @Label("Код завершения")
+    @Description("-1, если процесс уничтожен: по таймауту, прерыванию или ошибке")
+    int exitCode = -1;
+
+    @Label("Таймаут")
+    boolean timedOut;
+
+    @Label("Байт stdout")
+    @DataAmount
+    long stdoutBytes;
+
+    @Label("Байт stderr")
+    @DataAmount
+    long stderrBytes;
+}
@@ -0,0 +1,36 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: запуск yt-dlp для видео, включая ожидание ограничителя частоты и повторы.
+ * События процесса и чтения его вывода приходятся на время этого события.
+ */
+@Name("ru.panyukovnn.ytsubtitlesloader.YtDlpRun")
+@Label("Запуск yt-dlp для видео")
+@Category({"YouTube Subtitles Loader", "yt-dlp"})
+final class YtDlpRunEvent extends jdk.jfr.Event {
+
+    @Label("Видео")
+    String videoId;
+
+    @Label("Языки")
+    @Description("Языки или дорожки субтитров, запрошенные у yt-dlp")
+    String languages;
+
+    @Label("Докачка")
+    @Description("Повторный запуск без --list-subs для дорожек, которые не скачались")
+    boolean retry;
+
+    @Label("Код завершения")
+    @Description("-1, если запуск завершился исключением")
+    int exitCode = -1;
+
+    @Label("Символов stdout")
+    @DataAmount
+    long stdoutChars;
+}
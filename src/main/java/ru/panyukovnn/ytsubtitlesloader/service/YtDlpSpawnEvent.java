@@ -0,0 +1,22 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: создание процесса yt-dlp, от {@link ProcessBuilder#start()} до получения процесса
+ */
+@Name("ru.panyukovnn.ytsubtitlesloader.YtDlpSpawn")
+@Label("Создание процесса yt-dlp")
+@Category({"YouTube Subtitles Loader", "yt-dlp"})
+final class YtDlpSpawnEvent extends jdk.jfr.Event {
+
+    @Label("PID")
+    long pid;
+
+    @Label("Команда")
+    @Description("Командная строка процесса, последний аргумент — ссылка на видео")
+    String command;
+}
@@ -0,0 +1,202 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Долгоживущий процесс yt-dlp, который принимает задачи через stdin и отвечает через stdout.
+ * <p>
+ * Протокол строковый:
+ * <ul>
+ *     <li>после запуска воркер печатает {@code READY};</li>
+ *     <li>{@code RUN<TAB>arg1<TAB>arg2...} — запустить yt-dlp с аргументами, в ответ приходят строки
+ *     {@code OUT<TAB>...} (stdout), {@code ERR<TAB>...} (stderr) и завершающая {@code EXIT<TAB>код};</li>
+ *     <li>{@code PING} — проверка живости, ответ {@code PONG}.</li>
+ * </ul>
+ * Экземпляр в каждый момент используется одним потоком, это обеспечивает пул.
+ * Собственный stderr воркера (трассировки Python, предупреждения вне задач) пишется в лог на уровне DEBUG,
+ * а не в stderr приложения, где CLI печатает свои ошибки.
+ */
+class YtDlpWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(YtDlpWorker.class);
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+    private final Process process;
+    private final BufferedWriter requestWriter;
+    private final InputStream responseStream;
+    private final ByteArrayOutputStream pendingLine = new ByteArrayOutputStream();
+
+    private int completedJobs;
+
+    private YtDlpWorker(Process process) {
+        this.process = process;
+        this.requestWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        this.responseStream = process.getInputStream();
+    }
+
+    static YtDlpWorker start(List<String> command, Duration startupTimeout) throws IOException {
+        Process process = new ProcessBuilder(command).start();
+        YtDlpWorker worker = new YtDlpWorker(process);
+        Thread.ofVirtual().name("yt-dlp-worker-stderr").start(() -> logErrorOutput(process));
+
+        try {
+            String line = worker.readLine(startupTimeout);
+            if (!"READY".equals(line)) {
+                throw new IOException("Воркер yt-dlp не сообщил о готовности, ответ: " + line);
+            }
+        } catch (IOException e) {
+            worker.destroy();
+            throw e;
+        }
+
+        return worker;
+    }
+
+    /**
+     * @param timeout сколько ждать очередной строки ответа; зависшую задачу пул прерывает заменой воркера
+     */
+    YtDlpExecutionResult run(List<String> arguments, Duration timeout) throws IOException {
+        StringBuilder request = new StringBuilder("RUN");
+        for (String argument : arguments) {
+            if (argument.indexOf('\t') >= 0 || argument.indexOf('\n') >= 0 || argument.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Аргумент yt-dlp содержит управляющие символы протокола: " + argument);
+            }
+            request.append('\t').append(argument);
+        }
+
+        requestWriter.write(request.toString());
+        requestWriter.newLine();
+        requestWriter.flush();
+
+        StringBuilder stdout = new StringBuilder();
+        StringBuilder stderr = new StringBuilder();
+
+        String line;
+        while ((line = readLine(timeout)) != null) {
+            if (line.startsWith("OUT\t")) {
+                stdout.append(line, 4, line.length()).append('\n');
+            } else if (line.startsWith("ERR\t")) {
+                stderr.append(line, 4, line.length()).append('\n');
+            } else if (line.startsWith("EXIT\t")) {
+                completedJobs++;
+
+                return new YtDlpExecutionResult(Integer.parseInt(line.substring(5).trim()), stdout.toString(), stderr.toString());
+            } else {
+                throw new IOException("Неожиданный ответ воркера yt-dlp: " + line);
+            }
+        }
+
+        throw new IOException("Воркер yt-dlp завершился во время выполнения задачи");
+    }
+
+    boolean ping(Duration timeout) {
+        try {
+            requestWriter.write("PING");
+            requestWriter.newLine();
+            requestWriter.flush();
+
+            return "PONG".equals(readLine(timeout));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    int completedJobs() {
+        return completedJobs;
+    }
+
+    long pid() {
+        return process.pid();
+    }
+
+    void destroy() {
+        ProcessRunner.destroyTree(process);
+    }
+
+    /**
+     * Читает строку ответа, но не дольше таймаута: зависший воркер не должен блокировать проверку здоровья.
+     * Ожидание реагирует на прерывание потока, поэтому отменённая задача не держит поток до конца работы yt-dlp.
+     * Читаются только уже доступные байты: воркер, зависший посреди строки, тоже не блокирует чтение.
+     */
+    private String readLine(Duration timeout) throws IOException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        while (true) {
+            // Завершение проверяется до доступных байт: всё, что воркер успел записать, уже в канале
+            boolean alive = process.isAlive();
+            int available = responseStream.available();
+
+            for (int i = 0; i < available; i++) {
+                int next = responseStream.read();
+                if (next == -1) {
+                    return takePendingLine();
+                }
+                if (next == '\n') {
+                    String line = pendingLine.toString(StandardCharsets.UTF_8);
+                    pendingLine.reset();
+
+                    return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+                }
+                pendingLine.write(next);
+            }
+
+            if (available > 0) {
+                continue;
+            }
+            if (!alive) {
+                return takePendingLine();
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Воркер yt-dlp не ответил за " + timeout);
+            }
+
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ожидание ответа воркера yt-dlp прервано");
+            }
+        }
+    }
+
+    /**
+     * @return последняя строка без перевода строки или {@code null}, если воркер больше ничего не написал
+     */
+    private String takePendingLine() {
+        if (pendingLine.size() == 0) {
+            return null;
+        }
+
+        String line = pendingLine.toString(StandardCharsets.UTF_8);
+        pendingLine.reset();
+
+        return line;
+    }
+
+    private static void logErrorOutput(Process process) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+            reader.lines().forEach(line -> log.debug("Воркер yt-dlp pid {}: {}", process.pid(), line));
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Чтение stderr воркера yt-dlp pid {} остановлено: {}", process.pid(), e.getMessage());
+        }
+    }
+}
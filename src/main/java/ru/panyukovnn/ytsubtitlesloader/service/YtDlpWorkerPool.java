@@ -0,0 +1,177 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.YtDlpWorkerPoolProperties;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул прогретых воркеров yt-dlp.
+ * Запуск интерпретатора и импорт модулей yt-dlp занимают большую часть времени короткой задачи,
+ * поэтому воркеры запускаются заранее и переиспользуются. Воркер перезапускается после
+ * {@link YtDlpWorkerPoolProperties#maxJobsPerWorker()} задач, после ошибки и если не прошёл проверку здоровья.
+ * Запуск и замена воркеров выполняются в фоне и не задерживают запросы.
+ */
+public class YtDlpWorkerPool implements YtDlpExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(YtDlpWorkerPool.class);
+
+    private final YtDlpWorkerPoolProperties properties;
+    private final BlockingQueue<YtDlpWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService maintenanceExecutor;
+
+    private volatile boolean closed;
+
+    public YtDlpWorkerPool(YtDlpWorkerPoolProperties properties) {
+        this.properties = properties;
+        this.maintenanceExecutor = Executors.newScheduledThreadPool(Math.min(properties.size(), 4), runnable -> {
+            Thread thread = new Thread(runnable, "yt-dlp-worker-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < properties.size(); i++) {
+            submitMaintenance(this::startWorker, 0);
+        }
+
+        long healthCheckMillis = properties.healthCheckInterval().toMillis();
+        maintenanceExecutor.scheduleWithFixedDelay(this::checkIdleWorkers, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public YtDlpExecutionResult execute(List<String> arguments) throws IOException, InterruptedException {
+        YtDlpWorker worker = acquire();
+        boolean healthy = false;
+
+        try {
+            YtDlpExecutionResult result = worker.run(arguments, properties.jobTimeout());
+            healthy = true;
+
+            return result;
+        } catch (InterruptedIOException e) {
+            // Воркер с прерванной задачей заменяется, его уничтожение останавливает и саму задачу
+            throw new InterruptedException(e.getMessage());
+        } finally {
+            release(worker, healthy);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        maintenanceExecutor.shutdownNow();
+
+        YtDlpWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    private YtDlpWorker acquire() throws InterruptedException {
+        long deadline = System.nanoTime() + properties.acquireTimeout().toNanos();
+
+        while (true) {
+            if (closed) {
+                throw new YtLoadingException("5f1c", "Пул воркеров yt-dlp закрыт");
+            }
+
+            YtDlpWorker worker = idleWorkers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (worker == null) {
+                throw new YtLoadingException("b2e7", "Не удалось дождаться свободного воркера yt-dlp за " + properties.acquireTimeout());
+            }
+
+            if (worker.isAlive()) {
+                return worker;
+            }
+
+            log.warn("Воркер yt-dlp pid {} завершился, заменяем его", worker.pid());
+            replace(worker);
+        }
+    }
+
+    private void release(YtDlpWorker worker, boolean healthy) {
+        if (closed) {
+            worker.destroy();
+            return;
+        }
+
+        if (!healthy) {
+            log.warn("Воркер yt-dlp pid {} завершил задачу с ошибкой, заменяем его", worker.pid());
+            replace(worker);
+        } else if (worker.completedJobs() >= properties.maxJobsPerWorker()) {
+            log.debug("Воркер yt-dlp pid {} выполнил {} задач, перезапускаем его", worker.pid(), worker.completedJobs());
+            replace(worker);
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    private void replace(YtDlpWorker worker) {
+        worker.destroy();
+        submitMaintenance(this::startWorker, 0);
+    }
+
+    private void submitMaintenance(Runnable task, long delayMillis) {
+        if (closed) {
+            return;
+        }
+
+        try {
+            maintenanceExecutor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Пул воркеров yt-dlp закрыт, фоновая задача пропущена");
+        }
+    }
+
+    private void startWorker() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            YtDlpWorker worker = YtDlpWorker.start(properties.command(), properties.startupTimeout());
+
+            if (closed) {
+                worker.destroy();
+            } else {
+                idleWorkers.offer(worker);
+                log.debug("Запущен воркер yt-dlp pid {}", worker.pid());
+            }
+        } catch (IOException e) {
+            log.error("9c3a Не удалось запустить воркер yt-dlp: {}", e.getMessage(), e);
+
+            submitMaintenance(this::startWorker, properties.healthCheckInterval().toMillis());
+        }
+    }
+
+    /**
+     * Проверяем только простаивающие воркеры: занятые проверяются фактом выполнения задачи
+     */
+    private void checkIdleWorkers() {
+        int idleCount = idleWorkers.size();
+
+        for (int i = 0; i < idleCount && !closed; i++) {
+            YtDlpWorker worker = idleWorkers.poll();
+            if (worker == null) {
+                return;
+            }
+
+            if (worker.isAlive() && worker.ping(properties.healthCheckTimeout())) {
+                idleWorkers.offer(worker);
+            } else {
+                log.warn("Воркер yt-dlp pid {} не прошёл проверку здоровья, заменяем его", worker.pid());
+                replace(worker);
+            }
+        }
+    }
+}
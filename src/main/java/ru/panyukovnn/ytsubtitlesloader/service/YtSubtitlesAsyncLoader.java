@@ -0,0 +1,41 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная загрузка: синхронный {@link YtSubtitlesLoader#load(String)} выполняется в виртуальном потоке,
+ * а отмена будущего или истечение срока прерывают этот поток. Загрузчик реагирует на прерывание
+ * уничтожением дерева процессов yt-dlp и удалением временных файлов.
+ */
+class YtSubtitlesAsyncLoader {
+
+    private YtSubtitlesAsyncLoader() {
+    }
+
+    static CompletableFuture<YtSubtitles> loadAsync(YtSubtitlesLoader loader, String dirtyLink, Instant deadline) {
+        CompletableFuture<YtSubtitles> future = new CompletableFuture<>();
+
+        Thread loadingThread = Thread.ofVirtual().name("yt-subtitles-async").unstarted(() -> {
+            try {
+                future.complete(loader.load(dirtyLink));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        // После штатного завершения поток уже не работает и прерывание ни на что не влияет
+        future.whenComplete((subtitles, error) -> loadingThread.interrupt());
+
+        long timeoutMillis = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+        future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+
+        loadingThread.start();
+
+        return future;
+    }
+}
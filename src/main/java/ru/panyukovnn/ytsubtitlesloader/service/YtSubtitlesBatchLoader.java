@@ -0,0 +1,113 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesResult;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Пакетная загрузка: каждая ссылка обрабатывается в своём виртуальном потоке,
+ * а семафор ограничивает число одновременных запусков yt-dlp, чтобы не перегрузить хост и не попасть под ограничения YouTube.
+ */
+class YtSubtitlesBatchLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(YtSubtitlesBatchLoader.class);
+
+    private YtSubtitlesBatchLoader() {
+    }
+
+    /**
+     * @return результаты в порядке завершения загрузок; закрытие потока отменяет незавершённые загрузки
+     */
+    static Stream<YtSubtitlesResult> loadAll(YtSubtitlesLoader loader, Collection<String> dirtyLinks, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Параллельность пакетной загрузки должна быть положительной: " + parallelism);
+        }
+
+        List<String> links = new ArrayList<>(dirtyLinks);
+        BlockingQueue<YtSubtitlesResult> results = new LinkedBlockingQueue<>();
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        for (String link : links) {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    results.add(loadSafely(loader, link));
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        executor.shutdown();
+
+        Iterator<YtSubtitlesResult> iterator = new Iterator<>() {
+
+            private int received;
+
+            @Override
+            public boolean hasNext() {
+                return received < links.size();
+            }
+
+            @Override
+            public YtSubtitlesResult next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    YtSubtitlesResult result = results.take();
+                    received++;
+
+                    return result;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+
+                    throw new YtLoadingException("c0a4", "Ожидание результатов пакетной загрузки прервано", e);
+                }
+            }
+        };
+
+        // Размер не объявляем: иначе count() вернёт результат, не дожидаясь загрузок
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+            .onClose(executor::shutdownNow);
+    }
+
+    /**
+     * Ошибка одной ссылки не должна прерывать весь пакет. Перехватывается и {@link Error}: без результата по ссылке
+     * потребитель ждал бы его бесконечно
+     */
+    private static YtSubtitlesResult loadSafely(YtSubtitlesLoader loader, String link) {
+        try {
+            return YtSubtitlesResult.success(link, loader.load(link));
+        } catch (YtLoadingException e) {
+            return YtSubtitlesResult.failure(link, e);
+        } catch (Throwable e) {
+            log.error("Ошибка пакетной загрузки субтитров по ссылке {}: {}", link, e.getMessage(), e);
+
+            return YtSubtitlesResult.failure(link, new YtLoadingException("63e9", "Не удалось извлечь субтитры из видео", e));
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Демон с прогретым загрузчиком за локальным HTTP-эндпоинтом на встроенном сервере JDK.
+ * <p>
+ * Запуск CLI на каждую ссылку стоит старта JVM, извлечения yt-dlp и сборки загрузчика. Демон платит за это один раз,
+ * а {@link YtSubtitlesDaemonClient} пересылает ему ссылку. Сервер слушает только loopback, каждый запрос
+ * обрабатывается в отдельном виртуальном потоке.
+ * <p>
+ * Протокол: {@code GET /subtitles?url=<ссылка>} возвращает текст субтитров в UTF-8, язык и каноническая ссылка
+ * передаются заголовками. С параметром {@code format=<формат>} тело ответа — субтитры в этом формате,
+ * см. {@link TranscriptFormat}. При ошибке загрузки код ошибки передаётся заголовком {@value #ERROR_ID_HEADER},
+ * сообщение — телом ответа. Если демону переданы метрики, {@code GET /metrics} отдаёт их в текстовом формате Prometheus.
+ * <p>
+ * Loopback не защищает от страниц в браузере пользователя: они могут отправить запрос на локальный порт,
+ * а через DNS rebinding и прочитать ответ. Поэтому демон отвечает 403 на запросы с заголовком {@code Origin},
+ * который браузер ставит на такие запросы, и с {@code Host}, отличным от {@code 127.0.0.1:<порт>} и {@code localhost:<порт>}.
+ */
+public class YtSubtitlesDaemon implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(YtSubtitlesDaemon.class);
+
+    public static final int DEFAULT_PORT = 47_319;
+
+    static final String SUBTITLES_PATH = "/subtitles";
+    static final String HEALTH_PATH = "/health";
+    static final String METRICS_PATH = "/metrics";
+    static final String URL_PARAMETER = "url";
+    static final String FORMAT_PARAMETER = "format";
+    static final String LINK_HEADER = "X-Subtitles-Link";
+    static final String LANG_HEADER = "X-Subtitles-Lang";
+    static final String ERROR_ID_HEADER = "X-Error-Id";
+
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final YtSubtitlesLoader loader;
+    @Nullable
+    private final YtSubtitlesMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param loader загрузчик, закрывается вместе с демоном
+     * @param port   порт на loopback-интерфейсе, {@code 0} — любой свободный
+     */
+    public YtSubtitlesDaemon(YtSubtitlesLoader loader, int port) throws IOException {
+        this(loader, port, null);
+    }
+
+    /**
+     * @param metrics метрики загрузчика для {@code /metrics}; {@code null} — не отдавать метрики
+     */
+    public YtSubtitlesDaemon(YtSubtitlesLoader loader, int port, @Nullable YtSubtitlesMetrics metrics) throws IOException {
+        this.loader = loader;
+        this.metrics = metrics;
+
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            // Порт занят, скорее всего уже запущенным демоном: прогретый загрузчик больше не нужен
+            loader.close();
+            throw e;
+        }
+
+        server.createContext(SUBTITLES_PATH, localOnly(this::handleSubtitles));
+        server.createContext(HEALTH_PATH, localOnly(exchange -> respond(exchange, 200, "OK")));
+        if (metrics != null) {
+            server.createContext(METRICS_PATH, localOnly(this::handleMetrics));
+        }
+        server.setExecutor(executor);
+        server.start();
+
+        log.info("Демон загрузки субтитров слушает {}", server.getAddress());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdownNow();
+        loader.close();
+    }
+
+    private HttpHandler localOnly(HttpHandler handler) {
+        return exchange -> {
+            if (isLocalRequest(exchange)) {
+                handler.handle(exchange);
+                return;
+            }
+
+            try (exchange) {
+                log.warn("Отклонён запрос к демону с Host {} и Origin {}",
+                    exchange.getRequestHeaders().getFirst("Host"), exchange.getRequestHeaders().getFirst("Origin"));
+                respond(exchange, 403, "Запрос не от локального клиента");
+            }
+        };
+    }
+
+    private boolean isLocalRequest(HttpExchange exchange) {
+        if (exchange.getRequestHeaders().containsKey("Origin")) {
+            return false;
+        }
+
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null) {
+            return false;
+        }
+
+        String port = ":" + getPort();
+        String normalizedHost = host.toLowerCase(Locale.ROOT);
+
+        return normalizedHost.equals("127.0.0.1" + port) || normalizedHost.equals("localhost" + port);
+    }
+
+    private void handleSubtitles(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Поддерживается только GET");
+                return;
+            }
+
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            String link = queryParameter(rawQuery, URL_PARAMETER);
+            if (link == null) {
+                respondError(exchange, new YtLoadingException("824c", "Не передана ссылка youtube"));
+                return;
+            }
+
+            TranscriptFormat format;
+            try {
+                String formatName = queryParameter(rawQuery, FORMAT_PARAMETER);
+                format = formatName == null ? null : TranscriptFormat.valueOf(formatName);
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "Неизвестный формат субтитров");
+                return;
+            }
+
+            try {
+                if (format == null) {
+                    YtSubtitles subtitles = loader.load(link);
+
+                    exchange.getResponseHeaders().set(LINK_HEADER, subtitles.link());
+                    exchange.getResponseHeaders().set(LANG_HEADER, subtitles.lang().getLang());
+                    respond(exchange, 200, subtitles.subtitles());
+                } else {
+                    respondFormatted(exchange, link, format);
+                }
+            } catch (YtLoadingException e) {
+                respondError(exchange, e);
+            } catch (Exception e) {
+                log.error("Ошибка загрузки субтитров в демоне: {}", e.getMessage(), e);
+                respondError(exchange, new YtLoadingException("63e9", "Не удалось извлечь субтитры из видео", e));
+            } finally {
+                log.debug("Запрос к демону обработан за {} мс: {}", (System.nanoTime() - startNanos) / 1_000_000, link);
+            }
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder body = new StringBuilder();
+            metrics.writePrometheus(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Ответ собирается целиком до отправки заголовков: ошибка загрузки после начала ответа
+     * уже не передалась бы клиенту кодом ошибки. Раз ответ всё равно в памяти, субтитры загружаются целиком
+     * через {@link YtSubtitlesLoader#load(String)}: так запрос попадает в кэш и объединяется с одновременными.
+     */
+    private void respondFormatted(HttpExchange exchange, String link, TranscriptFormat format) throws IOException {
+        YtSubtitles subtitles = loader.load(link);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        format.write(subtitles, body);
+
+        exchange.getResponseHeaders().set(LINK_HEADER, subtitles.link());
+        exchange.getResponseHeaders().set(LANG_HEADER, subtitles.lang().getLang());
+        exchange.getResponseHeaders().set("Content-Type", switch (format) {
+            case JSONL -> "application/jsonl; charset=utf-8";
+            case SRT -> "application/x-subrip; charset=utf-8";
+            default -> "text/plain; charset=utf-8";
+        });
+        exchange.sendResponseHeaders(200, body.size() == 0 ? -1 : body.size());
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            body.writeTo(responseBody);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, YtLoadingException e) throws IOException {
+        int status = switch (e.getId()) {
+            case "824c" -> 400;
+            case "48ae" -> 404;
+            case "7d3b" -> 503;
+            default -> 500;
+        };
+
+        exchange.getResponseHeaders().set(ERROR_ID_HEADER, e.getId());
+        respond(exchange, status, e.getMessage());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        // Длина 0 в sendResponseHeaders означает chunked-ответ, пустое тело обозначается -1
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Тонкий клиент {@link YtSubtitlesDaemon}. Использует {@link HttpURLConnection}, а не {@code java.net.http.HttpClient}:
+ * клиент работает в короткоживущем процессе CLI, и каждый загруженный класс заметен во времени старта.
+ */
+public class YtSubtitlesDaemonClient {
+
+    private static final Logger log = LoggerFactory.getLogger(YtSubtitlesDaemonClient.class);
+
+    /**
+     * Демон на loopback отвечает или отказывает в соединении сразу, долгое ожидание означает, что порт занят не им
+     */
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(500);
+
+    /**
+     * С запасом больше таймаута процесса yt-dlp по умолчанию
+     */
+    private static final Duration READ_TIMEOUT = ProcessRunner.DEFAULT_TIMEOUT.plusMinutes(1);
+
+    private final int port;
+
+    public YtSubtitlesDaemonClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @return субтитры, загруженные демоном, либо пустой Optional, если демон не запущен
+     * @throws YtLoadingException ошибка загрузки, которую вернул демон
+     */
+    public Optional<YtSubtitles> tryLoad(String link) {
+        StringWriter text = new StringWriter();
+
+        return tryLoad(link, text)
+            .map(info -> new YtSubtitles(info.link(), info.title(), info.lang(), text.toString()));
+    }
+
+    /**
+     * Пишет текст субтитров в приёмник по мере получения ответа демона.
+     * Пока ответ не начал приходить, ничего не записано, поэтому при пустом результате можно загрузить субтитры без демона.
+     *
+     * @return сведения о субтитрах, загруженных демоном, либо пустой Optional, если демон не запущен
+     * @throws YtLoadingException ошибка загрузки, которую вернул демон, либо обрыв ответа после частичной записи
+     */
+    public Optional<YtSubtitlesInfo> tryLoad(String link, Writer sink) {
+        return tryLoad(link, null, body -> {
+            try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                reader.transferTo(sink);
+            }
+        });
+    }
+
+    /**
+     * Пишет субтитры в заданном формате в поток по мере получения ответа демона, см. {@link #tryLoad(String, Writer)}
+     *
+     * @return сведения о субтитрах, загруженных демоном, либо пустой Optional, если демон не запущен
+     * @throws YtLoadingException ошибка загрузки, которую вернул демон, либо обрыв ответа после частичной записи
+     */
+    public Optional<YtSubtitlesInfo> tryLoad(String link, TranscriptFormat format, OutputStream output) {
+        return tryLoad(link, format, body -> {
+            try (body) {
+                body.transferTo(output);
+            }
+        });
+    }
+
+    private Optional<YtSubtitlesInfo> tryLoad(String link, TranscriptFormat format, BodyConsumer bodyConsumer) {
+        HttpURLConnection connection = null;
+
+        try {
+            String query = YtSubtitlesDaemon.URL_PARAMETER + "=" + URLEncoder.encode(link, StandardCharsets.UTF_8);
+            if (format != null) {
+                query += "&" + YtSubtitlesDaemon.FORMAT_PARAMETER + "=" + format.name();
+            }
+            URI uri = URI.create("http://127.0.0.1:" + port + YtSubtitlesDaemon.SUBTITLES_PATH + "?" + query);
+
+            connection = (HttpURLConnection) uri.toURL().openConnection();
+            connection.setConnectTimeout((int) CONNECT_TIMEOUT.toMillis());
+            connection.setReadTimeout((int) READ_TIMEOUT.toMillis());
+
+            int status = connection.getResponseCode();
+            String errorId = connection.getHeaderField(YtSubtitlesDaemon.ERROR_ID_HEADER);
+
+            if (errorId != null) {
+                throw new YtLoadingException(errorId, readBody(connection.getErrorStream()));
+            }
+            if (status != 200) {
+                log.warn("Демон вернул неожиданный статус {}, загружаю без демона", status);
+                return Optional.empty();
+            }
+
+            SubtitlesLang lang = SubtitlesLang.of(connection.getHeaderField(YtSubtitlesDaemon.LANG_HEADER));
+            String canonicalLink = connection.getHeaderField(YtSubtitlesDaemon.LINK_HEADER);
+
+            try {
+                bodyConsumer.accept(connection.getInputStream());
+            } catch (IOException e) {
+                // Часть текста уже могла попасть в приёмник, повторная загрузка без демона её бы продублировала
+                throw new YtLoadingException("b81f", "Не удалось передать субтитры от демона: " + e.getMessage(), e);
+            }
+
+            return Optional.of(new YtSubtitlesInfo(canonicalLink, null, lang));
+        } catch (ConnectException e) {
+            log.debug("Демон не запущен на порту {}", port);
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Не удалось получить субтитры от демона, загружаю без демона: {}", e.getMessage());
+            return Optional.empty();
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static String readBody(InputStream body) throws IOException {
+        if (body == null) {
+            return "";
+        }
+
+        try (body) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyConsumer {
+
+        void accept(InputStream body) throws IOException;
+    }
+}
@@ -1,8 +1,125 @@
 package ru.panyukovnn.ytsubtitlesloader.service;
 
 import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesResult;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
 
-public interface YtSubtitlesLoader {
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+public interface YtSubtitlesLoader extends AutoCloseable {
+
+    int DEFAULT_BATCH_PARALLELISM = 4;
 
     YtSubtitles load(String dirtyLink);
+
+    /**
+     * Загружает субтитры и пишет их текст в приёмник. Реализация по умолчанию собирает текст целиком,
+     * {@link YtSubtitlesLoaderImpl} пишет его по мере очистки, и память не зависит от длины видео.
+     * Если загрузка завершилась ошибкой, в приёмник могла попасть часть текста.
+     *
+     * @param dirtyLink ссылка на видео
+     * @param sink      приёмник текста субтитров, не закрывается
+     * @return ссылка и язык субтитров
+     * @throws ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException в том числе {@code b81f}, если не удалось записать в приёмник
+     */
+    default YtSubtitlesInfo load(String dirtyLink, Writer sink) {
+        YtSubtitles subtitles = load(dirtyLink);
+
+        try {
+            sink.write(subtitles.subtitles());
+        } catch (IOException e) {
+            throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+        }
+
+        return new YtSubtitlesInfo(subtitles.link(), subtitles.title(), subtitles.lang());
+    }
+
+    /**
+     * Загружает субтитры и пишет их в поток в заданном формате, в UTF-8. Реализация по умолчанию кодирует
+     * загруженные целиком субтитры, {@link YtSubtitlesLoaderImpl} кодирует текст по мере очистки.
+     * Если загрузка завершилась ошибкой, в поток могла попасть часть текста.
+     *
+     * @param dirtyLink ссылка на видео
+     * @param format    выходной формат
+     * @param output    поток вывода, сбрасывается, но не закрывается
+     * @return ссылка и язык субтитров
+     * @throws ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException в том числе {@code b81f}, если не удалось записать в поток
+     */
+    default YtSubtitlesInfo load(String dirtyLink, TranscriptFormat format, OutputStream output) {
+        YtSubtitles subtitles = load(dirtyLink);
+
+        try {
+            format.write(subtitles, output);
+        } catch (IOException e) {
+            throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+        }
+
+        return new YtSubtitlesInfo(subtitles.link(), subtitles.title(), subtitles.lang());
+    }
+
+    /**
+     * Загружает субтитры на нескольких языках одним запуском yt-dlp.
+     * Реализация по умолчанию возвращает только лучший по приоритету язык, {@link YtSubtitlesLoaderImpl}
+     * берёт до {@code maxLanguages} языков из одного запуска yt-dlp.
+     *
+     * @param dirtyLink    ссылка на видео
+     * @param maxLanguages сколько языков вернуть не больше, от {@code 1}
+     * @return субтитры на разных языках в порядке приоритета языков, не пустой список
+     * @throws ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException {@code 48ae}, если подходящих субтитров нет ни на одном языке
+     */
+    default List<YtSubtitles> loadLanguages(String dirtyLink, int maxLanguages) {
+        if (maxLanguages < 1) {
+            throw new IllegalArgumentException("Количество языков должно быть положительным: " + maxLanguages);
+        }
+
+        return List.of(load(dirtyLink));
+    }
+
+    /**
+     * Пакетная загрузка с параллельностью по умолчанию, см. {@link #loadAll(Collection, int)}
+     */
+    default Stream<YtSubtitlesResult> loadAll(Collection<String> dirtyLinks) {
+        return loadAll(dirtyLinks, DEFAULT_BATCH_PARALLELISM);
+    }
+
+    /**
+     * Загружает субтитры по всем ссылкам в виртуальных потоках, одновременно не более {@code parallelism} загрузок.
+     * Результаты приходят по мере завершения загрузок, ошибка одной ссылки возвращается в её результате
+     * и не прерывает остальные. Поток результатов нужно закрыть, если он прочитан не до конца.
+     *
+     * @param dirtyLinks  ссылки на видео
+     * @param parallelism максимальное число одновременных загрузок
+     * @return по одному результату на каждую ссылку в порядке завершения
+     */
+    default Stream<YtSubtitlesResult> loadAll(Collection<String> dirtyLinks, int parallelism) {
+        return YtSubtitlesBatchLoader.loadAll(this, dirtyLinks, parallelism);
+    }
+
+    /**
+     * Загружает субтитры асинхронно, не занимая поток вызывающего.
+     * Отмена будущего или истечение срока сразу уничтожают процесс yt-dlp и удаляют его временные файлы.
+     *
+     * @param dirtyLink ссылка на видео
+     * @param deadline  момент, после которого будущее завершается с {@link java.util.concurrent.TimeoutException}
+     * @return будущее с субтитрами либо с {@link ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException}
+     */
+    default CompletableFuture<YtSubtitles> loadAsync(String dirtyLink, Instant deadline) {
+        return YtSubtitlesAsyncLoader.loadAsync(this, dirtyLink, deadline);
+    }
+
+    /**
+     * Освобождает ресурсы загрузчика, например пул воркеров yt-dlp
+     */
+    @Override
+    default void close() {
+    }
 }
@@ -5,23 +5,40 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.config.TempFilesProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.AvailableSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitleCues;
 import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.TranscriptKey;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
 import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
 import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptEncoder;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+import ru.panyukovnn.ytsubtitlesloader.util.VttTextAssembler;
 import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class YtSubtitlesLoaderImpl implements YtSubtitlesLoader {
 
@@ -29,305 +46,673 @@ public class YtSubtitlesLoaderImpl implements YtSubtitlesLoader {
 
     private final YtLinkHelper ytLinkHelper;
     private final YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator;
+    private final YtDlpExecutor ytDlpExecutor;
+    @Nullable
+    private final DiskTranscriptStore transcriptStore;
+    private final TempFilesJanitor tempFilesJanitor;
+    private final List<SubtitlesLang> languages;
+    private final YtSubtitlesMetrics metrics;
+    private final YtDlpListSubsParser ytDlpListSubsParser;
 
     public YtSubtitlesLoaderImpl(YtLinkHelper ytLinkHelper, YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator) {
+        this(ytLinkHelper, ytDlpProcessBuilderCreator, new ProcessYtDlpExecutor(ytDlpProcessBuilderCreator));
+    }
+
+    public YtSubtitlesLoaderImpl(YtLinkHelper ytLinkHelper,
+                                 YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator,
+                                 YtDlpExecutor ytDlpExecutor) {
+        this(ytLinkHelper, ytDlpProcessBuilderCreator, ytDlpExecutor, null);
+    }
+
+    /**
+     * @param transcriptStore хранилище субтитров на диске, которое проверяется до запуска yt-dlp; {@code null} — не использовать
+     */
+    public YtSubtitlesLoaderImpl(YtLinkHelper ytLinkHelper,
+                                 YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator,
+                                 YtDlpExecutor ytDlpExecutor,
+                                 @Nullable DiskTranscriptStore transcriptStore) {
+        this(ytLinkHelper, ytDlpProcessBuilderCreator, ytDlpExecutor, transcriptStore, new TempFilesJanitor(TempFilesProperties.of()));
+    }
+
+    /**
+     * @param tempFilesJanitor временные файлы yt-dlp, закрывается вместе с загрузчиком
+     */
+    public YtSubtitlesLoaderImpl(YtLinkHelper ytLinkHelper,
+                                 YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator,
+                                 YtDlpExecutor ytDlpExecutor,
+                                 @Nullable DiskTranscriptStore transcriptStore,
+                                 TempFilesJanitor tempFilesJanitor) {
+        this(ytLinkHelper, ytDlpProcessBuilderCreator, ytDlpExecutor, transcriptStore, tempFilesJanitor, SubtitlesLang.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * @param languages языки субтитров в порядке приоритета, см. {@link ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesLoaderProperties#getLanguages()}
+     */
+    public YtSubtitlesLoaderImpl(YtLinkHelper ytLinkHelper,
+                                 YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator,
+                                 YtDlpExecutor ytDlpExecutor,
+                                 @Nullable DiskTranscriptStore transcriptStore,
+                                 TempFilesJanitor tempFilesJanitor,
+                                 List<SubtitlesLang> languages) {
+        this(ytLinkHelper, ytDlpProcessBuilderCreator, ytDlpExecutor, transcriptStore, tempFilesJanitor, languages, new YtSubtitlesMetrics());
+    }
+
+    /**
+     * @param metrics метрики этапов загрузки и ошибок, могут быть общими с исполнителем yt-dlp и другими загрузчиками
+     */
+    public YtSubtitlesLoaderImpl(YtLinkHelper ytLinkHelper,
+                                 YtDlpProcessBuilderCreator ytDlpProcessBuilderCreator,
+                                 YtDlpExecutor ytDlpExecutor,
+                                 @Nullable DiskTranscriptStore transcriptStore,
+                                 TempFilesJanitor tempFilesJanitor,
+                                 List<SubtitlesLang> languages,
+                                 YtSubtitlesMetrics metrics) {
         this.ytLinkHelper = ytLinkHelper;
         this.ytDlpProcessBuilderCreator = ytDlpProcessBuilderCreator;
+        this.ytDlpExecutor = ytDlpExecutor;
+        this.transcriptStore = transcriptStore;
+        this.tempFilesJanitor = tempFilesJanitor;
+        this.languages = List.copyOf(languages);
+        this.metrics = metrics;
+        this.ytDlpListSubsParser = new YtDlpListSubsParser(this.languages);
     }
 
+    /**
+     * Реплики с временными метками собираются вместе с текстом и ссылаются на него, а не копируют
+     */
     public YtSubtitles load(String dirtyLink) {
-        log.debug("Начинаю загрузку субтитров из youtube видео по ссылке: {}", dirtyLink);
+        return metered(() -> {
+            StringBuilder text = new StringBuilder();
+            SubtitleCues.Builder cues = new SubtitleCues.Builder();
+            YtSubtitlesInfo info = load(dirtyLink, new TextSink(text, cues));
+
+            String subtitles = text.toString();
 
-        // Очистка старых временных файлов
-        cleanupOldTempFiles();
+            return new YtSubtitles(info.link(), info.title(), info.lang(), subtitles, cues.build(subtitles));
+        });
+    }
+
+    /**
+     * Текст пишется в приёмник прямо из файла субтитров, по мере очистки
+     */
+    @Override
+    public YtSubtitlesInfo load(String dirtyLink, Writer sink) {
+        return metered(() -> load(dirtyLink, new TextSink(sink, null)));
+    }
+
+    /**
+     * Части текста кодируются в формат прямо из файла субтитров, по мере очистки
+     */
+    @Override
+    public YtSubtitlesInfo load(String dirtyLink, TranscriptFormat format, OutputStream output) {
+        return metered(() -> {
+            TextSink sink = new TextSink(format.newEncoder(output));
+            YtSubtitlesInfo info = load(dirtyLink, sink);
+            sink.finish();
+
+            return info;
+        });
+    }
 
-        if (!ytLinkHelper.isValidYoutubeUrl(dirtyLink)) {
-            throw new YtLoadingException("824c", "Невалидная ссылка youtube: " + dirtyLink);
+    /**
+     * Субтитры всех языков берутся из одного запуска yt-dlp, текст каждого языка собирается в отдельный приёмник
+     */
+    @Override
+    public List<YtSubtitles> loadLanguages(String dirtyLink, int maxLanguages) {
+        if (maxLanguages < 1) {
+            throw new IllegalArgumentException("Количество языков должно быть положительным: " + maxLanguages);
         }
 
-        String cleanedLink = ytLinkHelper.removeRedundantQueryParamsFromYoutubeLint(dirtyLink);
+        return metered(() -> {
+            VideoId videoId = extractVideoId(dirtyLink);
+            Map<SubtitlesLang, TextSink> sinks = new HashMap<>();
 
-        try {
-            Pair<SubtitlesLang, Boolean> preferred = selectPreferredSubtitles(cleanedLink)
-                .orElseThrow(() -> new YtLoadingException("48ae", "Не удалось найти подходящие субтитры (vtt) для указанного видео"));
+            List<SubtitlesLang> langs = load(videoId, maxLanguages,
+                lang -> sinks.computeIfAbsent(lang, key -> new TextSink(new StringBuilder(), new SubtitleCues.Builder())));
 
-            SubtitlesLang lang = preferred.getLeft();
-            boolean isAuto = preferred.getRight();
+            List<YtSubtitles> result = new ArrayList<>(langs.size());
+            for (SubtitlesLang lang : langs) {
+                TextSink sink = sinks.get(lang);
+                String subtitles = sink.target.toString();
 
-            String subtitlesContent = tryDownloadSubtitles(cleanedLink, lang, isAuto);
-            if (StringUtils.isEmpty(subtitlesContent)) {
-                throw new YtLoadingException("48ae", "Не удалось загрузить субтитры для указанного видео");
+                result.add(new YtSubtitles(videoId.watchUrl(), null, lang, subtitles, sink.cues.build(subtitles)));
             }
 
-            List<String> subtitlesLines = List.of(subtitlesContent.split("\n"));
-
-            List<String> cleanedFileLines = cleanSubtitles(subtitlesLines);
+            return result;
+        });
+    }
 
-            String subtitles = String.join(" ", cleanedFileLines);
+    /**
+     * Учитывает загрузку в метриках: длительность целиком, число загрузок в работе и код ошибки, с которым она завершилась
+     */
+    private <T> T metered(Supplier<T> load) {
+        long startNanos = System.nanoTime();
+        metrics.loadStarted();
 
-            return new YtSubtitles(cleanedLink, null, lang, subtitles);
+        try {
+            return load.get();
         } catch (YtLoadingException e) {
+            metrics.recordError(e.getId());
             throw e;
-        } catch (Exception e) {
-            log.error("Ошибка загрузки субтитров из видео: {}", e.getMessage(), e);
-
-            throw new YtLoadingException("63e9", "Не удалось извлечь субтитры из видео", e);
+        } finally {
+            metrics.loadFinished(startNanos);
         }
     }
 
+    private YtSubtitlesInfo load(String dirtyLink, TextSink sink) {
+        VideoId videoId = extractVideoId(dirtyLink);
+        SubtitlesLang lang = load(videoId, 1, ignored -> sink).get(0);
+
+        return new YtSubtitlesInfo(videoId.watchUrl(), null, lang);
+    }
+
+    private VideoId extractVideoId(String dirtyLink) {
+        log.debug("Начинаю загрузку субтитров из youtube видео по ссылке: {}", dirtyLink);
+
+        return ytLinkHelper.extractVideoId(dirtyLink)
+            .orElseThrow(() -> new YtLoadingException("824c", "Невалидная ссылка youtube: " + dirtyLink));
+    }
+
     /**
-     * Сначала вызываем yt-dlp --list-subs, парсим доступные субтитры и выбираем лучший вариант
-     * по приоритету: ru manual -> ru auto -> en manual -> en auto. Берем только если есть формат vtt.
+     * Сначала ищет субтитры в хранилище, недостающие языки скачивает одним запуском yt-dlp
+     *
+     * @param sinks приёмник текста для языка; при загрузке одного языка — общий для всех
+     * @return найденные языки в порядке приоритета, не больше {@code maxLanguages}
      */
-    private Optional<Pair<SubtitlesLang, Boolean>> selectPreferredSubtitles(String videoUrl) {
-        ProcessBuilder processBuilder = ytDlpProcessBuilderCreator.createListSubsProcessBuilder(videoUrl);
-
+    private List<SubtitlesLang> load(VideoId videoId, int maxLanguages, Function<SubtitlesLang, TextSink> sinks) {
         try {
-            log.debug("Получение списка доступных субтитров для видео: {}", videoUrl);
+            long lookupStartNanos = System.nanoTime();
+            List<SubtitlesLang> found = findStoredSubtitles(videoId, maxLanguages, sinks);
+            metrics.record(YtSubtitlesMetrics.Phase.STORE_LOOKUP, lookupStartNanos);
 
-            Process process = processBuilder.start();
+            if (found.size() < maxLanguages) {
+                downloadPreferredSubtitles(videoId, maxLanguages, found, sinks);
+            }
+            if (found.isEmpty()) {
+                throw new YtLoadingException("48ae", "Не удалось найти подходящие субтитры (vtt) для указанного видео");
+            }
 
-            BufferedReader stdoutReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            BufferedReader stderrReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+            found.sort(Comparator.comparingInt(languages::indexOf));
 
-            String line;
-            boolean inAutomaticSection = false;
+            return found;
+        } catch (YtLoadingException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Ошибка загрузки субтитров из видео: {}", e.getMessage(), e);
 
-            boolean ruManualVtt = false;
-            boolean ruAutoVtt = false;
-            boolean enManualVtt = false;
-            boolean enAutoVtt = false;
+            throw new YtLoadingException("63e9", "Не удалось извлечь субтитры из видео", e);
+        }
+    }
 
-            while ((line = stdoutReader.readLine()) != null) {
-                String lower = line.toLowerCase();
+    @Override
+    public void close() {
+        tempFilesJanitor.close();
+        ytDlpExecutor.close();
 
-                if (lower.contains("automatic captions")) {
-                    inAutomaticSection = true;
-                    continue;
-                }
-                if (lower.contains("available subtitles")) {
-                    inAutomaticSection = false;
-                    continue;
-                }
+        if (transcriptStore != null) {
+            transcriptStore.close();
+        }
+    }
 
-                String trimmed = line.trim();
-                if (trimmed.isEmpty()) {
-                    continue;
-                }
+    /**
+     * Ищет в хранилище лучшие по приоритету субтитры, сохранённые прошлыми загрузками, и пишет их текст в приёмники.
+     * <p>
+     * Сохранённые субтитры берутся, только если более приоритетных у видео нет по сохранённому списку субтитров.
+     * Иначе, например если ru не скачались из-за временной ошибки и в хранилище попали en, поиск останавливается,
+     * и недостающие языки загружаются заново.
+     */
+    private List<SubtitlesLang> findStoredSubtitles(VideoId videoId, int maxLanguages, Function<SubtitlesLang, TextSink> sinks) {
+        List<SubtitlesLang> found = new ArrayList<>();
 
-                // Ожидаем строки вида: "<langCode>    <formats...>"
-                int firstSpace = trimmed.indexOf(' ');
-                if (firstSpace <= 0) {
-                    continue;
-                }
+        if (transcriptStore == null) {
+            return found;
+        }
 
-                String langCode = trimmed.substring(0, firstSpace).trim();
-                String formats = trimmed.substring(firstSpace).toLowerCase();
+        Optional<AvailableSubtitles> listing = transcriptStore.listing(videoId);
 
-                // Пропускаем заголовки "Language  formats" и т.п.
-                if ("language".equals(langCode)) {
-                    continue;
-                }
+        for (SubtitlesLang lang : languages) {
+            if (found.size() == maxLanguages) {
+                break;
+            }
 
-                boolean hasVtt = formats.contains("vtt");
-                if (!hasVtt) {
-                    continue;
+            for (boolean isAuto : new boolean[] {false, true}) {
+                if (readStoredSubtitles(new TranscriptKey(videoId, lang, isAuto), sinks)) {
+                    found.add(lang);
+                    break;
                 }
 
-                // Считаем en/ru как базовые коды и их варианты (en-GB, ru-...).
-                boolean isRu = "ru".equals(langCode) || langCode.startsWith("ru-");
-                boolean isEn = "en".equals(langCode) || langCode.startsWith("en-");
-
-                if (isRu) {
-                    if (inAutomaticSection) {
-                        ruAutoVtt = true;
-                    } else {
-                        ruManualVtt = true;
-                    }
-                } else if (isEn) {
-                    if (inAutomaticSection) {
-                        enAutoVtt = true;
-                    } else {
-                        enManualVtt = true;
-                    }
+                if (!isKnownUnavailable(listing, lang, isAuto)) {
+                    log.debug("Субтитров видео {} ({}, auto: {}) нет в хранилище, но они могут быть у видео", videoId, lang, isAuto);
+
+                    return found;
                 }
             }
+        }
 
-            // Собираем stderr на случай ошибок
-            StringBuilder errorOutput = new StringBuilder();
-            while ((line = stderrReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
-            }
+        return found;
+    }
 
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                if (StringUtils.isNotBlank(errorOutput)) {
-                    log.warn("yt-dlp --list-subs stderr: {}", errorOutput);
-                }
+    /**
+     * @return записаны ли в приёмник субтитры из хранилища
+     */
+    private boolean readStoredSubtitles(TranscriptKey key, Function<SubtitlesLang, TextSink> sinks) {
+        Optional<BufferedReader> stored = transcriptStore.open(key);
+        if (stored.isEmpty()) {
+            return false;
+        }
 
-                log.warn("a3d1 Ошибка получения списка субтитров, exitCode: {}", exitCode);
-                return Optional.empty();
-            }
+        try (BufferedReader reader = stored.get()) {
+            if (writeText(reader, new SubtitlesSource(key.videoId(), key.lang().getLang(), key.isAuto(), -1), sinks.apply(key.lang()))) {
+                log.debug("Субтитры видео {} взяты из хранилища ({}, auto: {})", key.videoId(), key.lang(), key.isAuto());
 
-            // Приоритет: ru manual -> ru auto -> en manual -> en auto
-            if (ruManualVtt) {
-                return Optional.of(Pair.of(SubtitlesLang.RU, false));
-            }
-            if (ruAutoVtt) {
-                return Optional.of(Pair.of(SubtitlesLang.RU, true));
-            }
-            if (enManualVtt) {
-                return Optional.of(Pair.of(SubtitlesLang.EN, false));
-            }
-            if (enAutoVtt) {
-                return Optional.of(Pair.of(SubtitlesLang.EN, true));
+                return true;
             }
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать субтитры видео {} из хранилища: {}", key.videoId(), e.getMessage(), e);
+        }
 
-            return Optional.empty();
-        } catch (Exception e) {
-            log.error("7b52 Ошибка при получении списка субтитров: {}", e.getMessage(), e);
-            return Optional.empty();
+        return false;
+    }
+
+    private static boolean isKnownUnavailable(Optional<AvailableSubtitles> listing, SubtitlesLang lang, boolean isAuto) {
+        if (listing.isEmpty()) {
+            return false;
         }
+
+        Set<String> langCodes = isAuto ? listing.get().automaticLanguages() : listing.get().manualLanguages();
+
+        return langCodes.stream().noneMatch(lang::matches);
     }
 
     /**
-     * @param videoUrl   ссылка на видео на youtube
-     * @param lang       язык субтитров (ru или en)
-     * @param isAutoSubs загружать ли автогенерированные субтитры
-     * @return содержимое субтитров из файла, созданного yt-dlp
+     * Одним запуском yt-dlp получаем список субтитров и скачиваем ручные и автоматические субтитры всех настроенных языков,
+     * затем перебираем кандидатов из списка по приоритету, см. {@link #rankCandidates(AvailableSubtitles)}.
+     * Если файлы кандидатов, нужных для результата, не скачались, они докачиваются одним дополнительным запуском
+     * без повторного получения списка.
+     * <p>
+     * Автоматические и ручные субтитры с одним кодом yt-dlp пишет в один файл {@code <шаблон>.<lang>.vtt}, и в нём
+     * оказываются ручные. Поэтому такие автоматические субтитры, например ru auto при не скачавшихся ru manual,
+     * докачиваются последним запуском только с --write-auto-subs. Без докачки кандидаты ниже по приоритету,
+     * файлы которых уже скачались, выбираются раньше таких автоматических субтитров, чтобы не тратить лишний запуск.
+     *
+     * @param found языки, уже найденные в хранилище; дополняется скачанными
      */
-    @Nullable
-    private String tryDownloadSubtitles(String videoUrl, SubtitlesLang lang, boolean isAutoSubs) {
+    private void downloadPreferredSubtitles(VideoId videoId,
+                                            int maxLanguages,
+                                            List<SubtitlesLang> found,
+                                            Function<SubtitlesLang, TextSink> sinks) {
+        // yt-dlp получает каноническую ссылку: параметры плейлиста и времени ему не нужны
+        String videoUrl = videoId.watchUrl();
+        Path requestDirectory = null;
+
         try {
             log.debug("Начало загрузки субтитров для видео: {}", videoUrl);
 
-            Pair<ProcessBuilder, Path> builderAndPath = ytDlpProcessBuilderCreator.createProcessBuilder(
-                videoUrl, lang.getLang(), isAutoSubs
-            );
-            ProcessBuilder processBuilder = builderAndPath.getLeft();
-            Path outputPath = builderAndPath.getRight();
+            requestDirectory = tempFilesJanitor.createRequestDirectory();
+            Pair<List<String>, Path> argumentsAndTemplate = ytDlpProcessBuilderCreator.createListAndDownloadArguments(videoUrl, requestDirectory, languages);
+            Path outputTemplate = argumentsAndTemplate.getRight();
 
-            Process process = processBuilder.start();
+            String requestedLangs = languages.stream().map(SubtitlesLang::getLang).collect(Collectors.joining(","));
+            YtDlpExecutionResult result = execute(argumentsAndTemplate.getLeft(), videoId, requestedLangs, false);
+            logFailedExecution(result);
 
-            // Читаем stderr для отслеживания ошибок
-            BufferedReader stderrReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            StringBuilder errorOutput = new StringBuilder();
-            String line;
+            long parseStartNanos = System.nanoTime();
+            AvailableSubtitles availableSubtitles = ytDlpListSubsParser.parse(new BufferedReader(new StringReader(result.stdout())));
+            metrics.record(YtSubtitlesMetrics.Phase.LIST_SUBS_PARSE, parseStartNanos);
+            List<Candidate> candidates = rankCandidates(availableSubtitles);
+            // Список сохраняется только полным: по нему потом решается, каких субтитров у видео нет
+            boolean completeListing = YtDlpFailureClassifier.hasCompleteSubtitlesListing(result);
+            Set<String> usedLangCodes = new HashSet<>();
 
-            while ((line = stderrReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
+            List<Candidate> notDownloaded = selectDownloadedSubtitles(candidates, outputTemplate, false, videoId, maxLanguages, found, usedLangCodes, sinks);
 
-                if (line.contains("There are no subtitles for the requested languages")) {
-                    log.warn("There are no subtitles for the requested languages");
-                    return null;
-                }
+            List<String> langCodes = langCodes(notDownloaded, false);
+            if (found.size() < maxLanguages && !langCodes.isEmpty()) {
+                log.info("Субтитры {} есть в списке, но не скачались, докачиваю только их", langCodes);
+
+                YtDlpExecutionResult retryResult = execute(
+                    ytDlpProcessBuilderCreator.createDownloadArguments(videoUrl, outputTemplate, langCodes), videoId, String.join(",", langCodes), true);
+                logFailedExecution(retryResult);
+
+                notDownloaded = selectDownloadedSubtitles(notDownloaded, outputTemplate, false, videoId, maxLanguages, found, usedLangCodes, sinks);
+            }
+
+            List<String> autoLangCodes = langCodes(notDownloaded, true);
+            if (found.size() < maxLanguages && !autoLangCodes.isEmpty()) {
+                log.info("Ручные субтитры {} не скачались, докачиваю автоматические с тем же кодом", autoLangCodes);
+
+                Path autoOutputTemplate = outputTemplate.resolveSibling(outputTemplate.getFileName() + ".auto");
+                YtDlpExecutionResult autoResult = execute(
+                    ytDlpProcessBuilderCreator.createAutoDownloadArguments(videoUrl, autoOutputTemplate, autoLangCodes), videoId, String.join(",", autoLangCodes), true);
+                logFailedExecution(autoResult);
+
+                notDownloaded = selectDownloadedSubtitles(
+                    notDownloaded.stream().filter(Candidate::hasManualTwin).toList(), autoOutputTemplate, true, videoId, maxLanguages, found, usedLangCodes, sinks);
             }
 
-            if (StringUtils.isNotBlank(errorOutput)) {
-                log.warn("yt-dlp stderr: {}", errorOutput);
+            if (found.size() < maxLanguages && !notDownloaded.isEmpty()) {
+                log.warn("Субтитры {} не скачались и повторно", notDownloaded);
             }
 
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                log.warn("12d7 Ошибка выгрузки субтитров с помощью yt-dlp, exitCode: {}", exitCode);
+            if (transcriptStore != null && completeListing) {
+                transcriptStore.putListing(videoId, availableSubtitles);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
 
-                if (!errorOutput.isEmpty()) {
-                    log.warn("Error output: {}", errorOutput);
+            throw new YtLoadingException("7e21", "Загрузка субтитров прервана: " + videoUrl, e);
+        } catch (YtLoadingException e) {
+            // Таймаут yt-dlp и недоступность пула воркеров не означают отсутствие субтитров
+            throw e;
+        } catch (Exception e) {
+            // Ошибка только в логе: загрузка продолжится и завершится 48ae, если субтитров так и не нашлось
+            metrics.recordError("45bb");
+            log.error("45bb Ошибка выгрузки субтитров с помощью yt-dlp: {}", e.getMessage(), e);
+        } finally {
+            // Вместе с подкаталогом удаляются и недокачанные .part: при прерванной загрузке список скачанных языков неизвестен
+            if (requestDirectory != null) {
+                long cleanupStartNanos = System.nanoTime();
+                tempFilesJanitor.deleteRequestDirectory(requestDirectory);
+                metrics.record(YtSubtitlesMetrics.Phase.TEMP_CLEANUP, cleanupStartNanos);
+            }
+        }
+    }
+
+    /**
+     * Запуск yt-dlp, записанный событием JFR {@link YtDlpRunEvent}: так задержки процесса связываются с видео
+     */
+    private YtDlpExecutionResult execute(List<String> arguments, VideoId videoId, String langs, boolean retry)
+        throws IOException, InterruptedException {
+        YtDlpRunEvent event = new YtDlpRunEvent();
+        event.begin();
+        YtDlpExecutionResult result = null;
+
+        try {
+            result = ytDlpExecutor.execute(arguments);
+
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.videoId = videoId.value();
+                event.languages = langs;
+                event.retry = retry;
+                if (result != null) {
+                    event.exitCode = result.exitCode();
+                    event.stdoutChars = result.stdout().length();
                 }
+                event.commit();
+            }
+        }
+    }
+
+    private void logFailedExecution(YtDlpExecutionResult result) {
+        if (result.exitCode() != 0) {
+            metrics.recordError("12d7");
+            // Часть субтитров могла скачаться, даже если другая часть завершилась ошибкой
+            log.warn("12d7 Ошибка выгрузки субтитров с помощью yt-dlp, exitCode: {}", result.exitCode());
+
+            if (StringUtils.isNotBlank(result.stderr())) {
+                log.warn("Error output: {}", result.stderr());
+            }
+        }
+    }
 
-                return null;
+    /**
+     * Перебирает кандидатов по порядку, пока не наберётся {@code maxLanguages} языков. Каждая попытка и причина отказа
+     * от кандидата пишутся в лог. Файл субтитров читается построчно прямо в очистку и приёмник, без загрузки целиком в память.
+     * Один файл не выбирается для двух языков, например для {@code en} и {@code en-GB}.
+     *
+     * @param autoOnlyRun скачаны ли файлы запуском только с --write-auto-subs; иначе автоматические субтитры
+     *                    с ручным двойником откладываются, ведь в их файле ручные
+     * @return кандидаты не найденных языков, файлы которых не скачались
+     */
+    private List<Candidate> selectDownloadedSubtitles(List<Candidate> candidates,
+                                                      Path outputTemplate,
+                                                      boolean autoOnlyRun,
+                                                      VideoId videoId,
+                                                      int maxLanguages,
+                                                      List<SubtitlesLang> found,
+                                                      Set<String> usedLangCodes,
+                                                      Function<SubtitlesLang, TextSink> sinks) throws IOException {
+        List<Candidate> notDownloaded = new ArrayList<>();
+
+        for (Candidate candidate : candidates) {
+            if (found.size() == maxLanguages) {
+                break;
+            }
+            if (found.contains(candidate.lang())) {
+                continue;
+            }
+            if (usedLangCodes.contains(candidate.langCode())) {
+                log.debug("Кандидат {} пропущен: файл уже выбран для другого языка", candidate);
+                continue;
             }
 
-            // Читаем содержимое файла субтитров
-            if (!Files.exists(outputPath)) {
-                log.warn("Файл субтитров не был создан: {}", outputPath);
-                return null;
+            if (candidate.hasManualTwin() && !autoOnlyRun) {
+                log.debug("Кандидат {} отложен: в файле с этим кодом ручные субтитры", candidate);
+                notDownloaded.add(candidate);
+                continue;
             }
 
-            String subtitles = Files.readString(outputPath).trim();
+            Path subtitlesFile = subtitlesFile(outputTemplate, candidate.langCode());
 
-            // Удаляем временный файл
-            try {
-                Files.delete(outputPath);
-            } catch (Exception e) {
-                log.warn("Не удалось удалить временный файл: {}", outputPath, e);
+            if (!Files.exists(subtitlesFile)) {
+                log.info("Кандидат {} пропущен: файл субтитров не скачался, пробую следующего", candidate);
+                notDownloaded.add(candidate);
+                continue;
             }
 
-            if (subtitles.isEmpty()) {
-                log.warn("Субтитры пусты для видео: {}", videoUrl);
-                return null;
+            long fileBytes = Files.size(subtitlesFile);
+            metrics.addSubtitleFileBytes(fileBytes);
+
+            boolean written;
+            try (BufferedReader reader = Files.newBufferedReader(subtitlesFile, StandardCharsets.UTF_8)) {
+                SubtitlesSource source = new SubtitlesSource(videoId, candidate.langCode(), candidate.isAuto(), fileBytes);
+                written = writeText(reader, source, sinks.apply(candidate.lang()));
             }
 
-            log.debug("Субтитры успешно загружены: {}", videoUrl);
+            if (!written) {
+                log.warn("Кандидат {} пропущен: субтитры пусты, пробую следующего", candidate);
+                continue;
+            }
 
-            return subtitles;
-        } catch (Exception e) {
-            log.error("45bb Ошибка выгрузки субтитров с помощью yt-dlp: {}", e.getMessage(), e);
+            log.debug("Выбран кандидат {}", candidate);
+            usedLangCodes.add(candidate.langCode());
+            found.add(candidate.lang());
 
-            return null;
+            if (transcriptStore != null) {
+                try (InputStream content = Files.newInputStream(subtitlesFile)) {
+                    transcriptStore.put(new TranscriptKey(videoId, candidate.lang(), candidate.isAuto()), content);
+                }
+            }
         }
+
+        notDownloaded.removeIf(candidate -> found.contains(candidate.lang()));
+
+        return notDownloaded;
     }
 
-    private List<String> cleanSubtitles(List<String> lines) {
-        List<String> cleanedLines = new ArrayList<>();
-
-        for (String line : lines) {
-            // Убираем теги и метки
-            String cleanedLine = line
-                .replaceAll("<[^>]+>", "")                         // Удаляет все теги вида <...>
-                .replaceAll("\\d{2}:\\d{2}:\\d{2}\\.\\d{3}", "")   // Удаляет временные метки
-                .replaceAll("-->.*", "")                           // Удаляет строки с временными интервалами
-                .replaceAll("align:\\w+ position:\\d+%", "")       // Удаляет служебные параметры
-                .replaceAll("[\\p{Cntrl}&&[^\r\n\t]]", "")         // Удаляет управляющие символы
-                .replaceAll("\\s{2,}", " ")                        // Заменяет множественные пробелы на один
-                .trim();
-
-            if (!cleanedLine.isEmpty()) {
-                cleanedLines.add(cleanedLine);
+    /**
+     * Пустой файл ничего не пишет в приёмник, поэтому можно перейти к следующему кандидату.
+     * Если же чтение оборвалось после частичной записи, другой кандидат уже не подставить.
+     *
+     * Разбор и очистка записываются событием JFR {@link SubtitlesCleanEvent}.
+     *
+     * @return записан ли в приёмник хоть один символ
+     */
+    private boolean writeText(BufferedReader reader, SubtitlesSource source, TextSink sink) throws IOException {
+        long startNanos = System.nanoTime();
+        SubtitlesCleanEvent event = new SubtitlesCleanEvent();
+        event.begin();
+        long writtenBefore = sink.written;
+
+        try {
+            return sink.newAssembler(source.isAuto()).write(reader) > 0;
+        } catch (IOException e) {
+            if (sink.written > writtenBefore) {
+                throw new YtLoadingException("63e9", "Чтение субтитров оборвалось после частичной записи", e);
+            }
+
+            throw e;
+        } finally {
+            metrics.addTranscriptChars(sink.written - writtenBefore);
+            metrics.record(YtSubtitlesMetrics.Phase.SUBTITLES_CLEAN, startNanos);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.videoId = source.videoId().value();
+                event.language = source.langCode();
+                event.auto = source.isAuto();
+                event.fromStore = source.fileBytes() < 0;
+                event.fileBytes = source.fileBytes();
+                event.writtenChars = sink.written - writtenBefore;
+                event.commit();
             }
         }
+    }
 
-        // Пропускаем первую 3 строчки с метаинформацией
-        if (lines.size() > 3) {
-            if (lines.getFirst().startsWith("WEBVTT")
-                && lines.get(1).startsWith("Kind: ")
-                && lines.get(2).startsWith("Language: ")) {
-                return cleanedLines.subList(3, cleanedLines.size() - 1);
+    /**
+     * Кандидаты из списка yt-dlp в порядке приоритета: язык по настройке, затем ручные субтитры раньше автоматических,
+     * затем базовый код раньше региональных вариантов, например ru manual -> ru auto -> en manual -> en-GB manual -> en auto.
+     * Автоматические субтитры остаются в списке и при ручных с тем же кодом: они нужны, если ручные не скачаются
+     */
+    private List<Candidate> rankCandidates(AvailableSubtitles availableSubtitles) {
+        List<Candidate> candidates = new ArrayList<>();
+
+        for (SubtitlesLang lang : languages) {
+            for (boolean isAuto : new boolean[] {false, true}) {
+                Set<String> langCodes = isAuto ? availableSubtitles.automaticLanguages() : availableSubtitles.manualLanguages();
+
+                langCodes.stream()
+                    .filter(lang::matches)
+                    .sorted(Comparator.comparing((String langCode) -> !lang.isExactly(langCode)).thenComparing(Comparator.naturalOrder()))
+                    .forEach(langCode -> candidates.add(
+                        new Candidate(lang, langCode, isAuto, isAuto && availableSubtitles.isManual(langCode))));
             }
         }
 
-        return cleanedLines;
+        return candidates;
+    }
+
+    /**
+     * @param autoOnlyRun коды для запуска только с --write-auto-subs или для обычной докачки
+     */
+    private static List<String> langCodes(List<Candidate> candidates, boolean autoOnlyRun) {
+        return candidates.stream()
+            .filter(candidate -> candidate.hasManualTwin() == autoOnlyRun)
+            .map(Candidate::langCode)
+            .distinct()
+            .toList();
     }
 
     /**
-     * Удаляет временные файлы субтитров, которые были созданы более 15 минут назад.
-     * Это помогает очистить файлы, которые не были удалены из-за неожиданного завершения программы.
+     * yt-dlp добавляет к шаблону язык и расширение: {@code <шаблон>.<lang>.vtt}
      */
-    private void cleanupOldTempFiles() {
-        Path tempDir = Path.of("./temp-subtitles");
+    private static Path subtitlesFile(Path outputTemplate, String langCode) {
+        return outputTemplate.resolveSibling(outputTemplate.getFileName() + "." + langCode + ".vtt");
+    }
 
-        if (!Files.exists(tempDir)) {
-            return;
+    /**
+     * Дорожка субтитров из списка yt-dlp
+     *
+     * @param lang          настроенный язык, которому соответствует дорожка
+     * @param langCode      код дорожки в yt-dlp
+     * @param hasManualTwin автоматическая дорожка, у которой есть ручная с тем же кодом
+     */
+    private record Candidate(SubtitlesLang lang, String langCode, boolean isAuto, boolean hasManualTwin) {
+
+        @Override
+        public String toString() {
+            return langCode + (isAuto ? " auto" : " manual");
         }
+    }
 
-        try (Stream<Path> files = Files.list(tempDir)) {
-            Instant fifteenMinutesAgo = Instant.now().minus(15, ChronoUnit.MINUTES);
+    /**
+     * Откуда читаются субтитры: файл, скачанный yt-dlp, или хранилище
+     *
+     * @param fileBytes размер скачанного файла, {@code -1} для субтитров из хранилища
+     */
+    private record SubtitlesSource(VideoId videoId, String langCode, boolean isAuto, long fileBytes) {
+    }
 
-            files.forEach(file -> {
-                try {
-                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
-                    Instant creationTime = attrs.creationTime().toInstant();
+    /**
+     * Приёмник текста или кодировщика формата, отличающий ошибки записи в приёмник от ошибок чтения субтитров
+     */
+    private static final class TextSink implements Appendable, TranscriptEncoder {
+
+        @Nullable
+        private final Appendable target;
+        @Nullable
+        private final SubtitleCues.Builder cues;
+        @Nullable
+        private final TranscriptEncoder encoder;
+        private long written;
+
+        private TextSink(Appendable target, @Nullable SubtitleCues.Builder cues) {
+            this.target = target;
+            this.cues = cues;
+            this.encoder = null;
+        }
 
-                    if (creationTime.isBefore(fifteenMinutesAgo)) {
-                        Files.delete(file);
-                        log.debug("Удален старый временный файл: {}", file);
-                    }
-                } catch (IOException e) {
-                    log.warn("Не удалось проверить или удалить временный файл: {}", file, e);
-                }
-            });
-        } catch (IOException e) {
-            log.warn("Ошибка при очистке временных файлов: {}", e.getMessage(), e);
+        private TextSink(TranscriptEncoder encoder) {
+            this.target = null;
+            this.cues = null;
+            this.encoder = encoder;
+        }
+
+        private VttTextAssembler newAssembler(boolean isAuto) {
+            return encoder != null
+                ? new VttTextAssembler(isAuto, (TranscriptEncoder) this)
+                : new VttTextAssembler(isAuto, this, cues);
+        }
+
+        @Override
+        public void part(int startMillis, int endMillis, CharSequence text, int from, int to) {
+            try {
+                encoder.part(startMillis, endMillis, text, from, to);
+                written += to - from;
+            } catch (IOException e) {
+                throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void finish() {
+            try {
+                encoder.finish();
+            } catch (IOException e) {
+                throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public Appendable append(CharSequence text) {
+            try {
+                target.append(text);
+                written += text.length();
+            } catch (IOException e) {
+                throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+            }
+
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence text, int start, int end) {
+            return append(text.subSequence(start, end));
+        }
+
+        @Override
+        public Appendable append(char c) {
+            try {
+                target.append(c);
+                written++;
+            } catch (IOException e) {
+                throw new YtLoadingException("b81f", "Не удалось записать субтитры: " + e.getMessage(), e);
+            }
+
+            return this;
         }
     }
 }
@@ -0,0 +1,299 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики загрузчика: гистограммы длительности этапов, счётчики ошибок по коду, текущие загрузки и процессы yt-dlp,
+ * объём обработанных субтитров.
+ * <p>
+ * Запись — это несколько {@link LongAdder} без блокировок, поэтому метрики собираются всегда. Наружу они отдаются
+ * через JMX ({@link #registerMBean(String)}) и в текстовом формате Prometheus ({@link #writePrometheus(Appendable)}),
+ * который демон отдаёт на {@code /metrics}. Один экземпляр можно разделить между несколькими загрузчиками.
+ */
+public class YtSubtitlesMetrics implements YtSubtitlesMetricsMXBean, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(YtSubtitlesMetrics.class);
+
+    public static final String OBJECT_NAME_PREFIX = "ru.panyukovnn.ytsubtitlesloader:type=YtSubtitlesMetrics,name=";
+
+    /**
+     * Границы корзин гистограмм в секундах: от быстрых этапов очистки до долгих запусков yt-dlp
+     */
+    private static final double[] BUCKET_BOUNDS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120};
+
+    /**
+     * Этапы загрузки
+     */
+    public enum Phase {
+
+        /**
+         * Загрузка целиком, от разбора ссылки до последнего записанного символа
+         */
+        TOTAL,
+
+        /**
+         * Поиск и чтение субтитров из хранилища на диске
+         */
+        STORE_LOOKUP,
+
+        /**
+         * Запуск yt-dlp: получение списка субтитров и скачивание файлов одним процессом, либо докачка
+         */
+        YT_DLP_RUN,
+
+        /**
+         * Разбор вывода {@code --list-subs}
+         */
+        LIST_SUBS_PARSE,
+
+        /**
+         * Очистка одного файла субтитров с записью текста в приёмник
+         */
+        SUBTITLES_CLEAN,
+
+        /**
+         * Удаление подкаталога временных файлов загрузки
+         */
+        TEMP_CLEANUP,
+
+        /**
+         * Фоновый проход очистки брошенных временных файлов
+         */
+        TEMP_SWEEP;
+
+        private final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final Map<Phase, Histogram> histograms = new EnumMap<>(Phase.class);
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder activeLoads = new LongAdder();
+    private final LongAdder activeYtDlpProcesses = new LongAdder();
+    private final LongAdder subtitleFileBytes = new LongAdder();
+    private final LongAdder transcriptChars = new LongAdder();
+
+    private ObjectName registeredName;
+
+    public YtSubtitlesMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new Histogram());
+        }
+    }
+
+    /**
+     * @param startNanos значение {@link System#nanoTime()} в начале этапа
+     */
+    public void record(Phase phase, long startNanos) {
+        histograms.get(phase).record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError(String errorId) {
+        errors.computeIfAbsent(errorId, id -> new LongAdder()).increment();
+    }
+
+    public void loadStarted() {
+        loads.increment();
+        activeLoads.increment();
+    }
+
+    /**
+     * Завершение загрузки, успешное или с ошибкой; длительность записывается в {@link Phase#TOTAL}
+     */
+    public void loadFinished(long startNanos) {
+        activeLoads.decrement();
+        record(Phase.TOTAL, startNanos);
+    }
+
+    public void ytDlpProcessStarted() {
+        activeYtDlpProcesses.increment();
+    }
+
+    public void ytDlpProcessFinished(long startNanos) {
+        activeYtDlpProcesses.decrement();
+        record(Phase.YT_DLP_RUN, startNanos);
+    }
+
+    public void addSubtitleFileBytes(long bytes) {
+        subtitleFileBytes.add(bytes);
+    }
+
+    public void addTranscriptChars(long chars) {
+        transcriptChars.add(chars);
+    }
+
+    @Override
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    @Override
+    public long getActiveLoads() {
+        return activeLoads.sum();
+    }
+
+    @Override
+    public long getActiveYtDlpProcesses() {
+        return activeYtDlpProcesses.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((id, count) -> counts.put(id, count.sum()));
+
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        histograms.forEach((phase, histogram) -> counts.put(phase.label, histogram.count.sum()));
+
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getPhaseMeanMillis() {
+        Map<String, Double> means = new TreeMap<>();
+        histograms.forEach((phase, histogram) -> {
+            long count = histogram.count.sum();
+            means.put(phase.label, count == 0 ? 0 : histogram.sumNanos.sum() / 1e6 / count);
+        });
+
+        return means;
+    }
+
+    @Override
+    public long getSubtitleFileBytes() {
+        return subtitleFileBytes.sum();
+    }
+
+    @Override
+    public long getTranscriptChars() {
+        return transcriptChars.sum();
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBeanServer. Регистрация снимается в {@link #close()}.
+     *
+     * @param name имя экземпляра, отличающее загрузчики одной JVM
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        if (registeredName != null) {
+            return registeredName;
+        }
+
+        ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+
+        return objectName;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (registeredName == null) {
+            return;
+        }
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            log.warn("Не удалось снять регистрацию метрик в JMX: {}", e.getMessage());
+        } finally {
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Пишет метрики в текстовом формате Prometheus 0.0.4
+     */
+    public void writePrometheus(Appendable output) throws IOException {
+        output.append("# HELP yt_subtitles_phase_duration_seconds Длительность этапов загрузки субтитров\n");
+        output.append("# TYPE yt_subtitles_phase_duration_seconds histogram\n");
+        for (Map.Entry<Phase, Histogram> entry : histograms.entrySet()) {
+            entry.getValue().writePrometheus(output, "yt_subtitles_phase_duration_seconds", entry.getKey().label);
+        }
+
+        output.append("# HELP yt_subtitles_errors_total Ошибки загрузки по коду ошибки\n");
+        output.append("# TYPE yt_subtitles_errors_total counter\n");
+        for (Map.Entry<String, Long> entry : getErrorCounts().entrySet()) {
+            output.append("yt_subtitles_errors_total{id=\"").append(entry.getKey()).append("\"} ")
+                .append(Long.toString(entry.getValue())).append('\n');
+        }
+
+        writeSingle(output, "yt_subtitles_loads_total", "counter", "Начатые загрузки субтитров", getLoads());
+        writeSingle(output, "yt_subtitles_active_loads", "gauge", "Загрузки субтитров в работе", getActiveLoads());
+        writeSingle(output, "yt_subtitles_active_yt_dlp_processes", "gauge", "Запущенные сейчас процессы yt-dlp", getActiveYtDlpProcesses());
+        writeSingle(output, "yt_subtitles_subtitle_file_bytes_total", "counter", "Прочитано байт скачанных файлов субтитров", getSubtitleFileBytes());
+        writeSingle(output, "yt_subtitles_transcript_chars_total", "counter", "Записано символов очищенного текста", getTranscriptChars());
+    }
+
+    private static void writeSingle(Appendable output, String name, String type, String help, long value) throws IOException {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        output.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    /**
+     * Гистограмма с фиксированными корзинами {@link #BUCKET_BOUNDS}; счётчики корзин не накопительные,
+     * накопительные суммы считаются при выводе
+     */
+    private static final class Histogram {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && seconds > BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+
+            buckets[bucket].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        private void writePrometheus(Appendable output, String name, String phase) throws IOException {
+            long cumulative = 0;
+
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String bound = i < BUCKET_BOUNDS.length ? Double.toString(BUCKET_BOUNDS[i]) : "+Inf";
+
+                output.append(name).append("_bucket{phase=\"").append(phase).append("\",le=\"").append(bound).append("\"} ")
+                    .append(Long.toString(cumulative)).append('\n');
+            }
+
+            output.append(name).append("_sum{phase=\"").append(phase).append("\"} ")
+                .append(Double.toString(sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1))).append('\n');
+            output.append(name).append("_count{phase=\"").append(phase).append("\"} ")
+                .append(Long.toString(count.sum())).append('\n');
+        }
+    }
+}
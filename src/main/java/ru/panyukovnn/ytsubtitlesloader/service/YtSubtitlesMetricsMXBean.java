@@ -0,0 +1,34 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import java.util.Map;
+
+/**
+ * Метрики загрузчика в JMX, см. {@link YtSubtitlesMetrics}
+ */
+public interface YtSubtitlesMetricsMXBean {
+
+    long getLoads();
+
+    long getActiveLoads();
+
+    long getActiveYtDlpProcesses();
+
+    /**
+     * @return количество ошибок по коду ошибки, включая записанные только в лог ({@code 12d7}, {@code 45bb})
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * @return количество замеров по этапу загрузки
+     */
+    Map<String, Long> getPhaseCounts();
+
+    /**
+     * @return средняя длительность этапа загрузки в миллисекундах
+     */
+    Map<String, Double> getPhaseMeanMillis();
+
+    long getSubtitleFileBytes();
+
+    long getTranscriptChars();
+}
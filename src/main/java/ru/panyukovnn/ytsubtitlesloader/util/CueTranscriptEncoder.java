@@ -0,0 +1,58 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Основа кодировщиков с разметкой по репликам: части с тем же временем, что у открытой реплики,
+ * дописываются в неё через пробел, часть с другим временем закрывает реплику и открывает новую.
+ */
+abstract class CueTranscriptEncoder implements TranscriptEncoder {
+
+    protected final Utf8Output output;
+
+    private boolean cueOpen;
+    private int cueStart;
+    private int cueEnd;
+
+    protected CueTranscriptEncoder(OutputStream output) {
+        this.output = new Utf8Output(output);
+    }
+
+    @Override
+    public final void part(int startMillis, int endMillis, CharSequence text, int from, int to) throws IOException {
+        if (cueOpen && cueStart == startMillis && cueEnd == endMillis) {
+            output.writeAscii(' ');
+            writeText(text, from, to);
+            return;
+        }
+
+        if (cueOpen) {
+            closeCue();
+        }
+        openCue(startMillis, endMillis);
+        writeText(text, from, to);
+
+        cueOpen = true;
+        cueStart = startMillis;
+        cueEnd = endMillis;
+    }
+
+    @Override
+    public final void finish() throws IOException {
+        if (cueOpen) {
+            closeCue();
+            cueOpen = false;
+        }
+
+        output.flush();
+    }
+
+    protected abstract void openCue(int startMillis, int endMillis) throws IOException;
+
+    protected abstract void closeCue() throws IOException;
+
+    protected void writeText(CharSequence text, int from, int to) throws IOException {
+        output.writeChars(text, from, to);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON Lines: объект на реплику, {@code {"start_ms":1000,"end_ms":2500,"text":"..."}}.
+ * Текст идёт последним полем, поэтому строка JSON остаётся открытой, пока приходят части реплики.
+ */
+final class JsonLinesTranscriptEncoder extends CueTranscriptEncoder {
+
+    JsonLinesTranscriptEncoder(OutputStream output) {
+        super(output);
+    }
+
+    @Override
+    protected void openCue(int startMillis, int endMillis) throws IOException {
+        output.writeAscii("{\"start_ms\":");
+        output.writeDecimal(startMillis);
+        output.writeAscii(",\"end_ms\":");
+        output.writeDecimal(endMillis);
+        output.writeAscii(",\"text\":\"");
+    }
+
+    @Override
+    protected void closeCue() throws IOException {
+        output.writeAscii("\"}\n");
+    }
+
+    @Override
+    protected void writeText(CharSequence text, int from, int to) throws IOException {
+        output.writeJsonChars(text, from, to);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Текст одной строкой через пробел, как {@link ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles#subtitles()}, с переводом строки в конце
+ */
+final class PlainTranscriptEncoder implements TranscriptEncoder {
+
+    private final Utf8Output output;
+    private boolean written;
+
+    PlainTranscriptEncoder(OutputStream output) {
+        this.output = new Utf8Output(output);
+    }
+
+    @Override
+    public void part(int startMillis, int endMillis, CharSequence text, int from, int to) throws IOException {
+        if (written) {
+            output.writeAscii(' ');
+        }
+        output.writeChars(text, from, to);
+        written = true;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (written) {
+            output.writeAscii('\n');
+        }
+
+        output.flush();
+    }
+}
@@ -0,0 +1,134 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.util.Arrays;
+
+/**
+ * Убирает повторы «бегущей строки» из автоматических субтитров YouTube.
+ * <p>
+ * В автосубтитрах каждая реплика начинается с текста предыдущей, а между репликами вставляются короткие
+ * реплики-дубли, поэтому после очистки одна и та же фраза встречается два-три раза подряд.
+ * Дедупликатор получает очищенные строки по одной, находит самое длинное перекрытие начала строки
+ * с концом уже выданного текста и возвращает только новые слова.
+ * Помнит лишь последние {@code windowSize} слов, поэтому память не зависит от длины видео.
+ * <p>
+ * Экземпляр не потокобезопасен и создаётся на одну загрузку.
+ */
+public class RollingCaptionDeduplicator {
+
+    public static final int DEFAULT_WINDOW_SIZE = 64;
+
+    /**
+     * Перекрытие короче этого числа слов считается совпадением, только если строка повторена целиком,
+     * иначе легко выбросить настоящий повтор в речи («да да»)
+     */
+    private static final int MIN_PARTIAL_OVERLAP = 2;
+
+    private final String[] window;
+    private int windowHead;
+    private int windowCount;
+
+    private int[] wordStarts = new int[32];
+    private int[] wordEnds = new int[32];
+    private int wordCount;
+
+    public RollingCaptionDeduplicator() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public RollingCaptionDeduplicator(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Размер окна должен быть положительным: " + windowSize);
+        }
+
+        this.window = new String[windowSize];
+    }
+
+    /**
+     * @param line очищенная строка субтитров
+     * @return часть строки без слов, уже выданных предыдущими строками, либо пустая строка
+     */
+    public String accept(String line) {
+        splitWords(line);
+
+        if (wordCount == 0) {
+            return "";
+        }
+
+        int overlap = findOverlap(line);
+        for (int i = Math.max(overlap, wordCount - window.length); i < wordCount; i++) {
+            remember(line.substring(wordStarts[i], wordEnds[i]));
+        }
+
+        if (overlap == 0) {
+            return line;
+        }
+        if (overlap == wordCount) {
+            return "";
+        }
+
+        return line.substring(wordStarts[overlap]);
+    }
+
+    private int findOverlap(String line) {
+        for (int overlap = Math.min(wordCount, windowCount); overlap > 0; overlap--) {
+            if (overlap < MIN_PARTIAL_OVERLAP && overlap != wordCount) {
+                return 0;
+            }
+            if (windowEndsWith(line, overlap)) {
+                return overlap;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Совпадают ли первые {@code overlap} слов строки с последними {@code overlap} словами окна
+     */
+    private boolean windowEndsWith(String line, int overlap) {
+        for (int i = 0; i < overlap; i++) {
+            String remembered = window[Math.floorMod(windowHead - overlap + i, window.length)];
+            int length = wordEnds[i] - wordStarts[i];
+
+            if (remembered.length() != length || !line.regionMatches(wordStarts[i], remembered, 0, length)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void remember(String word) {
+        window[windowHead] = word;
+        windowHead = (windowHead + 1) % window.length;
+        windowCount = Math.min(windowCount + 1, window.length);
+    }
+
+    private void splitWords(String line) {
+        wordCount = 0;
+        int length = line.length();
+        int i = 0;
+
+        while (i < length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+
+            int start = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+
+            if (wordCount == wordStarts.length) {
+                wordStarts = Arrays.copyOf(wordStarts, wordCount * 2);
+                wordEnds = Arrays.copyOf(wordEnds, wordCount * 2);
+            }
+            wordStarts[wordCount] = start;
+            wordEnds[wordCount] = i;
+            wordCount++;
+        }
+    }
+}
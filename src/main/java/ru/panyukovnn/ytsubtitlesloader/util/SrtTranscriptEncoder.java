@@ -0,0 +1,35 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * SubRip: номер реплики, строка {@code 00:00:01,000 --> 00:00:02,500}, текст и пустая строка между репликами
+ */
+final class SrtTranscriptEncoder extends CueTranscriptEncoder {
+
+    private int cueNumber;
+
+    SrtTranscriptEncoder(OutputStream output) {
+        super(output);
+    }
+
+    @Override
+    protected void openCue(int startMillis, int endMillis) throws IOException {
+        if (cueNumber > 0) {
+            output.writeAscii('\n');
+        }
+
+        output.writeDecimal(++cueNumber);
+        output.writeAscii('\n');
+        output.writeTimestamp(startMillis, ',');
+        output.writeAscii(" --> ");
+        output.writeTimestamp(endMillis, ',');
+        output.writeAscii('\n');
+    }
+
+    @Override
+    protected void closeCue() throws IOException {
+        output.writeAscii('\n');
+    }
+}
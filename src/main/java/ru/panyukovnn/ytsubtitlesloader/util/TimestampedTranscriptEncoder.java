@@ -0,0 +1,26 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Реплика на строку с временем начала: {@code [00:01:02.500] текст}
+ */
+final class TimestampedTranscriptEncoder extends CueTranscriptEncoder {
+
+    TimestampedTranscriptEncoder(OutputStream output) {
+        super(output);
+    }
+
+    @Override
+    protected void openCue(int startMillis, int endMillis) throws IOException {
+        output.writeAscii('[');
+        output.writeTimestamp(startMillis, '.');
+        output.writeAscii("] ");
+    }
+
+    @Override
+    protected void closeCue() throws IOException {
+        output.writeAscii('\n');
+    }
+}
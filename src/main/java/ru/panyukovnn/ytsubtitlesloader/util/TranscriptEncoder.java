@@ -0,0 +1,27 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+
+/**
+ * Потоковый кодировщик субтитров в выходной формат, см. {@link TranscriptFormat}.
+ * <p>
+ * Получает текст частями по мере очистки. Части одной реплики приходят подряд с одинаковым временем,
+ * кодировщик сам определяет границы реплик. Текст передаётся диапазоном исходной строки, поэтому на реплику
+ * не создаётся ни одной строки. Экземпляр не потокобезопасен и используется для одного файла.
+ */
+public interface TranscriptEncoder {
+
+    /**
+     * @param startMillis начало реплики
+     * @param endMillis   конец реплики
+     * @param text        строка, содержащая часть текста
+     * @param from        начало части в строке
+     * @param to          конец части в строке, не включительно
+     */
+    void part(int startMillis, int endMillis, CharSequence text, int from, int to) throws IOException;
+
+    /**
+     * Дописывает окончание формата и сбрасывает буфер. Выходной поток не закрывается.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,65 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitleCues;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+/**
+ * Выходные форматы субтитров. Все кодировщики пишут в {@link OutputStream} в UTF-8 по мере поступления текста.
+ */
+public enum TranscriptFormat {
+
+    /**
+     * Текст одной строкой через пробел
+     */
+    PLAIN(PlainTranscriptEncoder::new),
+
+    /**
+     * Реплика на строку с временем начала: {@code [00:01:02.500] текст}
+     */
+    TIMESTAMPED(TimestampedTranscriptEncoder::new),
+
+    /**
+     * SubRip ({@code .srt})
+     */
+    SRT(SrtTranscriptEncoder::new),
+
+    /**
+     * JSON-объект на реплику: {@code {"start_ms":1000,"end_ms":2500,"text":"..."}}
+     */
+    JSONL(JsonLinesTranscriptEncoder::new);
+
+    private final Function<OutputStream, TranscriptEncoder> encoderFactory;
+
+    TranscriptFormat(Function<OutputStream, TranscriptEncoder> encoderFactory) {
+        this.encoderFactory = encoderFactory;
+    }
+
+    public TranscriptEncoder newEncoder(OutputStream output) {
+        return encoderFactory.apply(output);
+    }
+
+    /**
+     * Кодирует уже загруженные субтитры. Без реплик весь текст считается одной репликой с нулевым временем.
+     */
+    public void write(YtSubtitles subtitles, OutputStream output) throws IOException {
+        TranscriptEncoder encoder = newEncoder(output);
+        SubtitleCues cues = subtitles.cues();
+        String text = subtitles.subtitles();
+
+        if (cues == null) {
+            if (!text.isEmpty()) {
+                encoder.part(0, 0, text, 0, text.length());
+            }
+        } else {
+            for (int i = 0; i < cues.size(); i++) {
+                encoder.part(cues.startMillis(i), cues.endMillis(i), text, cues.textStart(i), cues.textEnd(i));
+            }
+        }
+
+        encoder.finish();
+    }
+}
@@ -0,0 +1,176 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Буферизованная запись текста в UTF-8 напрямую в байты, без промежуточных строк и {@link java.nio.charset.CharsetEncoder}.
+ * Одиночные суррогаты записываются как {@code '?'}, как это делает {@link String#getBytes(java.nio.charset.Charset)}.
+ */
+final class Utf8Output {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    private final OutputStream output;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    Utf8Output(OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * @param c символ из диапазона ASCII
+     */
+    void writeAscii(char c) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+    }
+
+    /**
+     * @param text строка из символов ASCII, обычно константа формата
+     */
+    void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeAscii(text.charAt(i));
+        }
+    }
+
+    void writeChars(CharSequence text, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+
+            if (c < 0x80) {
+                writeAscii(c);
+            } else {
+                i = writeNonAscii(text, i, to);
+            }
+        }
+    }
+
+    /**
+     * Пишет содержимое строки JSON без кавычек: экранирует {@code "}, {@code \} и управляющие символы
+     */
+    void writeJsonChars(CharSequence text, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+
+            switch (c) {
+                case '"' -> writeAscii("\\\"");
+                case '\\' -> writeAscii("\\\\");
+                case '\n' -> writeAscii("\\n");
+                case '\r' -> writeAscii("\\r");
+                case '\t' -> writeAscii("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writeAscii("\\u00");
+                        writeAscii((char) HEX_DIGITS[c >> 4]);
+                        writeAscii((char) HEX_DIGITS[c & 0xF]);
+                    } else if (c < 0x80) {
+                        writeAscii(c);
+                    } else {
+                        i = writeNonAscii(text, i, to);
+                    }
+                }
+            }
+        }
+    }
+
+    void writeDecimal(long value) throws IOException {
+        if (value < 0) {
+            writeAscii('-');
+            value = -value;
+        }
+
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            writeAscii((char) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Пишет время как {@code чч:мм:сс<разделитель>ттт}
+     */
+    void writeTimestamp(int millis, char fractionSeparator) throws IOException {
+        writePadded(millis / 3_600_000, 2);
+        writeAscii(':');
+        writePadded(millis / 60_000 % 60, 2);
+        writeAscii(':');
+        writePadded(millis / 1000 % 60, 2);
+        writeAscii(fractionSeparator);
+        writePadded(millis % 1000, 3);
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+        output.flush();
+    }
+
+    private void writePadded(int value, int width) throws IOException {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            writeAscii('0');
+        }
+
+        writeDecimal(value);
+    }
+
+    /**
+     * @return индекс последнего записанного символа: суррогатная пара занимает два
+     */
+    private int writeNonAscii(CharSequence text, int index, int to) throws IOException {
+        char c = text.charAt(index);
+
+        if (c < 0x800) {
+            writeByte(0xC0 | (c >> 6));
+            writeByte(0x80 | (c & 0x3F));
+
+            return index;
+        }
+
+        if (Character.isHighSurrogate(c) && index + 1 < to && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+            writeByte(0xF0 | (codePoint >> 18));
+            writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+            writeByte(0x80 | (codePoint & 0x3F));
+
+            return index + 1;
+        }
+
+        if (Character.isSurrogate(c)) {
+            writeAscii('?');
+
+            return index;
+        }
+
+        writeByte(0xE0 | (c >> 12));
+        writeByte(0x80 | ((c >> 6) & 0x3F));
+        writeByte(0x80 | (c & 0x3F));
+
+        return index;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Однопроходный очиститель строк VTT-субтитров.
+ * <p>
+ * Повторяет результат прежней цепочки {@code String.replaceAll} символ в символ, но без регулярных выражений
+ * и промежуточных строк: каждый символ строки один раз проходит через конвейер этапов
+ * (теги {@code <...>} → временные метки → {@code -->...} → {@code align:... position:...%} → управляющие символы
+ * → схлопывание пробелов), каждый этап хранит только небольшой буфер незавершённого совпадения.
+ * Порядок этапов важен: удаление тега может «склеить» временную метку, и следующий этап обязан её увидеть.
+ * <p>
+ * Экземпляр не потокобезопасен: буферы переиспользуются между строками, поэтому очиститель создаётся на одну загрузку.
+ */
+public class VttCleaner {
+
+    private static final int TIMESTAMP_LENGTH = 12;
+    private static final String CUE_ARROW = "-->";
+    private static final String ALIGN_PREFIX = "align:";
+    private static final String POSITION_PREFIX = " position:";
+
+    private static final int STEP_CONTINUE = 0;
+    private static final int STEP_MATCH = 1;
+    private static final int STEP_FAIL = 2;
+
+    // Этап 1: тег вида <...>
+    private char[] tagBuffer = new char[64];
+    private int tagLength;
+
+    // Этап 2: временная метка вида 00:00:00.000
+    private final char[] timestampBuffer = new char[TIMESTAMP_LENGTH];
+    private int timestampLength;
+
+    // Этап 3: "-->" и всё до конца строки
+    private final char[] arrowBuffer = new char[CUE_ARROW.length()];
+    private int arrowLength;
+    private boolean skippingCueTiming;
+
+    // Этап 4: служебные параметры "align:<word> position:<digits>%"
+    private char[] alignBuffer = new char[64];
+    private int alignStart;
+    private int alignScan;
+    private int alignLength;
+    private int alignPhase;
+    private int alignIndex;
+
+    // Этап 6: последовательности пробельных символов
+    private int whitespaceRun;
+    private char firstWhitespace;
+
+    private char[] output = new char[256];
+    private int outputLength;
+
+    /**
+     * Очищает строки файла субтитров и пропускает заголовок WEBVTT с метаинформацией
+     *
+     * @param lines строки файла субтитров
+     * @return непустые очищенные строки
+     */
+    public List<String> clean(List<String> lines) {
+        List<String> cleanedLines = new ArrayList<>();
+
+        for (String line : lines) {
+            String cleanedLine = cleanLine(line);
+
+            if (!cleanedLine.isEmpty()) {
+                cleanedLines.add(cleanedLine);
+            }
+        }
+
+        // Пропускаем первую 3 строчки с метаинформацией
+        if (lines.size() > 3) {
+            if (lines.getFirst().startsWith("WEBVTT")
+                && lines.get(1).startsWith("Kind: ")
+                && lines.get(2).startsWith("Language: ")) {
+                return cleanedLines.subList(3, cleanedLines.size() - 1);
+            }
+        }
+
+        return cleanedLines;
+    }
+
+    /**
+     * @param line строка файла субтитров
+     * @return очищенная строка без начальных и конечных пробелов, либо пустая строка
+     */
+    public String cleanLine(CharSequence line) {
+        outputLength = 0;
+
+        for (int i = 0, length = line.length(); i < length; i++) {
+            pushTag(line.charAt(i));
+        }
+        finishTag();
+
+        int start = 0;
+        int end = outputLength;
+        while (start < end && output[start] <= ' ') {
+            start++;
+        }
+        while (end > start && output[end - 1] <= ' ') {
+            end--;
+        }
+
+        return start == end ? "" : new String(output, start, end - start);
+    }
+
+    private void pushTag(char c) {
+        if (tagLength == 0) {
+            if (c == '<') {
+                tagBuffer[tagLength++] = c;
+            } else {
+                pushTimestamp(c);
+            }
+
+            return;
+        }
+
+        if (c == '>') {
+            if (tagLength == 1) {
+                // "<>" не является тегом: внутри должен быть хотя бы один символ
+                pushTimestamp('<');
+                pushTimestamp('>');
+            }
+            tagLength = 0;
+
+            return;
+        }
+
+        if (tagLength == tagBuffer.length) {
+            tagBuffer = grow(tagBuffer);
+        }
+        tagBuffer[tagLength++] = c;
+    }
+
+    private void finishTag() {
+        // Незакрытый тег до конца строки тегом не является
+        for (int i = 0; i < tagLength; i++) {
+            pushTimestamp(tagBuffer[i]);
+        }
+        tagLength = 0;
+
+        finishTimestamp();
+    }
+
+    private void pushTimestamp(char c) {
+        timestampBuffer[timestampLength++] = c;
+
+        while (timestampLength > 0 && !isTimestampPrefix()) {
+            pushArrow(timestampBuffer[0]);
+            System.arraycopy(timestampBuffer, 1, timestampBuffer, 0, --timestampLength);
+        }
+
+        if (timestampLength == TIMESTAMP_LENGTH) {
+            timestampLength = 0;
+        }
+    }
+
+    private boolean isTimestampPrefix() {
+        for (int i = 0; i < timestampLength; i++) {
+            char c = timestampBuffer[i];
+            boolean matches = switch (i) {
+                case 2, 5 -> c == ':';
+                case 8 -> c == '.';
+                default -> isDigit(c);
+            };
+
+            if (!matches) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void finishTimestamp() {
+        for (int i = 0; i < timestampLength; i++) {
+            pushArrow(timestampBuffer[i]);
+        }
+        timestampLength = 0;
+
+        finishArrow();
+    }
+
+    private void pushArrow(char c) {
+        if (skippingCueTiming) {
+            // Точка в регулярном выражении не захватывает символы конца строки
+            if (isLineTerminator(c)) {
+                skippingCueTiming = false;
+                pushAlign(c);
+            }
+
+            return;
+        }
+
+        arrowBuffer[arrowLength++] = c;
+
+        while (arrowLength > 0 && !isArrowPrefix()) {
+            pushAlign(arrowBuffer[0]);
+            System.arraycopy(arrowBuffer, 1, arrowBuffer, 0, --arrowLength);
+        }
+
+        if (arrowLength == CUE_ARROW.length()) {
+            arrowLength = 0;
+            skippingCueTiming = true;
+        }
+    }
+
+    private boolean isArrowPrefix() {
+        for (int i = 0; i < arrowLength; i++) {
+            if (arrowBuffer[i] != CUE_ARROW.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void finishArrow() {
+        for (int i = 0; i < arrowLength; i++) {
+            pushAlign(arrowBuffer[i]);
+        }
+        arrowLength = 0;
+        skippingCueTiming = false;
+
+        finishAlign();
+    }
+
+    private void pushAlign(char c) {
+        if (alignLength == alignBuffer.length) {
+            compactAlignBuffer();
+        }
+        alignBuffer[alignLength++] = c;
+
+        while (alignScan < alignLength) {
+            int step = stepAlign(alignBuffer[alignScan++]);
+
+            if (step == STEP_MATCH) {
+                alignStart = alignScan;
+                resetAlignState();
+            } else if (step == STEP_FAIL) {
+                // Совпадение с текущей позиции невозможно: отдаём первый символ и пробуем со следующего
+                pushControl(alignBuffer[alignStart++]);
+                alignScan = alignStart;
+                resetAlignState();
+            }
+        }
+
+        if (alignStart == alignLength) {
+            alignStart = 0;
+            alignScan = 0;
+            alignLength = 0;
+        }
+    }
+
+    private int stepAlign(char c) {
+        switch (alignPhase) {
+            case 0 -> {
+                if (c != ALIGN_PREFIX.charAt(alignIndex)) {
+                    return STEP_FAIL;
+                }
+                if (++alignIndex == ALIGN_PREFIX.length()) {
+                    alignPhase = 1;
+                    alignIndex = 0;
+                }
+            }
+            case 1 -> {
+                if (isWordChar(c)) {
+                    alignIndex++;
+                } else if (alignIndex > 0 && c == ' ') {
+                    alignPhase = 2;
+                    alignIndex = 1;
+                } else {
+                    return STEP_FAIL;
+                }
+            }
+            case 2 -> {
+                if (c != POSITION_PREFIX.charAt(alignIndex)) {
+                    return STEP_FAIL;
+                }
+                if (++alignIndex == POSITION_PREFIX.length()) {
+                    alignPhase = 3;
+                    alignIndex = 0;
+                }
+            }
+            default -> {
+                if (isDigit(c)) {
+                    alignIndex++;
+                } else if (alignIndex > 0 && c == '%') {
+                    return STEP_MATCH;
+                } else {
+                    return STEP_FAIL;
+                }
+            }
+        }
+
+        return STEP_CONTINUE;
+    }
+
+    private void resetAlignState() {
+        alignPhase = 0;
+        alignIndex = 0;
+    }
+
+    private void compactAlignBuffer() {
+        int pending = alignLength - alignStart;
+        if (alignStart > 0) {
+            System.arraycopy(alignBuffer, alignStart, alignBuffer, 0, pending);
+            alignScan -= alignStart;
+            alignStart = 0;
+            alignLength = pending;
+        }
+        if (alignLength == alignBuffer.length) {
+            alignBuffer = grow(alignBuffer);
+        }
+    }
+
+    private void finishAlign() {
+        // Незавершённый префикс не содержит '%', поэтому внутри него совпадений тоже нет
+        for (int i = alignStart; i < alignLength; i++) {
+            pushControl(alignBuffer[i]);
+        }
+        alignStart = 0;
+        alignScan = 0;
+        alignLength = 0;
+        resetAlignState();
+
+        flushWhitespace();
+    }
+
+    private void pushControl(char c) {
+        // Удаляем управляющие символы, кроме \r, \n и \t
+        if ((c < 0x20 && c != '\r' && c != '\n' && c != '\t') || c == 0x7F) {
+            return;
+        }
+
+        pushWhitespace(c);
+    }
+
+    private void pushWhitespace(char c) {
+        if (isRegexWhitespace(c)) {
+            if (whitespaceRun++ == 0) {
+                firstWhitespace = c;
+            }
+
+            return;
+        }
+
+        flushWhitespace();
+        append(c);
+    }
+
+    private void flushWhitespace() {
+        // Одиночный пробельный символ сохраняется как есть, последовательность из двух и более заменяется пробелом
+        if (whitespaceRun == 1) {
+            append(firstWhitespace);
+        } else if (whitespaceRun > 1) {
+            append(' ');
+        }
+        whitespaceRun = 0;
+    }
+
+    private void append(char c) {
+        if (outputLength == output.length) {
+            output = grow(output);
+        }
+        output[outputLength++] = c;
+    }
+
+    private static char[] grow(char[] buffer) {
+        char[] grown = new char[buffer.length * 2];
+        System.arraycopy(buffer, 0, grown, 0, buffer.length);
+
+        return grown;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
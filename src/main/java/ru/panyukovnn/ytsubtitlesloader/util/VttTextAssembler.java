@@ -0,0 +1,286 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import jakarta.annotation.Nullable;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitleCues;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Собирает текст субтитров из строк VTT-файла по мере чтения.
+ * <p>
+ * Даёт тот же результат, что цепочка {@link VttCleaner#clean(java.util.List)} → удаление повторов
+ * {@link RollingCaptionDeduplicator} → {@code String.join(" ", ...)}, но не держит в памяти ни исходный файл,
+ * ни список строк: текст сразу пишется в приёмник, в памяти только одна отложенная строка.
+ * Если приёмник — {@link java.io.Writer} вывода, память не зависит от длины видео.
+ * <p>
+ * Если передан {@link SubtitleCues.Builder}, каждая записанная часть текста добавляется в него со временем реплики
+ * из последней строки {@code начало --> конец}. Смещения частей считаются от начала записанного текста.
+ * Вместо приёмника текста можно передать {@link TranscriptEncoder}: тогда части текста вместе со временем реплики
+ * сразу кодируются в выходной формат.
+ * Строка откладывается, потому что при заголовке WEBVTT последняя очищенная строка отбрасывается,
+ * а какая строка последняя, становится известно только в конце файла.
+ * <p>
+ * Экземпляр не потокобезопасен и используется для одного файла.
+ */
+public class VttTextAssembler {
+
+    private static final int HEADER_LINES = 3;
+    private static final String CUE_ARROW = "-->";
+
+    private final VttCleaner vttCleaner = new VttCleaner();
+    private final RollingCaptionDeduplicator deduplicator;
+    @Nullable
+    private final Appendable output;
+    @Nullable
+    private final SubtitleCues.Builder cues;
+    @Nullable
+    private final TranscriptEncoder encoder;
+    private long writtenChars;
+
+    private int cueStart;
+    private int cueEnd;
+
+    private final String[] headerLines = new String[HEADER_LINES];
+    private int rawLineCount;
+    private boolean hasHeader;
+    private boolean hasContent;
+
+    private String pendingLine;
+    private int pendingStart;
+    private int pendingEnd;
+
+    /**
+     * @param removeRollingDuplicates убирать ли повторы «бегущей строки» автоматических субтитров
+     */
+    public VttTextAssembler(boolean removeRollingDuplicates) {
+        this(removeRollingDuplicates, new StringBuilder());
+    }
+
+    /**
+     * @param output приёмник текста, в который части текста пишутся по мере чтения
+     */
+    public VttTextAssembler(boolean removeRollingDuplicates, Appendable output) {
+        this(removeRollingDuplicates, output, null);
+    }
+
+    /**
+     * @param cues приёмник реплик с временными метками; {@code null} — время не нужно
+     */
+    public VttTextAssembler(boolean removeRollingDuplicates, Appendable output, @Nullable SubtitleCues.Builder cues) {
+        this.deduplicator = removeRollingDuplicates ? new RollingCaptionDeduplicator() : null;
+        this.output = output;
+        this.cues = cues;
+        this.encoder = null;
+    }
+
+    /**
+     * @param encoder кодировщик, получающий части текста со временем реплики; {@link TranscriptEncoder#finish()} не вызывается
+     */
+    public VttTextAssembler(boolean removeRollingDuplicates, TranscriptEncoder encoder) {
+        this.deduplicator = removeRollingDuplicates ? new RollingCaptionDeduplicator() : null;
+        this.output = null;
+        this.cues = null;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Читает строки до конца и возвращает собранный текст. Предназначен для экземпляра без внешнего приёмника.
+     *
+     * @return текст субтитров, либо пустая строка, если в файле нет ничего, кроме пробельных символов
+     */
+    public String assemble(BufferedReader reader) throws IOException {
+        write(reader);
+
+        return output.toString();
+    }
+
+    /**
+     * Читает строки до конца, записывая текст в приёмник
+     *
+     * @return количество записанных символов; {@code 0} — в файле нет ничего, кроме пробельных символов
+     */
+    public long write(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            accept(line);
+        }
+
+        return finish();
+    }
+
+    public void accept(String rawLine) throws IOException {
+        // Начальные пустые строки раньше отрезались trim() всего файла
+        if (!hasContent) {
+            rawLine = rawLine.trim();
+            if (rawLine.isEmpty()) {
+                return;
+            }
+            hasContent = true;
+        }
+
+        if (rawLineCount < HEADER_LINES) {
+            headerLines[rawLineCount++] = rawLine;
+            return;
+        }
+
+        if (rawLineCount++ == HEADER_LINES) {
+            hasHeader = headerLines[0].startsWith("WEBVTT")
+                && headerLines[1].startsWith("Kind: ")
+                && headerLines[2].startsWith("Language: ");
+
+            if (!hasHeader) {
+                for (String headerLine : headerLines) {
+                    acceptContentLine(headerLine);
+                }
+            }
+        }
+
+        acceptContentLine(rawLine);
+    }
+
+    /**
+     * @return количество записанных символов; после вызова экземпляр больше не используется
+     */
+    public long finish() throws IOException {
+        if (rawLineCount <= HEADER_LINES) {
+            // Короткий файл: заголовок не отрезается, как и раньше
+            for (int i = 0; i < rawLineCount; i++) {
+                acceptContentLine(headerLines[i]);
+            }
+        }
+
+        if (pendingLine != null && !hasHeader) {
+            append(pendingLine, pendingStart, pendingEnd);
+        }
+        pendingLine = null;
+
+        return writtenChars;
+    }
+
+    private void acceptContentLine(String rawLine) throws IOException {
+        if (cues != null || encoder != null) {
+            readCueTiming(rawLine);
+        }
+
+        String cleanedLine = vttCleaner.cleanLine(rawLine);
+
+        if (cleanedLine.isEmpty()) {
+            return;
+        }
+
+        if (pendingLine != null) {
+            append(pendingLine, pendingStart, pendingEnd);
+        }
+        pendingLine = cleanedLine;
+        pendingStart = cueStart;
+        pendingEnd = cueEnd;
+    }
+
+    private void append(String cleanedLine, int start, int end) throws IOException {
+        String line = deduplicator != null ? deduplicator.accept(cleanedLine) : cleanedLine;
+
+        if (line.isEmpty()) {
+            return;
+        }
+
+        if (encoder != null) {
+            encoder.part(start, end, line, 0, line.length());
+            // Разделители ставит кодировщик, счётчик по-прежнему равен длине текста через пробел
+            writtenChars += (writtenChars > 0 ? 1 : 0) + line.length();
+            return;
+        }
+
+        if (writtenChars > 0) {
+            output.append(' ');
+            writtenChars++;
+        }
+        long textStart = writtenChars;
+        output.append(line);
+        writtenChars += line.length();
+
+        if (cues != null) {
+            cues.append(start, end, (int) textStart, (int) writtenChars);
+        }
+    }
+
+    /**
+     * Запоминает время реплики из строки вида {@code 00:00:01.000 --> 00:00:02.500 align:start position:0%}
+     */
+    private void readCueTiming(String rawLine) {
+        int arrow = rawLine.indexOf(CUE_ARROW);
+        if (arrow < 0) {
+            return;
+        }
+
+        int endFrom = arrow + CUE_ARROW.length();
+        while (endFrom < rawLine.length() && rawLine.charAt(endFrom) == ' ') {
+            endFrom++;
+        }
+        int endTo = endFrom;
+        while (endTo < rawLine.length() && !Character.isWhitespace(rawLine.charAt(endTo))) {
+            endTo++;
+        }
+
+        int start = parseTimestamp(rawLine.substring(0, arrow).trim());
+        int end = parseTimestamp(rawLine.substring(endFrom, endTo));
+
+        if (start >= 0 && end >= 0) {
+            cueStart = start;
+            cueEnd = Math.max(start, end);
+        }
+    }
+
+    /**
+     * @param timestamp метка вида {@code чч:мм:сс.ттт} или {@code мм:сс.ттт}
+     * @return миллисекунды, либо {@code -1}, если метка некорректна
+     */
+    static int parseTimestamp(String timestamp) {
+        int dot = timestamp.length() - 4;
+        if (dot < 4 || timestamp.charAt(dot) != '.') {
+            return -1;
+        }
+
+        long millis = 0;
+        int fieldStart = 0;
+        int fields = 0;
+
+        for (int i = 0; i <= dot; i++) {
+            if (i == dot || timestamp.charAt(i) == ':') {
+                int value = parseDigits(timestamp, fieldStart, i);
+                if (value < 0 || (fields > 0 && value > 59)) {
+                    return -1;
+                }
+                millis = millis * 60 + value;
+                fieldStart = i + 1;
+                fields++;
+            }
+        }
+
+        int fraction = parseDigits(timestamp, dot + 1, timestamp.length());
+        if (fields < 2 || fields > 3 || fraction < 0) {
+            return -1;
+        }
+
+        millis = millis * 1000 + fraction;
+
+        return millis > Integer.MAX_VALUE ? -1 : (int) millis;
+    }
+
+    private static int parseDigits(String text, int from, int to) {
+        if (from >= to || to - from > 9) {
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+}
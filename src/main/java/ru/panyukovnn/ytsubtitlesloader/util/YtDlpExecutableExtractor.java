@@ -1,37 +1,209 @@
 package ru.panyukovnn.ytsubtitlesloader.util;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.PosixFilePermission;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Set;
 
 /**
  * Утилита для извлечения исполняемого файла yt-dlp из ресурсов JAR.
  * Подобная инициализация необходима, поскольку файл находится в ресурсах и не может быть исполнен сам по себе.
+ * <p>
+ * Исполняемый файл весит десятки мегабайт, поэтому извлекается один раз в пользовательский кэш
+ * ({@code <кэш>/yt-dlp/<sha256>/<имя>}) и переиспользуется следующими запусками JVM. Контрольная сумма
+ * считается при сборке и лежит рядом с ресурсом ({@code <имя>.sha256}). Параллельные JVM извлекают файл
+ * под файловой блокировкой, готовый файл появляется атомарным переименованием.
  */
 public class YtDlpExecutableExtractor {
 
+    private static final Logger log = LoggerFactory.getLogger(YtDlpExecutableExtractor.class);
+
+    /**
+     * Системное свойство, переопределяющее каталог кэша
+     */
+    public static final String CACHE_DIRECTORY_PROPERTY = "yt-subtitles-loader.cache-dir";
+
+    private static final String LOCK_FILE_NAME = ".lock";
+
+    /**
+     * Блокировка файла принадлежит всей JVM, поэтому потоки одной JVM дополнительно синхронизируются между собой
+     */
+    private static final Object EXTRACTION_MONITOR = new Object();
+
+    private static volatile Path extractedExecutable;
+
     public static Path extractExecutable() {
+        Path executable = extractedExecutable;
+        if (executable != null && Files.isExecutable(executable)) {
+            return executable;
+        }
+
+        String executableFileName = determineExecutableFileName();
+        String resourcePath = "/yt-dlp/" + executableFileName;
+
         try {
-            String executableFileName = determineExecutableFileName();
-            String resourcePath = "/yt-dlp/" + executableFileName;
+            executable = extractCached(resourcePath, executableFileName, cacheDirectory());
+        } catch (IOException e) {
+            // Кэш недоступен (например, домашний каталог только для чтения): извлекаем во временный файл, как раньше
+            log.warn("Не удалось использовать кэш исполняемого файла yt-dlp, файл будет извлечён во временный каталог: {}", e.getMessage());
+            executable = extractToTempFile(resourcePath, executableFileName);
+        }
 
-            InputStream resourceStream = YtDlpExecutableExtractor.class.getResourceAsStream(resourcePath);
-            if (resourceStream == null) {
-                throw new YtLoadingException("4825", "Не удалось найти исполняемый файл yt-dlp в ресурсах: " + resourcePath);
+        extractedExecutable = executable;
+
+        return executable;
+    }
+
+    /**
+     * Возвращает файл ресурса из кэша, при отсутствии или повреждении извлекает его заново
+     *
+     * @param cacheDirectory каталог кэша
+     * @return путь к исполняемому файлу в кэше
+     */
+    static Path extractCached(String resourcePath, String fileName, Path cacheDirectory) throws IOException {
+        URL resource = findResource(resourcePath);
+        URLConnection connection = resource.openConnection();
+        long expectedSize = connection.getContentLengthLong();
+        String expectedHash = readChecksum(resourcePath);
+
+        Path directory = cacheDirectory.resolve("yt-dlp").resolve(expectedHash);
+        Path target = directory.resolve(fileName);
+
+        if (isValid(target, expectedSize)) {
+            return target;
+        }
+
+        synchronized (EXTRACTION_MONITOR) {
+            Files.createDirectories(directory);
+
+            try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                // Пока ждали блокировку, файл могла извлечь другая JVM
+                if (isValid(target, expectedSize)) {
+                    return target;
+                }
+
+                log.debug("Извлекаю исполняемый файл yt-dlp в кэш: {}", target);
+
+                Path tempFile = Files.createTempFile(directory, fileName, ".tmp");
+                try {
+                    String actualHash = copyWithHash(resource, tempFile);
+                    if (!actualHash.equals(expectedHash)) {
+                        throw new YtLoadingException("4829", "Контрольная сумма исполняемого файла yt-dlp не совпадает: ожидалась "
+                            + expectedHash + ", получена " + actualHash);
+                    }
+
+                    setExecutablePermissions(tempFile);
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        }
+
+        return target;
+    }
+
+    /**
+     * Файл в кэше появляется только атомарным переименованием полностью записанной копии,
+     * поэтому размера достаточно, чтобы отличить его от обрезанного или подменённого другой версией
+     */
+    private static boolean isValid(Path target, long expectedSize) throws IOException {
+        return Files.isRegularFile(target)
+            && Files.isExecutable(target)
+            && (expectedSize < 0 || Files.size(target) == expectedSize);
+    }
+
+    /**
+     * Контрольная сумма из ресурса {@code <путь>.sha256}, который создаётся при сборке.
+     * Без него (например, при запуске из IDE) сумма считается по содержимому ресурса.
+     */
+    private static String readChecksum(String resourcePath) throws IOException {
+        try (InputStream checksumStream = YtDlpExecutableExtractor.class.getResourceAsStream(resourcePath + ".sha256")) {
+            if (checksumStream != null) {
+                return new String(checksumStream.readAllBytes(), StandardCharsets.US_ASCII).trim();
             }
+        }
+
+        try (InputStream resourceStream = findResource(resourcePath).openStream()) {
+            return copyWithHash(resourceStream, OutputStream.nullOutputStream());
+        }
+    }
 
+    private static String copyWithHash(URL resource, Path target) throws IOException {
+        try (InputStream resourceStream = resource.openStream();
+             OutputStream output = Files.newOutputStream(target)) {
+            return copyWithHash(resourceStream, output);
+        }
+    }
+
+    private static String copyWithHash(InputStream input, OutputStream output) throws IOException {
+        try {
+            DigestInputStream digestStream = new DigestInputStream(input, MessageDigest.getInstance("SHA-256"));
+            digestStream.transferTo(output);
+
+            return HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private static URL findResource(String resourcePath) {
+        URL resource = YtDlpExecutableExtractor.class.getResource(resourcePath);
+        if (resource == null) {
+            throw new YtLoadingException("4825", "Не удалось найти исполняемый файл yt-dlp в ресурсах: " + resourcePath);
+        }
+
+        return resource;
+    }
+
+    /**
+     * Пользовательский каталог кэша: {@code $XDG_CACHE_HOME}, {@code ~/Library/Caches} на macOS или {@code ~/.cache}
+     */
+    private static Path cacheDirectory() {
+        String configured = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured);
+        }
+
+        String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        if (xdgCacheHome != null && !xdgCacheHome.isBlank()) {
+            return Path.of(xdgCacheHome, "yt-subtitles-loader");
+        }
+
+        Path home = Path.of(System.getProperty("user.home"));
+        if (System.getProperty("os.name").toLowerCase().contains("mac")) {
+            return home.resolve("Library").resolve("Caches").resolve("yt-subtitles-loader");
+        }
+
+        return home.resolve(".cache").resolve("yt-subtitles-loader");
+    }
+
+    private static Path extractToTempFile(String resourcePath, String executableFileName) {
+        try (InputStream resourceStream = findResource(resourcePath).openStream()) {
             Path tempFile = Files.createTempFile("yt-dlp_", "_" + executableFileName);
             tempFile.toFile().deleteOnExit();
 
             Files.copy(resourceStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
-            resourceStream.close();
 
             setExecutablePermissions(tempFile);
 
@@ -41,6 +213,29 @@ public class YtDlpExecutableExtractor {
         }
     }
 
+    /**
+     * Извлекает скрипт долгоживущего воркера для пула yt-dlp.
+     * Скрипт запускается внешним python3 с установленным модулем yt_dlp.
+     */
+    public static Path extractWorkerScript() {
+        String resourcePath = "/yt-dlp-worker/yt_dlp_worker.py";
+
+        try (InputStream resourceStream = YtDlpExecutableExtractor.class.getResourceAsStream(resourcePath)) {
+            if (resourceStream == null) {
+                throw new YtLoadingException("4827", "Не удалось найти скрипт воркера yt-dlp в ресурсах: " + resourcePath);
+            }
+
+            Path tempFile = Files.createTempFile("yt-dlp-worker_", ".py");
+            tempFile.toFile().deleteOnExit();
+
+            Files.copy(resourceStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+            return tempFile;
+        } catch (IOException e) {
+            throw new YtLoadingException("4828", "Ошибка при извлечении скрипта воркера yt-dlp: " + e.getMessage());
+        }
+    }
+
     private static void setExecutablePermissions(Path tempFile) throws IOException {
         try {
             Set<PosixFilePermission> permissions = new HashSet<>();
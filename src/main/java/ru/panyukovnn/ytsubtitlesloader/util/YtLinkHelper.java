@@ -1,18 +1,15 @@
 package ru.panyukovnn.ytsubtitlesloader.util;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
 import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 public class YtLinkHelper {
 
-    private static final Logger log = LoggerFactory.getLogger(YtLinkHelper.class);
-
     public static final Pattern YOUTUBE_VIDEO_ID_PATTERN = Pattern.compile("^[\\w-]{11}$");
 
     public String removeRedundantQueryParamsFromYoutubeLint(String youtubeLink) {
@@ -48,72 +45,17 @@ public class YtLinkHelper {
     }
 
     public boolean isValidYoutubeUrl(String url) {
-        try {
-            URL parsedUrl = new URI(url).toURL();
-            String host = parsedUrl.getHost().toLowerCase();
-            String path = parsedUrl.getPath();
-            String query = parsedUrl.getQuery();
-
-            if (!isValidHostSyntax(host)) {
-                return false;
-            }
-
-            if (isValidYouTubeHost(host)) {
-                if (host.equals("youtu.be")) {
-                    String id = path.replaceFirst("^/", "");
-                    return YOUTUBE_VIDEO_ID_PATTERN.matcher(id).matches();
-                }
-
-                if (path.startsWith("/watch")) {
-                    if (query == null) return false;
-                    for (String param : query.split("&")) {
-                        if (param.startsWith("v=")) {
-                            String id = param.substring(2);
-                            return YOUTUBE_VIDEO_ID_PATTERN.matcher(id).matches();
-                        }
-                    }
-                } else if (path.startsWith("/shorts/") || path.startsWith("/live/")) {
-                    String[] segments = path.split("/");
-                    if (segments.length >= 3) {
-                        String id = segments[2];
-                        return YOUTUBE_VIDEO_ID_PATTERN.matcher(id).matches();
-                    }
-                }
-            }
-
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-
-            return false;
-        }
-
-        return false;
-    }
-
-    private boolean isValidHostSyntax(String host) {
-        if (host == null || host.isEmpty()) return false;
-        if (host.startsWith(".")) return false;
-        if (!host.matches("^[a-z0-9.-]+$")) return false;
-
-        return true;
+        return YtLinkParser.findVideoIdStart(url) != YtLinkParser.NOT_FOUND;
     }
 
-    private boolean isValidYouTubeHost(String host) {
-        // Явные валидные хосты
-        if (host.equals("youtube.com") || host.equals("youtu.be")) {
-            return true;
-        }
-
-        // Поддомены youtube.com, но не что-то вроде ".youtube.com" или "fakeyoutube.com"
-        if (host.endsWith(".youtube.com")) {
-            // Отсекаем всё до последней точки перед youtube.com
-            String[] parts = host.split("\\.");
-            int len = parts.length;
-            if (len >= 3 && parts[len - 2].equals("youtube") && parts[len - 1].equals("com")) {
-                return true;
-            }
-        }
-
-        return false;
+    /**
+     * Извлекает идентификатор видео из ссылки любого поддерживаемого вида:
+     * {@code youtu.be/ID}, {@code /watch?v=ID}, {@code /shorts/ID} и {@code /live/ID}
+     *
+     * @param url ссылка на видео
+     * @return идентификатор видео, либо пустой Optional, если ссылка невалидна
+     */
+    public Optional<VideoId> extractVideoId(String url) {
+        return YtLinkParser.parse(url);
     }
 }
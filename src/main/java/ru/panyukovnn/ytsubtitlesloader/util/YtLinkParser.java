@@ -0,0 +1,283 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+
+import java.util.Optional;
+
+/**
+ * Разбор ссылки на видео YouTube за один проход без промежуточных объектов.
+ * <p>
+ * Поддерживает {@code youtu.be/ID}, {@code youtube.com/watch?...v=ID...}, {@code /shorts/ID} и {@code /live/ID}
+ * на {@code youtube.com} и его поддоменах, схемы http и https. Ссылка с символами, недопустимыми в URI,
+ * или с данными пользователя перед хостом ({@code user@host}) считается невалидной.
+ * Валидация не создаёт объектов: {@link #findVideoIdStart(CharSequence)} возвращает позицию идентификатора в строке.
+ */
+public final class YtLinkParser {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final String YOUTUBE_HOST = "youtube.com";
+    private static final String YOUTU_BE_HOST = "youtu.be";
+
+    private YtLinkParser() {
+    }
+
+    /**
+     * @return идентификатор видео, либо пустой Optional, если ссылка невалидна
+     */
+    public static Optional<VideoId> parse(CharSequence url) {
+        int start = findVideoIdStart(url);
+
+        return start == NOT_FOUND
+            ? Optional.empty()
+            : Optional.of(new VideoId(url.subSequence(start, start + VideoId.LENGTH).toString()));
+    }
+
+    /**
+     * @return позиция начала идентификатора видео в ссылке, либо {@link #NOT_FOUND}
+     */
+    public static int findVideoIdStart(CharSequence url) {
+        if (url == null || !hasOnlyUriChars(url)) {
+            return NOT_FOUND;
+        }
+
+        int length = url.length();
+        int hostStart = skipScheme(url);
+        if (hostStart == NOT_FOUND) {
+            return NOT_FOUND;
+        }
+
+        int i = hostStart;
+        while (i < length && !isHostEnd(url.charAt(i))) {
+            i++;
+        }
+        int hostEnd = i;
+
+        if (i < length && url.charAt(i) == ':') {
+            i++;
+            while (i < length && isDigit(url.charAt(i))) {
+                i++;
+            }
+        }
+
+        int pathStart = i;
+        while (i < length && url.charAt(i) != '?' && url.charAt(i) != '#') {
+            i++;
+        }
+        int pathEnd = i;
+
+        int queryStart = NOT_FOUND;
+        if (i < length && url.charAt(i) == '?') {
+            queryStart = ++i;
+            while (i < length && url.charAt(i) != '#') {
+                i++;
+            }
+        }
+        int queryEnd = i;
+
+        if (equalsIgnoreCase(url, hostStart, hostEnd, YOUTU_BE_HOST)) {
+            return pathEnd - pathStart == VideoId.LENGTH + 1 && url.charAt(pathStart) == '/' && isVideoId(url, pathStart + 1, pathEnd)
+                ? pathStart + 1
+                : NOT_FOUND;
+        }
+
+        if (!isYoutubeHost(url, hostStart, hostEnd)) {
+            return NOT_FOUND;
+        }
+
+        if (startsWith(url, pathStart, pathEnd, "/watch")) {
+            return queryStart == NOT_FOUND ? NOT_FOUND : findVideoIdParam(url, queryStart, queryEnd);
+        }
+
+        int segmentStart = NOT_FOUND;
+        if (startsWith(url, pathStart, pathEnd, "/shorts/")) {
+            segmentStart = pathStart + "/shorts/".length();
+        } else if (startsWith(url, pathStart, pathEnd, "/live/")) {
+            segmentStart = pathStart + "/live/".length();
+        }
+
+        if (segmentStart == NOT_FOUND) {
+            return NOT_FOUND;
+        }
+
+        int segmentEnd = segmentStart;
+        while (segmentEnd < pathEnd && url.charAt(segmentEnd) != '/') {
+            segmentEnd++;
+        }
+
+        return isVideoId(url, segmentStart, segmentEnd) ? segmentStart : NOT_FOUND;
+    }
+
+    /**
+     * Решает первый параметр {@code v=}: если его значение невалидно, следующие не рассматриваются
+     */
+    private static int findVideoIdParam(CharSequence url, int queryStart, int queryEnd) {
+        int paramStart = queryStart;
+
+        while (paramStart < queryEnd) {
+            int paramEnd = paramStart;
+            while (paramEnd < queryEnd && url.charAt(paramEnd) != '&') {
+                paramEnd++;
+            }
+
+            if (startsWith(url, paramStart, paramEnd, "v=")) {
+                return isVideoId(url, paramStart + 2, paramEnd) ? paramStart + 2 : NOT_FOUND;
+            }
+
+            paramStart = paramEnd + 1;
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return позиция сразу после {@code http://} или {@code https://}, либо {@link #NOT_FOUND}
+     */
+    private static int skipScheme(CharSequence url) {
+        if (startsWithIgnoreCase(url, "https://")) {
+            return "https://".length();
+        }
+        if (startsWithIgnoreCase(url, "http://")) {
+            return "http://".length();
+        }
+
+        return NOT_FOUND;
+    }
+
+    /**
+     * {@code youtube.com} или его поддомен из непустых меток {@code [a-z0-9-]}
+     */
+    private static boolean isYoutubeHost(CharSequence url, int start, int end) {
+        if (equalsIgnoreCase(url, start, end, YOUTUBE_HOST)) {
+            return true;
+        }
+
+        int suffixStart = end - YOUTUBE_HOST.length();
+        if (suffixStart - 1 <= start || url.charAt(suffixStart - 1) != '.' || !equalsIgnoreCase(url, suffixStart, end, YOUTUBE_HOST)) {
+            return false;
+        }
+
+        boolean labelEmpty = true;
+        for (int i = start; i < suffixStart; i++) {
+            char c = url.charAt(i);
+
+            if (c == '.') {
+                if (labelEmpty) {
+                    return false;
+                }
+                labelEmpty = true;
+            } else if (isAsciiLetterOrDigit(c) || c == '-') {
+                labelEmpty = false;
+            } else {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isVideoId(CharSequence url, int start, int end) {
+        if (end - start != VideoId.LENGTH) {
+            return false;
+        }
+
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+
+            if (!isAsciiLetterOrDigit(c) && c != '_' && c != '-') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Проверка, которую раньше выполнял разбор {@link java.net.URI}: только допустимые символы,
+     * корректные {@code %XX} и не больше одного {@code #}
+     */
+    private static boolean hasOnlyUriChars(CharSequence url) {
+        int length = url.length();
+        boolean fragment = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+
+            if (c == '%') {
+                if (i + 2 >= length || !isHexDigit(url.charAt(i + 1)) || !isHexDigit(url.charAt(i + 2))) {
+                    return false;
+                }
+                i += 2;
+            } else if (c == '#') {
+                if (fragment) {
+                    return false;
+                }
+                fragment = true;
+            } else if (c < 0x80) {
+                if (!isAsciiLetterOrDigit(c) && "-_.!~*'();/?:@&=+$,".indexOf(c) < 0) {
+                    return false;
+                }
+            } else if (Character.isISOControl(c) || Character.isSpaceChar(c)) {
+                return false;
+            }
+        }
+
+        return length > 0;
+    }
+
+    private static boolean isHostEnd(char c) {
+        return c == '/' || c == '?' || c == '#' || c == ':' || c == '@';
+    }
+
+    private static boolean startsWith(CharSequence url, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (url.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(CharSequence url, String prefix) {
+        return url.length() >= prefix.length() && equalsIgnoreCase(url, 0, prefix.length(), prefix);
+    }
+
+    /**
+     * Сравнение с образцом из строчных ASCII-символов без учёта регистра
+     */
+    private static boolean equalsIgnoreCase(CharSequence url, int start, int end, String lowerCase) {
+        if (end - start != lowerCase.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = url.charAt(start + i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+
+            if (c != lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -0,0 +1,68 @@
+#!/usr/bin/env python3
+"""
+Долгоживущий воркер yt-dlp для YtDlpWorkerPool.
+
+Импортирует yt_dlp один раз и выполняет задачи, приходящие через stdin, без повторного запуска интерпретатора.
+Требует установленного модуля yt_dlp (pip install yt-dlp).
+
+Протокол (UTF-8, по строке на сообщение):
+  -> RUN<TAB>arg1<TAB>arg2...   <- OUT<TAB>строка stdout / ERR<TAB>строка stderr ... EXIT<TAB>код
+  -> PING                       <- PONG
+"""
+import contextlib
+import io
+import sys
+
+import yt_dlp
+
+protocol_out = sys.stdout
+
+
+def send(line):
+    protocol_out.write(line + "\n")
+    protocol_out.flush()
+
+
+def run(args):
+    stdout, stderr = io.StringIO(), io.StringIO()
+    exit_code = 0
+
+    with contextlib.redirect_stdout(stdout), contextlib.redirect_stderr(stderr):
+        try:
+            yt_dlp.main(args)
+        except SystemExit as e:
+            if e.code is None:
+                exit_code = 0
+            elif isinstance(e.code, int):
+                exit_code = e.code
+            else:
+                print(e.code, file=sys.stderr)
+                exit_code = 1
+        except Exception as e:
+            print(f"ERROR: {e}", file=sys.stderr)
+            exit_code = 1
+
+    for line in stdout.getvalue().splitlines():
+        send("OUT\t" + line)
+    for line in stderr.getvalue().splitlines():
+        send("ERR\t" + line)
+    send(f"EXIT\t{exit_code}")
+
+
+def main():
+    send("READY")
+
+    for request in sys.stdin:
+        request = request.rstrip("\r\n")
+
+        if request == "PING":
+            send("PONG")
+        elif request == "RUN" or request.startswith("RUN\t"):
+            run(request.split("\t")[1:])
+        else:
+            send("ERR\tunknown request: " + request)
+            send("EXIT\t2")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,80 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class SubtitleCuesUnitTest {
+
+    private static final String TEXT = "раз два три четыре";
+
+    /**
+     * «раз» 0–1000, «два три» 1000–2500 из двух частей, пауза, «четыре» 4000–5000
+     */
+    private static SubtitleCues cues() {
+        return new SubtitleCues.Builder()
+            .append(0, 1000, 0, 3)
+            .append(1000, 2500, 4, 7)
+            .append(1000, 2500, 8, 11)
+            .append(4000, 5000, 12, 18)
+            .build(TEXT);
+    }
+
+    @Nested
+    class BuilderClass {
+
+        @Test
+        void when_build_withPartsOfSameCue_then_mergeThem() {
+            SubtitleCues cues = cues();
+
+            assertThat(cues.size(), equalTo(3));
+            assertThat(cues.text(1), equalTo("два три"));
+            assertThat(cues.startMillis(1), equalTo(1000));
+            assertThat(cues.endMillis(1), equalTo(2500));
+            assertThat(cues.text(2), equalTo("четыре"));
+        }
+
+        @Test
+        void when_build_withDecreasingStart_then_clampToPreviousStart() {
+            SubtitleCues cues = new SubtitleCues.Builder()
+                .append(5000, 6000, 0, 3)
+                .append(4000, 4500, 4, 7)
+                .build("раз два");
+
+            assertThat(cues.startMillis(1), equalTo(5000));
+            assertThat(cues.endMillis(1), equalTo(5000));
+        }
+    }
+
+    @Nested
+    class IndexAtMethod {
+
+        @Test
+        void when_indexAt_withMomentsAroundCues_then_returnLastStartedCue() {
+            SubtitleCues cues = cues();
+
+            assertThat(cues.indexAt(-1), equalTo(-1));
+            assertThat(cues.indexAt(0), equalTo(0));
+            assertThat(cues.indexAt(999), equalTo(0));
+            assertThat(cues.indexAt(1000), equalTo(1));
+            assertThat(cues.indexAt(3000), equalTo(1));
+            assertThat(cues.indexAt(10_000), equalTo(2));
+        }
+
+        @Test
+        void when_indexCovering_withPause_then_returnMinusOne() {
+            SubtitleCues cues = cues();
+
+            assertThat(cues.indexCovering(2000), equalTo(1));
+            assertThat(cues.indexCovering(3000), equalTo(-1));
+            assertThat(cues.indexCovering(5000), equalTo(-1));
+        }
+
+        @Test
+        void when_indexAt_withEmptyCues_then_returnMinusOne() {
+            assertThat(SubtitleCues.empty().indexAt(0), equalTo(-1));
+        }
+    }
+}
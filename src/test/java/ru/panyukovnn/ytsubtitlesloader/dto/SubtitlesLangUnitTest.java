@@ -0,0 +1,70 @@
+package ru.panyukovnn.ytsubtitlesloader.dto;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubtitlesLangUnitTest {
+
+    @Nested
+    class OfMethod {
+
+        @Test
+        void when_of_withAnyCase_then_normalizeToBcp47Case() {
+            assertThat(SubtitlesLang.of("EN_gb").getLang(), equalTo("en-GB"));
+            assertThat(SubtitlesLang.of("zh-hans-cn").getLang(), equalTo("zh-Hans-CN"));
+            assertThat(SubtitlesLang.of("es-419").getLang(), equalTo("es-419"));
+        }
+
+        @Test
+        void when_of_withDefaultLanguage_then_returnConstant() {
+            assertThat(SubtitlesLang.of("RU"), equalTo(SubtitlesLang.RU));
+            assertThat(SubtitlesLang.of(" en "), equalTo(SubtitlesLang.EN));
+        }
+
+        @Test
+        void when_of_withInvalidTag_then_throwException() {
+            assertThrows(IllegalArgumentException.class, () -> SubtitlesLang.of("en--GB"));
+            assertThrows(IllegalArgumentException.class, () -> SubtitlesLang.of("en.*"));
+            assertThrows(IllegalArgumentException.class, () -> SubtitlesLang.of(""));
+        }
+    }
+
+    @Nested
+    class ListOfMethod {
+
+        @Test
+        void when_listOf_withDuplicates_then_keepFirstOccurrenceOrder() {
+            assertThat(SubtitlesLang.listOf("de, en-GB,,DE,ru"),
+                equalTo(List.of(SubtitlesLang.of("de"), SubtitlesLang.of("en-GB"), SubtitlesLang.RU)));
+        }
+
+        @Test
+        void when_listOf_withoutTags_then_throwException() {
+            assertThrows(IllegalArgumentException.class, () -> SubtitlesLang.listOf(" , "));
+        }
+    }
+
+    @Nested
+    class MatchesMethod {
+
+        @Test
+        void when_matches_withNarrowerTags_then_returnTrue() {
+            assertThat(SubtitlesLang.EN.matches("en"), equalTo(true));
+            assertThat(SubtitlesLang.EN.matches("en-GB"), equalTo(true));
+            assertThat(SubtitlesLang.of("zh-Hans").matches("zh-hans-CN"), equalTo(true));
+        }
+
+        @Test
+        void when_matches_withOtherLanguageSharingPrefix_then_returnFalse() {
+            assertThat(SubtitlesLang.EN.matches("eng"), equalTo(false));
+            assertThat(SubtitlesLang.of("en-GB").matches("en"), equalTo(false));
+            assertThat(SubtitlesLang.of("zh-Hans").matches("zh-Hant"), equalTo(false));
+        }
+    }
+}
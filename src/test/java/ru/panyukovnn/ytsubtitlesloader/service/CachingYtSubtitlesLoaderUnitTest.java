@@ -0,0 +1,104 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesCacheProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesCacheStats;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingYtSubtitlesLoaderUnitTest {
+
+    private final List<String> loadedLinks = new ArrayList<>();
+
+    private final YtSubtitlesLoader delegate = link -> {
+        loadedLinks.add(link);
+
+        return new YtSubtitles(link, null, SubtitlesLang.RU, "0123456789");
+    };
+
+    @Test
+    void when_load_withDifferentLinksToSameVideo_then_loadOnce() {
+        CachingYtSubtitlesLoader loader = new CachingYtSubtitlesLoader(delegate, new YtLinkHelper(), new YtSubtitlesCacheProperties(1000, Duration.ofMinutes(1)));
+
+        loader.load("https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=10");
+        loader.load("https://youtu.be/dQw4w9WgXcQ");
+        loader.load("https://www.youtube.com/shorts/dQw4w9WgXcQ");
+
+        assertThat(loadedLinks, contains("https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=10"));
+        assertThat(loader.stats(), equalTo(new YtSubtitlesCacheStats(2, 1, 0, 1, 10)));
+    }
+
+    @Test
+    void when_loadToWriter_withCachedAndMissingVideos_then_writeCachedTextAndPassMissThrough() {
+        CachingYtSubtitlesLoader loader = new CachingYtSubtitlesLoader(delegate, new YtLinkHelper(), new YtSubtitlesCacheProperties(1000, Duration.ofMinutes(1)));
+        loader.load("https://youtu.be/aaaaaaaaaaa");
+
+        StringWriter cachedText = new StringWriter();
+        loader.load("https://youtu.be/aaaaaaaaaaa", cachedText);
+        StringWriter missedText = new StringWriter();
+        loader.load("https://youtu.be/bbbbbbbbbbb", missedText);
+        loader.load("https://youtu.be/bbbbbbbbbbb");
+
+        assertThat(cachedText.toString(), equalTo("0123456789"));
+        assertThat(missedText.toString(), equalTo("0123456789"));
+        assertThat(loadedLinks, contains("https://youtu.be/aaaaaaaaaaa", "https://youtu.be/bbbbbbbbbbb", "https://youtu.be/bbbbbbbbbbb"));
+    }
+
+    @Test
+    void when_load_overMaxWeight_then_evictLeastRecentlyUsed() {
+        CachingYtSubtitlesLoader loader = new CachingYtSubtitlesLoader(delegate, new YtLinkHelper(), new YtSubtitlesCacheProperties(20, Duration.ofMinutes(1)));
+
+        loader.load("https://youtu.be/aaaaaaaaaaa");
+        loader.load("https://youtu.be/bbbbbbbbbbb");
+        loader.load("https://youtu.be/aaaaaaaaaaa");
+        loader.load("https://youtu.be/ccccccccccc");
+        loader.load("https://youtu.be/aaaaaaaaaaa");
+        loader.load("https://youtu.be/bbbbbbbbbbb");
+
+        assertThat(loadedLinks, contains(
+            "https://youtu.be/aaaaaaaaaaa",
+            "https://youtu.be/bbbbbbbbbbb",
+            "https://youtu.be/ccccccccccc",
+            "https://youtu.be/bbbbbbbbbbb"
+        ));
+        assertThat(loader.stats().evictions(), equalTo(2L));
+    }
+
+    @Test
+    void when_load_afterTimeToLive_then_loadAgain() throws Exception {
+        CachingYtSubtitlesLoader loader = new CachingYtSubtitlesLoader(delegate, new YtLinkHelper(), new YtSubtitlesCacheProperties(1000, Duration.ofMillis(50)));
+
+        loader.load("https://youtu.be/dQw4w9WgXcQ");
+        Thread.sleep(100);
+        loader.load("https://youtu.be/dQw4w9WgXcQ");
+
+        assertThat(loadedLinks.size(), equalTo(2));
+        assertThat(loader.stats(), equalTo(new YtSubtitlesCacheStats(0, 2, 1, 1, 10)));
+    }
+
+    @Test
+    void when_load_withFailure_then_notCacheError() {
+        YtSubtitlesLoader failingLoader = link -> {
+            loadedLinks.add(link);
+            throw new YtLoadingException("48ae", "Субтитры не найдены");
+        };
+        CachingYtSubtitlesLoader loader = new CachingYtSubtitlesLoader(failingLoader, new YtLinkHelper(), YtSubtitlesCacheProperties.of());
+
+        assertThrows(YtLoadingException.class, () -> loader.load("https://youtu.be/dQw4w9WgXcQ"));
+        assertThrows(YtLoadingException.class, () -> loader.load("https://youtu.be/dQw4w9WgXcQ"));
+
+        assertThat(loadedLinks.size(), equalTo(2));
+    }
+}
@@ -0,0 +1,152 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.panyukovnn.ytsubtitlesloader.config.TranscriptStoreProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.AvailableSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.TranscriptKey;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DiskTranscriptStoreUnitTest {
+
+    private static final TranscriptKey RU_MANUAL = new TranscriptKey(new VideoId("dQw4w9WgXcQ"), SubtitlesLang.RU, false);
+    private static final TranscriptKey RU_AUTO = new TranscriptKey(new VideoId("dQw4w9WgXcQ"), SubtitlesLang.RU, true);
+    private static final TranscriptKey EN_MANUAL = new TranscriptKey(new VideoId("aaaaaaaaaaa"), SubtitlesLang.EN, false);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void when_get_afterReopen_then_returnStoredContent() {
+        String vtt = "WEBVTT\n\n00:00:00.000 --> 00:00:01.000\nпривет мир\n".repeat(100);
+
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            store.put(RU_MANUAL, vtt);
+
+            assertThat(store.sizeBytes(), lessThan((long) vtt.getBytes(StandardCharsets.UTF_8).length / 10));
+        }
+
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            assertThat(store.get(RU_MANUAL), equalTo(Optional.of(vtt)));
+            assertThat(store.get(RU_AUTO), equalTo(Optional.empty()));
+        }
+    }
+
+    @Test
+    void when_put_withSameContentForDifferentKeys_then_storeOneObject() throws Exception {
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            store.put(RU_MANUAL, "одинаковые субтитры");
+            store.put(RU_AUTO, "одинаковые субтитры");
+            store.put(RU_AUTO, "одинаковые субтитры");
+
+            assertThat(countObjects(), equalTo(1L));
+            assertThat(store.get(RU_AUTO), equalTo(Optional.of("одинаковые субтитры")));
+        }
+    }
+
+    @Test
+    void when_put_overMaxBytes_then_evictLeastRecentlyUsed() {
+        // Сжатые короткие строки близки по размеру, в хранилище помещаются две из трёх
+        long objectSize;
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            store.put(RU_MANUAL, "первые");
+            objectSize = store.sizeBytes();
+        }
+
+        try (DiskTranscriptStore store = new DiskTranscriptStore(new TranscriptStoreProperties(tempDir, objectSize * 2 + 2))) {
+            store.put(RU_AUTO, "вторые");
+            store.get(RU_MANUAL);
+            store.put(EN_MANUAL, "третьи");
+
+            assertThat(store.get(RU_MANUAL), equalTo(Optional.of("первые")));
+            assertThat(store.get(RU_AUTO), equalTo(Optional.empty()));
+            assertThat(store.get(EN_MANUAL), equalTo(Optional.of("третьи")));
+        }
+    }
+
+    @Test
+    void when_open_withTornIndexLineAndOrphanObject_then_skipThem() throws Exception {
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            store.put(RU_MANUAL, "субтитры");
+        }
+        Files.writeString(tempDir.resolve("index.log"), "PUT\taaaaaaaaaaa\tEN\tfal", StandardOpenOption.APPEND);
+        Path orphan = tempDir.resolve("objects").resolve("ff").resolve("ff00.z");
+        Files.createDirectories(orphan.getParent());
+        Files.writeString(orphan, "мусор");
+
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            assertThat(store.get(RU_MANUAL), equalTo(Optional.of("субтитры")));
+            assertThat(store.get(EN_MANUAL), equalTo(Optional.empty()));
+            assertThat(Files.exists(orphan), equalTo(false));
+        }
+    }
+
+    @Test
+    void when_listing_afterReopen_then_keepOnlyListingsOfStoredVideos() {
+        AvailableSubtitles listing = new AvailableSubtitles(Set.of(), Set.of("ru", "en"));
+
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            store.put(RU_AUTO, "субтитры");
+            store.putListing(RU_AUTO.videoId(), listing);
+            store.putListing(EN_MANUAL.videoId(), listing);
+        }
+
+        try (DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            assertThat(store.listing(RU_AUTO.videoId()), equalTo(Optional.of(listing)));
+            assertThat(store.listing(EN_MANUAL.videoId()), equalTo(Optional.empty()));
+        }
+    }
+
+    @Test
+    void when_open_whileOpenedByAnotherInstance_then_throwUntilItCloses() {
+        DiskTranscriptStore first = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir));
+        first.put(RU_MANUAL, "субтитры");
+
+        YtLoadingException e = assertThrows(YtLoadingException.class, () -> new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir)));
+        assertThat(e.getId(), equalTo("d5c2"));
+
+        first.close();
+        try (DiskTranscriptStore second = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            assertThat(second.get(RU_MANUAL), equalTo(Optional.of("субтитры")));
+        }
+    }
+
+    @Test
+    void when_open_withIncomingFiles_then_deleteOnlyStaleOnes() throws Exception {
+        Path fresh = tempDir.resolve("objects").resolve("incoming-fresh.tmp");
+        Path stale = tempDir.resolve("objects").resolve("incoming-stale.tmp");
+        Files.createDirectories(fresh.getParent());
+        Files.writeString(fresh, "пишется");
+        Files.writeString(stale, "брошен");
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+
+        try (DiskTranscriptStore ignored = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir))) {
+            assertThat(Files.exists(fresh), equalTo(true));
+            assertThat(Files.exists(stale), equalTo(false));
+        }
+    }
+
+    private long countObjects() throws Exception {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProcessRunnerUnitTest {
+
+    @Test
+    void when_run_withStderrLargerThanPipeBuffer_then_drainBothStreams() throws Exception {
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofSeconds(10), ProcessRunner.DEFAULT_MAX_OUTPUT_BYTES);
+        // Процесс сначала переполняет буфер stderr и только потом пишет в stdout
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", "head -c 1000000 /dev/zero | tr '\\0' e >&2; echo out");
+
+        YtDlpExecutionResult result = processRunner.run(processBuilder);
+
+        assertThat(result.exitCode(), equalTo(0));
+        assertThat(result.stdout(), equalTo("out\n"));
+        assertThat(result.stderr().length(), equalTo(1_000_000));
+    }
+
+    @Test
+    void when_run_withOutputOverLimit_then_keepOnlyLimit() throws Exception {
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofSeconds(10), 1000);
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", "head -c 100000 /dev/zero | tr '\\0' o");
+
+        YtDlpExecutionResult result = processRunner.run(processBuilder);
+
+        assertThat(result.exitCode(), equalTo(0));
+        assertThat(result.stdout().length(), equalTo(1000));
+    }
+
+    @Test
+    void when_run_withTimeoutExceeded_then_destroyProcessTree() {
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofMillis(500), ProcessRunner.DEFAULT_MAX_OUTPUT_BYTES);
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", "sleep 60 & wait");
+        long start = System.nanoTime();
+
+        YtLoadingException e = assertThrows(YtLoadingException.class, () -> processRunner.run(processBuilder));
+
+        assertThat(e.getId(), equalTo("e4a0"));
+        assertThat(System.nanoTime() - start, lessThan(Duration.ofSeconds(5).toNanos()));
+        List<ProcessHandle> alive = ProcessHandle.current().descendants().filter(ProcessHandle::isAlive).toList();
+        assertThat(alive, empty());
+    }
+
+    @Test
+    void when_run_withFlightRecording_then_recordProcessEvents() throws Exception {
+        ProcessRunner processRunner = new ProcessRunner(Duration.ofSeconds(10), 4);
+        ProcessBuilder processBuilder = new ProcessBuilder("bash", "-c", "echo 123456789; exit 3");
+        Path dump = Files.createTempFile("process-runner", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(YtDlpSpawnEvent.class);
+            recording.enable(YtDlpProcessEvent.class);
+            recording.enable(ProcessOutputDrainEvent.class);
+            recording.start();
+
+            processRunner.run(processBuilder);
+
+            recording.stop();
+            recording.dump(dump);
+
+            Map<String, RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> !event.hasField("stream") || "stdout".equals(event.getString("stream")))
+                .collect(Collectors.toMap(event -> event.getEventType().getName(), event -> event));
+
+            RecordedEvent process = events.get("ru.panyukovnn.ytsubtitlesloader.YtDlpProcess");
+            RecordedEvent drain = events.get("ru.panyukovnn.ytsubtitlesloader.ProcessOutputDrain");
+
+            assertThat(process.getInt("exitCode"), equalTo(3));
+            assertThat(process.getLong("stdoutBytes"), equalTo(10L));
+            assertThat(drain.getLong("pid"), equalTo(process.getLong("pid")));
+            assertThat(drain.getLong("droppedBytes"), equalTo(6L));
+            assertThat(events.get("ru.panyukovnn.ytsubtitlesloader.YtDlpSpawn").getString("command"), equalTo("bash -c echo 123456789; exit 3"));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+}
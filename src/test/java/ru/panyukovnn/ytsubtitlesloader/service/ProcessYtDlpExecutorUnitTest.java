@@ -0,0 +1,99 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+class ProcessYtDlpExecutorUnitTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private ProcessYtDlpExecutor executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path fakeYtDlp = tempDir.resolve("fake-yt-dlp.sh");
+        Files.copy(Path.of(getClass().getResource("/fake-yt-dlp.sh").toURI()), fakeYtDlp);
+        fakeYtDlp.toFile().setExecutable(true);
+
+        executor = new ProcessYtDlpExecutor(new YtDlpProcessBuilderCreator(fakeYtDlp));
+    }
+
+    @Test
+    void when_execute_withOneShotRun_then_returnStdoutAndExitCode() throws Exception {
+        YtDlpExecutionResult result = executor.execute(List.of("--list-subs"));
+
+        assertThat(result.exitCode(), equalTo(0));
+        assertThat(result.stdout(), containsString("--list-subs"));
+    }
+
+    @Test
+    void when_execute_interrupted_then_destroyProcessTree() throws Exception {
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+        Thread thread = Thread.ofVirtual().start(() -> {
+            try {
+                executor.execute(List.of("--hang"));
+                error.complete(null);
+            } catch (Throwable e) {
+                error.complete(e);
+            }
+        });
+
+        awaitDescendant("sleep 60");
+        List<ProcessHandle> processTree = ProcessHandle.current().descendants().filter(ProcessHandle::isAlive).toList();
+        assertThat(processTree, not(empty()));
+
+        thread.interrupt();
+
+        assertThat(error.get(5, TimeUnit.SECONDS), instanceOf(InterruptedException.class));
+        assertThat(processTree.stream().filter(ProcessHandle::isAlive).toList(), empty());
+    }
+
+    @Test
+    void when_execute_withOrphanHoldingOutput_then_returnWithoutWaitingForOrphan() throws Exception {
+        long start = System.nanoTime();
+
+        YtDlpExecutionResult result = executor.execute(List.of("--orphan"));
+
+        try {
+            assertThat(result.exitCode(), equalTo(0));
+            assertThat(result.stdout(), containsString("orphan pid="));
+            // Меньше ожидания закрытия каналов в ProcessRunner: чтение не ждёт потомка
+            assertThat(System.nanoTime() - start, lessThan(Duration.ofSeconds(3).toNanos()));
+        } finally {
+            long orphanPid = Long.parseLong(result.stdout().substring(result.stdout().indexOf('=') + 1).trim());
+            ProcessHandle.of(orphanPid).ifPresent(ProcessHandle::destroyForcibly);
+        }
+    }
+
+    /**
+     * Ждёт потомка с заданной командной строкой вместо фиксированной паузы на запуск скрипта
+     */
+    private static void awaitDescendant(String commandLineSuffix) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+
+        while (ProcessHandle.current().descendants()
+            .noneMatch(handle -> handle.info().commandLine().map(line -> line.endsWith(commandLineSuffix)).orElse(false))) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Не дождались процесса: " + commandLineSuffix);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
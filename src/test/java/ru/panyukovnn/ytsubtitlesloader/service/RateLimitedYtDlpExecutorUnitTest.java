@@ -0,0 +1,111 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.config.YtDlpRateLimitProperties;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimitedYtDlpExecutorUnitTest {
+
+    private static final YtDlpRateLimitProperties PROPERTIES =
+        new YtDlpRateLimitProperties(1_000, 10, 3, Duration.ofMillis(1), Duration.ofMillis(4));
+
+    private static final YtDlpExecutionResult THROTTLED =
+        new YtDlpExecutionResult(1, "", "ERROR: [youtube] dQw4w9WgXcQ: HTTP Error 429: Too Many Requests");
+    private static final YtDlpExecutionResult BOT_CHECK =
+        new YtDlpExecutionResult(1, "", "ERROR: [youtube] dQw4w9WgXcQ: Sign in to confirm you're not a bot");
+    private static final YtDlpExecutionResult UNAVAILABLE =
+        new YtDlpExecutionResult(1, "", "ERROR: [youtube] dQw4w9WgXcQ: Video unavailable");
+    private static final YtDlpExecutionResult PARTIALLY_THROTTLED = new YtDlpExecutionResult(
+        1,
+        "[info] Available subtitles for dQw4w9WgXcQ:\nLanguage Name    Formats\nru       Russian vtt\nen       English vtt\n",
+        "ERROR: Unable to download video subtitles for 'en': HTTP Error 429: Too Many Requests");
+    private static final YtDlpExecutionResult SUCCESS = new YtDlpExecutionResult(0, "ok", "");
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private YtDlpExecutor scripted(YtDlpExecutionResult... results) {
+        Deque<YtDlpExecutionResult> queue = new ArrayDeque<>(List.of(results));
+
+        return arguments -> {
+            executions.incrementAndGet();
+            return queue.size() > 1 ? queue.poll() : queue.peek();
+        };
+    }
+
+    @Test
+    void when_execute_withTransientFailures_then_retryUntilSuccess() throws Exception {
+        RateLimitedYtDlpExecutor executor = new RateLimitedYtDlpExecutor(scripted(THROTTLED, BOT_CHECK, SUCCESS), PROPERTIES);
+
+        YtDlpExecutionResult result = executor.execute(List.of("--list-subs"));
+
+        assertThat(result, equalTo(SUCCESS));
+        assertThat(executions.get(), equalTo(3));
+    }
+
+    @Test
+    void when_execute_withPermanentFailure_then_returnItWithoutRetry() throws Exception {
+        RateLimitedYtDlpExecutor executor = new RateLimitedYtDlpExecutor(scripted(UNAVAILABLE, SUCCESS), PROPERTIES);
+
+        YtDlpExecutionResult result = executor.execute(List.of("--list-subs"));
+
+        assertThat(result, equalTo(UNAVAILABLE));
+        assertThat(executions.get(), equalTo(1));
+    }
+
+    @Test
+    void when_execute_withPersistentThrottling_then_throwAfterMaxAttempts() {
+        RateLimitedYtDlpExecutor executor = new RateLimitedYtDlpExecutor(scripted(THROTTLED), PROPERTIES);
+
+        YtLoadingException e = assertThrows(YtLoadingException.class, () -> executor.execute(List.of("--list-subs")));
+
+        assertThat(e.getId(), equalTo("7d3b"));
+        assertThat(executions.get(), equalTo(3));
+    }
+
+    @Test
+    void when_execute_withThrottlingAfterSubtitlesListing_then_returnPartialResultWithoutRetry() throws Exception {
+        RateLimitedYtDlpExecutor executor = new RateLimitedYtDlpExecutor(scripted(PARTIALLY_THROTTLED, SUCCESS), PROPERTIES);
+
+        YtDlpExecutionResult result = executor.execute(List.of("--list-subs"));
+
+        assertThat(result, equalTo(PARTIALLY_THROTTLED));
+        assertThat(executions.get(), equalTo(1));
+    }
+
+    @Test
+    void when_execute_withThrottledDownloadOnlyRun_then_returnItWithoutRetry() throws Exception {
+        RateLimitedYtDlpExecutor executor = new RateLimitedYtDlpExecutor(scripted(THROTTLED, SUCCESS), PROPERTIES);
+
+        YtDlpExecutionResult result = executor.execute(List.of("--write-subs"));
+
+        assertThat(result, equalTo(THROTTLED));
+        assertThat(executions.get(), equalTo(1));
+    }
+
+    @Test
+    void when_backoff_withGrowingAttempt_then_stayWithinJitteredExponentialBounds() {
+        RateLimitedYtDlpExecutor executor = new RateLimitedYtDlpExecutor(
+            scripted(SUCCESS), new YtDlpRateLimitProperties(1, 1, 10, Duration.ofSeconds(2), Duration.ofSeconds(30)));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(executor.backoff(1).toMillis(), greaterThanOrEqualTo(1_000L));
+            assertThat(executor.backoff(1).toMillis(), lessThanOrEqualTo(2_000L));
+            assertThat(executor.backoff(3).toMillis(), greaterThanOrEqualTo(4_000L));
+            assertThat(executor.backoff(3).toMillis(), lessThanOrEqualTo(8_000L));
+            assertThat(executor.backoff(40).toMillis(), greaterThanOrEqualTo(15_000L));
+            assertThat(executor.backoff(40).toMillis(), lessThanOrEqualTo(30_000L));
+        }
+    }
+}
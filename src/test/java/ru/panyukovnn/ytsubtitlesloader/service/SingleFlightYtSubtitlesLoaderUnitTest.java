@@ -0,0 +1,116 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightYtSubtitlesLoaderUnitTest {
+
+    private static final int CALLERS = 20;
+    private static final VideoId VIDEO_ID = new VideoId("dQw4w9WgXcQ");
+
+    @Test
+    void when_load_concurrentlyForSameVideo_then_loadOnceAndShareResult() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlightYtSubtitlesLoader loader = new SingleFlightYtSubtitlesLoader(link -> {
+            loads.incrementAndGet();
+            await(release);
+
+            return new YtSubtitles(link, null, SubtitlesLang.RU, "текст");
+        }, new YtLinkHelper());
+
+        List<Future<YtSubtitles>> results = callConcurrently(loader, release);
+
+        YtSubtitles first = results.getFirst().get();
+        for (Future<YtSubtitles> result : results) {
+            assertThat(result.get(), sameInstance(first));
+        }
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    void when_load_concurrentlyWithFailure_then_shareSameFailure() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        YtLoadingException failure = new YtLoadingException("48ae", "Субтитры не найдены");
+        SingleFlightYtSubtitlesLoader loader = new SingleFlightYtSubtitlesLoader(link -> {
+            loads.incrementAndGet();
+            await(release);
+
+            throw failure;
+        }, new YtLinkHelper());
+
+        List<Future<YtSubtitles>> results = callConcurrently(loader, release);
+
+        for (Future<YtSubtitles> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertThat(e.getCause(), sameInstance(failure));
+        }
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    void when_load_sequentially_then_loadEachTime() {
+        AtomicInteger loads = new AtomicInteger();
+        SingleFlightYtSubtitlesLoader loader = new SingleFlightYtSubtitlesLoader(link -> {
+            loads.incrementAndGet();
+
+            return new YtSubtitles(link, null, SubtitlesLang.RU, "текст");
+        }, new YtLinkHelper());
+
+        loader.load("https://youtu.be/dQw4w9WgXcQ");
+        loader.load("https://youtu.be/dQw4w9WgXcQ");
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    /**
+     * Запускает вызовы разными ссылками на одно видео и отпускает загрузку, когда все вызовы, кроме загружающего,
+     * уже ждут её результат
+     */
+    private static List<Future<YtSubtitles>> callConcurrently(SingleFlightYtSubtitlesLoader loader, CountDownLatch release) throws Exception {
+        List<Future<YtSubtitles>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                String link = i % 2 == 0 ? "https://youtu.be/dQw4w9WgXcQ" : "https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=" + i;
+                results.add(executor.submit(() -> loader.load(link)));
+            }
+
+            // Каждый ожидающий вызов блокируется в get() выполняющейся загрузки и виден как её зависимость
+            while (loader.inFlight(VIDEO_ID).map(CompletableFuture::getNumberOfDependents).orElse(0) < CALLERS - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+        }
+
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.panyukovnn.ytsubtitlesloader.config.TempFilesProperties;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class TempFilesJanitorUnitTest {
+
+    private static final FileTime HOUR_AGO = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void when_deleteRequestDirectory_then_removeItWithContent() throws Exception {
+        try (TempFilesJanitor janitor = new TempFilesJanitor(TempFilesProperties.of(tempDir))) {
+            Path requestDirectory = janitor.createRequestDirectory();
+            Files.writeString(requestDirectory.resolve("subs.ru.vtt"), "WEBVTT");
+            Files.writeString(requestDirectory.resolve("subs.en.vtt.part"), "WEBVTT");
+
+            janitor.deleteRequestDirectory(requestDirectory);
+
+            assertThat(Files.exists(requestDirectory), equalTo(false));
+        }
+    }
+
+    @Test
+    void when_sweep_withExpiredAndFreshEntries_then_deleteOnlyExpiredInactive() throws Exception {
+        try (TempFilesJanitor janitor = new TempFilesJanitor(TempFilesProperties.of(tempDir))) {
+            Path activeDirectory = janitor.createRequestDirectory();
+            Files.setLastModifiedTime(activeDirectory, HOUR_AGO);
+
+            Path abandonedDirectory = Files.createDirectory(tempDir.resolve("request-abandoned"));
+            Files.writeString(abandonedDirectory.resolve("subs.ru.vtt"), "WEBVTT");
+            Files.setLastModifiedTime(abandonedDirectory, HOUR_AGO);
+
+            Path legacyFile = Files.writeString(tempDir.resolve("temp_subs_1a2b3c4d.ru.vtt"), "WEBVTT");
+            Files.setLastModifiedTime(legacyFile, HOUR_AGO);
+
+            Path freshFile = Files.writeString(tempDir.resolve("temp_subs_5e6f7a8b.ru.vtt"), "WEBVTT");
+
+            janitor.sweep();
+
+            assertThat(Files.exists(activeDirectory), equalTo(true));
+            assertThat(Files.exists(abandonedDirectory), equalTo(false));
+            assertThat(Files.exists(legacyFile), equalTo(false));
+            assertThat(Files.exists(freshFile), equalTo(true));
+        }
+    }
+
+    @Test
+    void when_sweep_overMaxDeletesPerRun_then_leaveRestForNextRun() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Path file = Files.writeString(tempDir.resolve("temp_subs_" + i + ".ru.vtt"), "WEBVTT");
+            Files.setLastModifiedTime(file, HOUR_AGO);
+        }
+
+        TempFilesProperties properties = new TempFilesProperties(tempDir, Duration.ofMinutes(15), Duration.ofHours(1), 2);
+        try (TempFilesJanitor janitor = new TempFilesJanitor(properties)) {
+            // Первый проход запускается в фоне при создании и тоже удаляет не больше двух файлов
+            int deleted = janitor.sweep();
+
+            assertThat(deleted, lessThanOrEqualTo(2));
+            assertThat(countEntries(), greaterThanOrEqualTo(1L));
+        }
+    }
+
+    private long countEntries() throws Exception {
+        try (Stream<Path> entries = Files.list(tempDir)) {
+            return entries.count();
+        }
+    }
+}
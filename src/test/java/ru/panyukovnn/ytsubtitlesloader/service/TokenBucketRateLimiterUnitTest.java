@@ -0,0 +1,47 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class TokenBucketRateLimiterUnitTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(42 * SECOND);
+
+    @Test
+    void when_reserve_afterIdle_then_allowBurstWithoutWaiting() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(2, 3, clock::get);
+
+        assertThat(rateLimiter.reserve() <= 0, equalTo(true));
+        assertThat(rateLimiter.reserve() <= 0, equalTo(true));
+        assertThat(rateLimiter.reserve() <= 0, equalTo(true));
+        assertThat(rateLimiter.reserve(), equalTo(SECOND / 2));
+        assertThat(rateLimiter.reserve(), equalTo(SECOND));
+    }
+
+    @Test
+    void when_reserve_afterLongIdle_then_notAccumulateMoreThanBurst() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 2, clock::get);
+        clock.addAndGet(3600 * SECOND);
+
+        assertThat(rateLimiter.reserve() <= 0, equalTo(true));
+        assertThat(rateLimiter.reserve() <= 0, equalTo(true));
+        assertThat(rateLimiter.reserve(), equalTo(SECOND));
+    }
+
+    @Test
+    void when_reserve_afterPause_then_waitUntilPauseEnds() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 5, clock::get);
+
+        rateLimiter.pause(Duration.ofSeconds(30));
+
+        assertThat(rateLimiter.reserve(), equalTo(30 * SECOND));
+        assertThat(rateLimiter.reserve(), equalTo(30 * SECOND + SECOND / 10));
+    }
+}
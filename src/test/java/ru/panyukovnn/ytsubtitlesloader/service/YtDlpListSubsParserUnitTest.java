@@ -0,0 +1,62 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.AvailableSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YtDlpListSubsParserUnitTest {
+
+    private static final String LIST_SUBS_OUTPUT = """
+        [youtube] Extracting URL: https://www.youtube.com/watch?v=dQw4w9WgXcQ
+        [youtube] dQw4w9WgXcQ: Downloading webpage
+        [info] Available automatic captions for dQw4w9WgXcQ:
+        Language Name                     Formats
+        de       German from English      vtt, ttml, srv3, srv2, srv1, json3
+        en       English                  vtt, ttml, srv3, srv2, srv1, json3
+        ru       Russian from English     vtt, ttml, srv3, srv2, srv1, json3
+        [info] Available subtitles for dQw4w9WgXcQ:
+        Language Name                     Formats
+        en-GB    English (United Kingdom) vtt, ttml, srv3, srv2, srv1, json3
+        ru       Russian                  ttml, srv3
+        [info] Writing video subtitles to: ./temp-subtitles/temp_subs_1a2b3c4d.en-GB.vtt
+        """;
+
+    @Test
+    void when_parse_withListSubsOutput_then_collectSupportedVttLanguagesBySection() throws IOException {
+        YtDlpListSubsParser ytDlpListSubsParser = new YtDlpListSubsParser();
+
+        AvailableSubtitles result = ytDlpListSubsParser.parse(new BufferedReader(new StringReader(LIST_SUBS_OUTPUT)));
+
+        assertThat(result.automaticLanguages(), containsInAnyOrder("en", "ru"));
+        assertThat(result.manualLanguages(), containsInAnyOrder("en-GB"));
+    }
+
+    @Test
+    void when_parse_withManualSubtitlesWithoutVtt_then_notTreatThemAsManual() throws IOException {
+        YtDlpListSubsParser ytDlpListSubsParser = new YtDlpListSubsParser();
+
+        AvailableSubtitles result = ytDlpListSubsParser.parse(new BufferedReader(new StringReader(LIST_SUBS_OUTPUT)));
+
+        assertFalse(result.isManual("ru"));
+        assertTrue(result.isManual("en-GB"));
+    }
+
+    @Test
+    void when_parse_withConfiguredLanguages_then_collectOnlyThem() throws IOException {
+        YtDlpListSubsParser ytDlpListSubsParser = new YtDlpListSubsParser(SubtitlesLang.listOf("de,en-GB"));
+
+        AvailableSubtitles result = ytDlpListSubsParser.parse(new BufferedReader(new StringReader(LIST_SUBS_OUTPUT)));
+
+        assertThat(result.automaticLanguages(), containsInAnyOrder("de"));
+        assertThat(result.manualLanguages(), containsInAnyOrder("en-GB"));
+    }
+}
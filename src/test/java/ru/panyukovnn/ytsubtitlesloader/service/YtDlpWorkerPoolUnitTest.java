@@ -0,0 +1,138 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.panyukovnn.ytsubtitlesloader.config.YtDlpWorkerPoolProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Пул проверяется на фейковом yt-dlp, который, как и настоящий, тратит ~300 мс на запуск
+ */
+class YtDlpWorkerPoolUnitTest {
+
+    private static final List<String> ARGUMENTS = List.of("--list-subs", "https://youtu.be/dQw4w9WgXcQ");
+
+    @TempDir
+    private Path tempDir;
+
+    private Path fakeYtDlp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fakeYtDlp = tempDir.resolve("fake-yt-dlp.sh");
+        Files.copy(Path.of(getClass().getResource("/fake-yt-dlp.sh").toURI()), fakeYtDlp);
+        fakeYtDlp.toFile().setExecutable(true);
+    }
+
+    @Test
+    void when_execute_withWarmWorker_then_returnStdoutStderrAndExitCode() throws Exception {
+        try (YtDlpWorkerPool pool = new YtDlpWorkerPool(properties(1, 100))) {
+            YtDlpExecutionResult result = pool.execute(ARGUMENTS);
+
+            assertThat(result.exitCode(), equalTo(0));
+            assertThat(result.stdout(), containsString("--list-subs https://youtu.be/dQw4w9WgXcQ"));
+            assertThat(result.stderr(), containsString("fake warning"));
+        }
+    }
+
+    @Test
+    void when_execute_afterMaxJobsPerWorker_then_recycleWorker() throws Exception {
+        try (YtDlpWorkerPool pool = new YtDlpWorkerPool(properties(1, 2))) {
+            String firstPid = pid(pool.execute(ARGUMENTS));
+            String secondPid = pid(pool.execute(ARGUMENTS));
+            String thirdPid = pid(pool.execute(ARGUMENTS));
+
+            assertThat(secondPid, equalTo(firstPid));
+            assertThat(thirdPid, not(equalTo(firstPid)));
+        }
+    }
+
+    @Test
+    void when_execute_withKilledWorker_then_replaceWorker() throws Exception {
+        try (YtDlpWorkerPool pool = new YtDlpWorkerPool(properties(1, 100))) {
+            String firstPid = pid(pool.execute(ARGUMENTS));
+            ProcessHandle.of(Long.parseLong(firstPid)).ifPresent(process -> {
+                process.destroyForcibly();
+                process.onExit().join();
+            });
+
+            YtDlpExecutionResult result = pool.execute(ARGUMENTS);
+
+            assertThat(result.exitCode(), equalTo(0));
+            assertThat(pid(result), not(equalTo(firstPid)));
+        }
+    }
+
+    @Test
+    void when_execute_withWorkerHungMidLine_then_failAfterJobTimeout() throws Exception {
+        try (YtDlpWorkerPool pool = new YtDlpWorkerPool(properties(1, 100, Duration.ofMillis(500)))) {
+            long start = System.nanoTime();
+
+            IOException e = assertThrows(IOException.class, () -> pool.execute(List.of("--partial-line")));
+
+            assertThat(e.getMessage(), containsString("не ответил"));
+            assertThat(System.nanoTime() - start, lessThan(Duration.ofSeconds(5).toNanos()));
+        }
+    }
+
+    /**
+     * Выигрыш в задержке измеряет {@code YtDlpWorkerPoolBenchmark}, здесь проверяется только, что процесс переиспользуется
+     */
+    @Test
+    void when_execute_withWarmPool_then_reuseSameWorkerProcess() throws Exception {
+        ProcessYtDlpExecutor processExecutor = new ProcessYtDlpExecutor(new YtDlpProcessBuilderCreator(fakeYtDlp));
+
+        try (YtDlpWorkerPool pool = new YtDlpWorkerPool(properties(1, 100))) {
+            Set<String> pooledPids = new HashSet<>();
+            Set<String> processPids = new HashSet<>();
+
+            for (int i = 0; i < 3; i++) {
+                pooledPids.add(pid(pool.execute(ARGUMENTS)));
+                processPids.add(pid(processExecutor.execute(ARGUMENTS)));
+            }
+
+            assertThat(pooledPids, hasSize(1));
+            assertThat(processPids, hasSize(3));
+        }
+    }
+
+    private YtDlpWorkerPoolProperties properties(int size, int maxJobsPerWorker) {
+        return properties(size, maxJobsPerWorker, Duration.ofSeconds(10));
+    }
+
+    private YtDlpWorkerPoolProperties properties(int size, int maxJobsPerWorker, Duration jobTimeout) {
+        return new YtDlpWorkerPoolProperties(
+            List.of("bash", fakeYtDlp.toString(), "--worker"),
+            size,
+            maxJobsPerWorker,
+            Duration.ofMillis(200),
+            Duration.ofSeconds(2),
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(10),
+            jobTimeout
+        );
+    }
+
+    private static String pid(YtDlpExecutionResult result) {
+        String stdout = result.stdout();
+        int start = stdout.indexOf("pid=") + 4;
+
+        return stdout.substring(start, stdout.indexOf(' ', start));
+    }
+}
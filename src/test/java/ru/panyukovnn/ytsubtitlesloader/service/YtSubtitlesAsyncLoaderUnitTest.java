@@ -0,0 +1,65 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class YtSubtitlesAsyncLoaderUnitTest {
+
+    @Test
+    void when_loadAsync_withFastLoad_then_completeWithSubtitles() throws Exception {
+        YtSubtitlesLoader loader = link -> new YtSubtitles(link, null, SubtitlesLang.RU, "текст");
+
+        YtSubtitles subtitles = loader.loadAsync("link", Instant.now().plusSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        assertThat(subtitles.subtitles(), equalTo("текст"));
+    }
+
+    @Test
+    void when_loadAsync_withDeadlineExceeded_then_timeoutAndInterruptLoad() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        YtSubtitlesLoader loader = hangingLoader(interrupted);
+
+        CompletableFuture<YtSubtitles> future = loader.loadAsync("link", Instant.now().plus(Duration.ofMillis(100)));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), equalTo(true));
+    }
+
+    @Test
+    void when_loadAsync_cancelled_then_interruptLoad() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        YtSubtitlesLoader loader = hangingLoader(interrupted);
+
+        CompletableFuture<YtSubtitles> future = loader.loadAsync("link", Instant.now().plusSeconds(60));
+        future.cancel(true);
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), equalTo(true));
+    }
+
+    private static YtSubtitlesLoader hangingLoader(CountDownLatch interrupted) {
+        return link -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+
+            return null;
+        };
+    }
+}
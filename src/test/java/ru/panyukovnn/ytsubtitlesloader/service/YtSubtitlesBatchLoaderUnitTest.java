@@ -0,0 +1,120 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesResult;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class YtSubtitlesBatchLoaderUnitTest {
+
+    @Nested
+    class LoadAllMethod {
+
+        @Test
+        void when_loadAll_withFailingLink_then_returnErrorOnlyForThatLink() {
+            YtSubtitlesLoader loader = link -> {
+                if (link.equals("bad")) {
+                    throw new YtLoadingException("824c", "Невалидная ссылка");
+                }
+                if (link.equals("broken")) {
+                    throw new IllegalStateException("boom");
+                }
+
+                return subtitles(link);
+            };
+
+            List<String> errorIds;
+            List<String> loaded;
+            try (Stream<YtSubtitlesResult> results = loader.loadAll(List.of("a", "bad", "b", "broken"))) {
+                List<YtSubtitlesResult> all = results.toList();
+                errorIds = all.stream().filter(result -> !result.isSuccess()).map(result -> result.error().getId()).toList();
+                loaded = all.stream().filter(YtSubtitlesResult::isSuccess).map(YtSubtitlesResult::link).toList();
+            }
+
+            assertThat(errorIds, containsInAnyOrder("824c", "63e9"));
+            assertThat(loaded, containsInAnyOrder("a", "b"));
+        }
+
+        @Test
+        void when_loadAll_withErrorThrown_then_returnFailureForThatLink() {
+            YtSubtitlesLoader loader = link -> {
+                if (link.equals("broken")) {
+                    throw new AssertionError("boom");
+                }
+
+                return subtitles(link);
+            };
+
+            List<YtSubtitlesResult> all;
+            try (Stream<YtSubtitlesResult> results = loader.loadAll(List.of("a", "broken", "b"))) {
+                all = results.toList();
+            }
+
+            assertThat(all.size(), equalTo(3));
+            YtSubtitlesResult failure = all.stream().filter(result -> !result.isSuccess()).findFirst().orElseThrow();
+            assertThat(failure.link(), equalTo("broken"));
+            assertThat(failure.error().getId(), equalTo("63e9"));
+        }
+
+        @Test
+        void when_loadAll_withSlowLink_then_returnResultsInCompletionOrder() {
+            YtSubtitlesLoader loader = link -> {
+                sleep(link.equals("slow") ? 300 : 10);
+
+                return subtitles(link);
+            };
+
+            List<String> links;
+            try (Stream<YtSubtitlesResult> results = loader.loadAll(List.of("slow", "fast"), 2)) {
+                links = results.map(YtSubtitlesResult::link).toList();
+            }
+
+            assertThat(links, contains("fast", "slow"));
+        }
+
+        @Test
+        void when_loadAll_withParallelismCap_then_neverExceedIt() {
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger maxActive = new AtomicInteger();
+            YtSubtitlesLoader loader = link -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                sleep(20);
+                active.decrementAndGet();
+
+                return subtitles(link);
+            };
+
+            long count;
+            try (Stream<YtSubtitlesResult> results = loader.loadAll(List.of("1", "2", "3", "4", "5", "6", "7", "8"), 3)) {
+                count = results.count();
+            }
+
+            assertThat(count, equalTo(8L));
+            assertThat(maxActive.get(), lessThanOrEqualTo(3));
+        }
+    }
+
+    private static YtSubtitles subtitles(String link) {
+        return new YtSubtitles(link, "title", SubtitlesLang.RU, "текст");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.config.YtSubtitlesCacheProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitlesInfo;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.TranscriptFormat;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class YtSubtitlesDaemonUnitTest {
+
+    private static final String LINK = "https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=42";
+
+    @Test
+    void when_tryLoad_withRunningDaemon_then_returnDaemonSubtitles() throws Exception {
+        YtSubtitlesLoader loader = link -> new YtSubtitles(link, null, SubtitlesLang.RU, "привет мир & всё такое");
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0)) {
+            Optional<YtSubtitles> result = new YtSubtitlesDaemonClient(daemon.getPort()).tryLoad(LINK);
+
+            assertThat(result, equalTo(Optional.of(new YtSubtitles(LINK, null, SubtitlesLang.RU, "привет мир & всё такое"))));
+        }
+    }
+
+    @Test
+    void when_tryLoad_withFormat_then_writeFormattedSubtitles() throws Exception {
+        YtSubtitlesLoader loader = link -> new YtSubtitles(link, null, SubtitlesLang.RU, "привет \"мир\"");
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            Optional<YtSubtitlesInfo> result = new YtSubtitlesDaemonClient(daemon.getPort())
+                .tryLoad(LINK, TranscriptFormat.JSONL, output);
+
+            assertThat(result, equalTo(Optional.of(new YtSubtitlesInfo(LINK, null, SubtitlesLang.RU))));
+            assertThat(output.toString(StandardCharsets.UTF_8),
+                equalTo("{\"start_ms\":0,\"end_ms\":0,\"text\":\"привет \\\"мир\\\"\"}\n"));
+        }
+    }
+
+    @Test
+    void when_tryLoad_withFormatTwice_then_loadFromCachingLoaderOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        YtSubtitlesLoader delegate = link -> {
+            loads.incrementAndGet();
+            return new YtSubtitles(link, null, SubtitlesLang.RU, "привет мир");
+        };
+        YtSubtitlesLoader loader = new CachingYtSubtitlesLoader(delegate, new YtLinkHelper(), new YtSubtitlesCacheProperties(1000, Duration.ofMinutes(1)));
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0)) {
+            YtSubtitlesDaemonClient client = new YtSubtitlesDaemonClient(daemon.getPort());
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+            client.tryLoad(LINK, TranscriptFormat.PLAIN, first);
+            client.tryLoad(LINK, TranscriptFormat.PLAIN, second);
+
+            assertThat(loads.get(), equalTo(1));
+            assertThat(second.toString(StandardCharsets.UTF_8), equalTo(first.toString(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void when_tryLoad_withLoadingError_then_throwErrorWithDaemonId() throws Exception {
+        YtSubtitlesLoader loader = link -> {
+            throw new YtLoadingException("48ae", "Не удалось найти подходящие субтитры (vtt) для указанного видео");
+        };
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0)) {
+            YtSubtitlesDaemonClient client = new YtSubtitlesDaemonClient(daemon.getPort());
+
+            YtLoadingException e = assertThrows(YtLoadingException.class, () -> client.tryLoad(LINK));
+
+            assertThat(e.getId(), equalTo("48ae"));
+            assertThat(e.getMessage(), equalTo("Не удалось найти подходящие субтитры (vtt) для указанного видео"));
+        }
+    }
+
+    @Test
+    void when_tryLoad_withStoppedDaemon_then_returnEmpty() throws Exception {
+        int port;
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(link -> null, 0)) {
+            port = daemon.getPort();
+        }
+
+        Optional<YtSubtitles> result = new YtSubtitlesDaemonClient(port).tryLoad(LINK);
+
+        assertThat(result, equalTo(Optional.empty()));
+    }
+
+    @Test
+    void when_getMetrics_afterLoadingError_then_countErrorId() throws Exception {
+        YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+        YtSubtitlesLoader loader = link -> {
+            metrics.recordError("48ae");
+            throw new YtLoadingException("48ae", "Не удалось найти подходящие субтитры (vtt) для указанного видео");
+        };
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0, metrics)) {
+            assertThrows(YtLoadingException.class, () -> new YtSubtitlesDaemonClient(daemon.getPort()).tryLoad(LINK));
+
+            HttpURLConnection connection = (HttpURLConnection) URI.create("http://127.0.0.1:" + daemon.getPort() + "/metrics")
+                .toURL().openConnection();
+
+            assertThat(connection.getResponseCode(), equalTo(200));
+            assertThat(connection.getHeaderField("Content-Type"), equalTo("text/plain; version=0.0.4; charset=utf-8"));
+            assertThat(new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8),
+                containsString("yt_subtitles_errors_total{id=\"48ae\"} 1\n"));
+        }
+    }
+
+    @Test
+    void when_request_withForeignHost_then_rejectWithoutLoading() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        YtSubtitlesLoader loader = link -> {
+            loads.incrementAndGet();
+            return new YtSubtitles(link, null, SubtitlesLang.RU, "привет");
+        };
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0)) {
+            String response = rawGet(daemon.getPort(), "Host: attacker.example:" + daemon.getPort() + "\r\n");
+
+            assertThat(response, startsWith("HTTP/1.1 403"));
+            assertThat(loads.get(), equalTo(0));
+        }
+    }
+
+    @Test
+    void when_request_withOrigin_then_rejectWithoutLoading() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        YtSubtitlesLoader loader = link -> {
+            loads.incrementAndGet();
+            return new YtSubtitles(link, null, SubtitlesLang.RU, "привет");
+        };
+
+        try (YtSubtitlesDaemon daemon = new YtSubtitlesDaemon(loader, 0)) {
+            String response = rawGet(daemon.getPort(), "Host: localhost:" + daemon.getPort() + "\r\nOrigin: https://attacker.example\r\n");
+
+            assertThat(response, startsWith("HTTP/1.1 403"));
+            assertThat(loads.get(), equalTo(0));
+        }
+    }
+
+    /**
+     * HttpURLConnection не даёт подменить Host, поэтому запрос пишется в сокет как есть
+     */
+    private static String rawGet(int port, String headers) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream request = socket.getOutputStream();
+            request.write(("GET /subtitles?url=dQw4w9WgXcQ HTTP/1.1\r\n" + headers + "Connection: close\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+            request.flush();
+
+            InputStream response = socket.getInputStream();
+            return new String(response.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
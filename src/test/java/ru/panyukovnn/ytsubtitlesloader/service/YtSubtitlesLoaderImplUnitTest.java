@@ -0,0 +1,276 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.panyukovnn.ytsubtitlesloader.config.TempFilesProperties;
+import ru.panyukovnn.ytsubtitlesloader.config.TranscriptStoreProperties;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+import ru.panyukovnn.ytsubtitlesloader.exception.YtLoadingException;
+import ru.panyukovnn.ytsubtitlesloader.util.YtLinkHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class YtSubtitlesLoaderImplUnitTest {
+
+    private static final String LINK = "https://youtu.be/dQw4w9WgXcQ";
+
+    private static final String LIST_SUBS_OUTPUT = """
+        [info] Available automatic captions for dQw4w9WgXcQ:
+        Language Name                     Formats
+        de       German                   vtt, ttml
+        en       English                  vtt, ttml
+        ru       Russian from English     vtt, ttml
+        [info] Available subtitles for dQw4w9WgXcQ:
+        Language Name                     Formats
+        en-GB    English (United Kingdom) vtt, ttml
+        ru       Russian                  vtt, ttml
+        """;
+
+    private static final Map<String, String> FILES = Map.of(
+        "de", vtt("de", "hallo welt"),
+        "en", vtt("en", "hello world"),
+        "en-GB", vtt("en-GB", "hello mate"),
+        "ru", vtt("ru", "привет мир")
+    );
+
+    /**
+     * Автоматические субтитры с кодом ручных: yt-dlp пишет их в файл, только если не просить ручные
+     */
+    private static final Map<String, String> AUTO_FILES = Map.of(
+        "ru", vtt("ru", "привет мир из английского")
+    );
+
+    @TempDir
+    private Path tempDir;
+
+    private final List<List<String>> executions = new ArrayList<>();
+    private final YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+
+    /**
+     * Дорожки, которые первые {@link #failedRuns} запусков не скачивают, как при ошибке загрузки отдельной дорожки
+     */
+    private Set<String> failedTracks = Set.of();
+    private int failedRuns = 1;
+
+    /**
+     * Последняя строка файла с заголовком отбрасывается очисткой, как повтор в конце файлов YouTube
+     */
+    private static String vtt(String lang, String text) {
+        return "WEBVTT\nKind: captions\nLanguage: " + lang + "\n\n"
+            + "00:00:01.000 --> 00:00:02.000\n" + text + "\n\n"
+            + "00:00:02.000 --> 00:00:02.010\n" + text + "\n";
+    }
+
+    /**
+     * Вместо yt-dlp пишет файлы субтитров по шаблону из аргумента {@code -o} и печатает список субтитров
+     */
+    private YtDlpExecutor fakeYtDlp() {
+        return arguments -> {
+            executions.add(arguments);
+            boolean failingRun = executions.size() <= failedRuns;
+
+            Path template = Path.of(arguments.get(arguments.indexOf("-o") + 1));
+            Map<String, String> files = arguments.contains("--write-subs") ? FILES : AUTO_FILES;
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                if (failingRun && failedTracks.contains(file.getKey())) {
+                    continue;
+                }
+                Files.writeString(template.resolveSibling(template.getFileName() + "." + file.getKey() + ".vtt"), file.getValue());
+            }
+
+            return new YtDlpExecutionResult(failingRun && !failedTracks.isEmpty() ? 1 : 0, LIST_SUBS_OUTPUT, "");
+        };
+    }
+
+    private YtSubtitlesLoaderImpl loader(String languages) {
+        return loader(languages, null);
+    }
+
+    private YtSubtitlesLoaderImpl loader(String languages, DiskTranscriptStore transcriptStore) {
+        return new YtSubtitlesLoaderImpl(
+            new YtLinkHelper(),
+            new YtDlpProcessBuilderCreator(Path.of("yt-dlp")),
+            fakeYtDlp(),
+            transcriptStore,
+            new TempFilesJanitor(TempFilesProperties.of(tempDir)),
+            SubtitlesLang.listOf(languages),
+            metrics
+        );
+    }
+
+    @Test
+    void when_load_withAutomaticSubtitlesOfPreferredLanguage_then_preferLanguageOverManualSubtitles() {
+        try (YtSubtitlesLoaderImpl loader = loader("de,ru")) {
+            YtSubtitles subtitles = loader.load(LINK);
+
+            assertThat(subtitles.lang(), equalTo(SubtitlesLang.of("de")));
+            assertThat(subtitles.subtitles(), equalTo("hallo welt"));
+        }
+    }
+
+    @Test
+    void when_load_withConfiguredLanguages_then_requestOnlyThemFromYtDlp() {
+        try (YtSubtitlesLoaderImpl loader = loader("en-GB,ru")) {
+            loader.load(LINK);
+
+            List<String> arguments = executions.get(0);
+            assertThat(arguments.get(arguments.indexOf("--sub-langs") + 1), equalTo("en-GB,en-GB-.*,ru,ru-.*"));
+        }
+    }
+
+    @Test
+    void when_load_withoutMatchingLanguages_then_throwNotFound() {
+        try (YtSubtitlesLoaderImpl loader = loader("fr")) {
+            YtLoadingException e = assertThrows(YtLoadingException.class, () -> loader.load(LINK));
+
+            assertThat(e.getId(), equalTo("48ae"));
+        }
+    }
+
+    @Test
+    void when_load_then_recordPhasesAndErrorsInMetrics() {
+        try (YtSubtitlesLoaderImpl loader = loader("ru")) {
+            loader.load(LINK);
+            assertThrows(YtLoadingException.class, () -> loader.load("https://example.com/video"));
+
+            assertThat(metrics.getLoads(), equalTo(2L));
+            assertThat(metrics.getActiveLoads(), equalTo(0L));
+            assertThat(metrics.getErrorCounts(), equalTo(Map.of("824c", 1L)));
+            assertThat(metrics.getPhaseCounts().get("list_subs_parse"), equalTo(1L));
+            assertThat(metrics.getPhaseCounts().get("subtitles_clean"), equalTo(1L));
+            assertThat(metrics.getTranscriptChars(), equalTo((long) "привет мир".length()));
+            assertThat(metrics.getSubtitleFileBytes() > 0, equalTo(true));
+        }
+    }
+
+    @Test
+    void when_loadLanguages_withSeveralLanguages_then_returnThemFromSingleYtDlpRun() {
+        try (YtSubtitlesLoaderImpl loader = loader("ru,fr,en,de")) {
+            List<YtSubtitles> subtitles = loader.loadLanguages(LINK, 2);
+
+            assertThat(executions.size(), equalTo(1));
+            assertThat(subtitles.size(), equalTo(2));
+            assertThat(subtitles.get(0).lang(), equalTo(SubtitlesLang.RU));
+            assertThat(subtitles.get(0).subtitles(), equalTo("привет мир"));
+            // Ручные en-GB важнее автоматических en
+            assertThat(subtitles.get(1).lang(), equalTo(SubtitlesLang.EN));
+            assertThat(subtitles.get(1).subtitles(), equalTo("hello mate"));
+            assertThat(subtitles.get(1).cues().text(0), equalTo("hello mate"));
+        }
+    }
+
+    @Test
+    void when_loadLanguages_withOverlappingTags_then_notReuseSameFile() {
+        try (YtSubtitlesLoaderImpl loader = loader("en-GB,en")) {
+            List<YtSubtitles> subtitles = loader.loadLanguages(LINK, 5);
+
+            assertThat(subtitles.size(), equalTo(2));
+            assertThat(subtitles.get(0).subtitles(), equalTo("hello mate"));
+            assertThat(subtitles.get(1).subtitles(), equalTo("hello world"));
+        }
+    }
+
+    @Test
+    void when_loadLanguages_withNonPositiveCount_then_throwException() throws IOException {
+        try (YtSubtitlesLoaderImpl loader = loader("ru")) {
+            assertThrows(IllegalArgumentException.class, () -> loader.loadLanguages(LINK, 0));
+        }
+    }
+
+    @Test
+    void when_load_withFailedDownloadOfBestCandidate_then_takeNextCandidateWithoutExtraRun() {
+        failedTracks = Set.of("ru");
+
+        try (YtSubtitlesLoaderImpl loader = loader("ru,en")) {
+            YtSubtitles subtitles = loader.load(LINK);
+
+            // ru auto пишется в тот же файл, что и ru manual, и без докачки недоступен: выбирается уже скачанный en-GB
+            assertThat(executions.size(), equalTo(1));
+            assertThat(subtitles.lang(), equalTo(SubtitlesLang.EN));
+            assertThat(subtitles.subtitles(), equalTo("hello mate"));
+        }
+    }
+
+    @Test
+    void when_loadLanguages_withFailedDownloadOfNeededLanguage_then_downloadOnlyItWithoutListing() {
+        failedTracks = Set.of("ru");
+
+        try (YtSubtitlesLoaderImpl loader = loader("ru,en")) {
+            List<YtSubtitles> subtitles = loader.loadLanguages(LINK, 2);
+
+            assertThat(executions.size(), equalTo(2));
+            List<String> retryArguments = executions.get(1);
+            assertThat(retryArguments.contains("--list-subs"), equalTo(false));
+            assertThat(retryArguments.get(retryArguments.indexOf("--sub-langs") + 1), equalTo("ru"));
+
+            assertThat(subtitles.get(0).lang(), equalTo(SubtitlesLang.RU));
+            assertThat(subtitles.get(0).subtitles(), equalTo("привет мир"));
+            assertThat(subtitles.get(1).lang(), equalTo(SubtitlesLang.EN));
+        }
+    }
+
+    @Test
+    void when_loadLanguages_withManualSubtitlesFailedTwice_then_downloadAutomaticWithSameCode() {
+        failedTracks = Set.of("ru");
+        failedRuns = 2;
+
+        try (YtSubtitlesLoaderImpl loader = loader("ru,en")) {
+            List<YtSubtitles> subtitles = loader.loadLanguages(LINK, 2);
+
+            assertThat(executions.size(), equalTo(3));
+            List<String> autoArguments = executions.get(2);
+            assertThat(autoArguments.contains("--write-auto-subs"), equalTo(true));
+            assertThat(autoArguments.contains("--write-subs"), equalTo(false));
+            assertThat(autoArguments.get(autoArguments.indexOf("--sub-langs") + 1), equalTo("ru"));
+
+            assertThat(subtitles.get(0).lang(), equalTo(SubtitlesLang.RU));
+            assertThat(subtitles.get(0).subtitles(), equalTo("привет мир из английского"));
+            assertThat(subtitles.get(1).lang(), equalTo(SubtitlesLang.EN));
+        }
+    }
+
+    @Test
+    void when_load_withStoredLanguageAndHigherPriorityUnavailable_then_takeItFromStore() {
+        DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir.resolve("store")));
+
+        try (YtSubtitlesLoaderImpl loader = loader("fr,ru", store)) {
+            loader.load(LINK);
+            YtSubtitles subtitles = loader.load(LINK);
+
+            // fr нет в сохранённом списке субтитров видео, поэтому ru из хранилища — лучшее, что есть
+            assertThat(executions.size(), equalTo(1));
+            assertThat(subtitles.lang(), equalTo(SubtitlesLang.RU));
+            assertThat(subtitles.subtitles(), equalTo("привет мир"));
+        }
+    }
+
+    @Test
+    void when_load_withStoredLanguageAndHigherPriorityListed_then_downloadAgain() {
+        DiskTranscriptStore store = new DiskTranscriptStore(TranscriptStoreProperties.of(tempDir.resolve("store")));
+        failedTracks = Set.of("ru");
+        failedRuns = Integer.MAX_VALUE;
+
+        try (YtSubtitlesLoaderImpl loader = loader("ru,en", store)) {
+            assertThat(loader.load(LINK).lang(), equalTo(SubtitlesLang.EN));
+
+            failedTracks = Set.of();
+            YtSubtitles subtitles = loader.load(LINK);
+
+            // ru есть в списке субтитров видео, поэтому сохранённые en не подменяют их
+            assertThat(executions.size(), equalTo(2));
+            assertThat(subtitles.lang(), equalTo(SubtitlesLang.RU));
+            assertThat(subtitles.subtitles(), equalTo("привет мир"));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.panyukovnn.ytsubtitlesloader.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+class YtSubtitlesMetricsUnitTest {
+
+    @Test
+    void when_writePrometheus_withRecordedPhase_then_writeCumulativeBuckets() throws Exception {
+        YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+        metrics.record(YtSubtitlesMetrics.Phase.LIST_SUBS_PARSE, System.nanoTime());
+        metrics.record(YtSubtitlesMetrics.Phase.LIST_SUBS_PARSE, System.nanoTime() - 3_000_000_000L);
+
+        StringBuilder text = new StringBuilder();
+        metrics.writePrometheus(text);
+
+        assertThat(text.toString(), containsString("yt_subtitles_phase_duration_seconds_bucket{phase=\"list_subs_parse\",le=\"0.001\"} 1\n"));
+        assertThat(text.toString(), containsString("yt_subtitles_phase_duration_seconds_bucket{phase=\"list_subs_parse\",le=\"2.5\"} 1\n"));
+        assertThat(text.toString(), containsString("yt_subtitles_phase_duration_seconds_bucket{phase=\"list_subs_parse\",le=\"5.0\"} 2\n"));
+        assertThat(text.toString(), containsString("yt_subtitles_phase_duration_seconds_bucket{phase=\"list_subs_parse\",le=\"+Inf\"} 2\n"));
+        assertThat(text.toString(), containsString("yt_subtitles_phase_duration_seconds_count{phase=\"list_subs_parse\"} 2\n"));
+        assertThat(text.toString(), containsString("yt_subtitles_phase_duration_seconds_count{phase=\"yt_dlp_run\"} 0\n"));
+    }
+
+    @Test
+    void when_recordError_withSeveralIds_then_countEachId() throws Exception {
+        YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+        metrics.recordError("48ae");
+        metrics.recordError("824c");
+        metrics.recordError("48ae");
+
+        StringBuilder text = new StringBuilder();
+        metrics.writePrometheus(text);
+
+        assertThat(metrics.getErrorCounts(), equalTo(Map.of("48ae", 2L, "824c", 1L)));
+        assertThat(text.toString(), containsString("yt_subtitles_errors_total{id=\"48ae\"} 2\n"));
+    }
+
+    @Test
+    void when_loadFinished_then_decrementActiveLoads() {
+        YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+
+        metrics.loadStarted();
+        metrics.loadStarted();
+        metrics.loadFinished(System.nanoTime());
+
+        assertThat(metrics.getLoads(), equalTo(2L));
+        assertThat(metrics.getActiveLoads(), equalTo(1L));
+        assertThat(metrics.getPhaseCounts().get("total"), equalTo(1L));
+    }
+
+    @Test
+    void when_registerMBean_then_exposeAttributesUntilClosed() throws Exception {
+        YtSubtitlesMetrics metrics = new YtSubtitlesMetrics();
+        metrics.ytDlpProcessStarted();
+
+        ObjectName objectName = metrics.registerMBean("unit-test");
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "ActiveYtDlpProcesses"), equalTo(1L));
+
+        metrics.close();
+
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), equalTo(false));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class RollingCaptionDeduplicatorUnitTest {
+
+    @Test
+    void when_accept_withRollingAutoCaptions_then_emitEachWordOnce() {
+        RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator();
+        List<String> lines = List.of(
+            "so today we're going",
+            "so today we're going",
+            "so today we're going",
+            "to talk about garbage",
+            "to talk about garbage",
+            "to talk about garbage",
+            "collection in the jvm"
+        );
+
+        String result = acceptAll(deduplicator, lines);
+
+        assertThat(result, equalTo("so today we're going to talk about garbage collection in the jvm"));
+    }
+
+    @Test
+    void when_accept_withPartialOverlap_then_emitOnlyNewWords() {
+        RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator();
+
+        deduplicator.accept("one two three four");
+        String result = deduplicator.accept("three four five six");
+
+        assertThat(result, equalTo("five six"));
+    }
+
+    @Test
+    void when_accept_withSingleWordPartialOverlap_then_keepRepeatedWord() {
+        RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator();
+
+        deduplicator.accept("я сказал да");
+        String result = deduplicator.accept("да и ушёл");
+
+        assertThat(result, equalTo("да и ушёл"));
+    }
+
+    @Test
+    void when_accept_withOverlapLongerThanWindow_then_matchOnlyWithinWindow() {
+        RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator(2);
+
+        deduplicator.accept("a b c d");
+        String result = deduplicator.accept("c d e");
+
+        assertThat(result, equalTo("e"));
+    }
+
+    @Test
+    void when_accept_withBlankLine_then_returnEmptyString() {
+        RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator();
+
+        String result = deduplicator.accept("   ");
+
+        assertThat(result, equalTo(""));
+    }
+
+    private static String acceptAll(RollingCaptionDeduplicator deduplicator, List<String> lines) {
+        List<String> result = new ArrayList<>();
+        for (String line : lines) {
+            String newWords = deduplicator.accept(line);
+            if (!newWords.isEmpty()) {
+                result.add(newWords);
+            }
+        }
+
+        return String.join(" ", result);
+    }
+}
@@ -0,0 +1,162 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitleCues;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitlesLang;
+import ru.panyukovnn.ytsubtitlesloader.dto.YtSubtitles;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class TranscriptFormatUnitTest {
+
+    private static final String TEXT = "раз два \"три\" 😀";
+
+    /**
+     * «раз» 0–1000, «два "три"» 1000–2500 из двух частей, «😀» 3661001–3662000
+     */
+    private static YtSubtitles subtitles() {
+        SubtitleCues cues = new SubtitleCues.Builder()
+            .append(0, 1000, 0, 3)
+            .append(1000, 2500, 4, 7)
+            .append(1000, 2500, 8, 13)
+            .append(3_661_001, 3_662_000, 14, 16)
+            .build(TEXT);
+
+        return new YtSubtitles("https://www.youtube.com/watch?v=dQw4w9WgXcQ", null, SubtitlesLang.RU, TEXT, cues);
+    }
+
+    private static String write(TranscriptFormat format, YtSubtitles subtitles) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        format.write(subtitles, output);
+
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    class WriteMethod {
+
+        @Test
+        void when_write_withPlain_then_returnTextWithNewLine() throws IOException {
+            assertThat(write(TranscriptFormat.PLAIN, subtitles()), equalTo(TEXT + "\n"));
+        }
+
+        @Test
+        void when_write_withTimestamped_then_returnCuePerLine() throws IOException {
+            assertThat(write(TranscriptFormat.TIMESTAMPED, subtitles()), equalTo("""
+                [00:00:00.000] раз
+                [00:00:01.000] два "три"
+                [01:01:01.001] 😀
+                """));
+        }
+
+        @Test
+        void when_write_withSrt_then_returnNumberedCues() throws IOException {
+            assertThat(write(TranscriptFormat.SRT, subtitles()), equalTo("""
+                1
+                00:00:00,000 --> 00:00:01,000
+                раз
+
+                2
+                00:00:01,000 --> 00:00:02,500
+                два "три"
+
+                3
+                01:01:01,001 --> 01:01:02,000
+                😀
+                """));
+        }
+
+        @Test
+        void when_write_withJsonl_then_returnEscapedObjectPerLine() throws IOException {
+            assertThat(write(TranscriptFormat.JSONL, subtitles()), equalTo("""
+                {"start_ms":0,"end_ms":1000,"text":"раз"}
+                {"start_ms":1000,"end_ms":2500,"text":"два \\"три\\""}
+                {"start_ms":3661001,"end_ms":3662000,"text":"😀"}
+                """));
+        }
+
+        @Test
+        void when_write_withControlCharsInJsonl_then_escapeThem() throws IOException {
+            String text = "a\\b\tc\u0001";
+            YtSubtitles subtitles = new YtSubtitles("link", null, SubtitlesLang.EN, text);
+
+            assertThat(write(TranscriptFormat.JSONL, subtitles),
+                equalTo("{\"start_ms\":0,\"end_ms\":0,\"text\":\"a\\\\b\\tc\\u0001\"}\n"));
+        }
+
+        @Test
+        void when_write_withoutCues_then_writeTextAsSingleCue() throws IOException {
+            YtSubtitles subtitles = new YtSubtitles("link", null, SubtitlesLang.EN, "hello world");
+
+            assertThat(write(TranscriptFormat.TIMESTAMPED, subtitles), equalTo("[00:00:00.000] hello world\n"));
+        }
+
+        @Test
+        void when_write_withEmptyText_then_writeNothing() throws IOException {
+            YtSubtitles subtitles = new YtSubtitles("link", null, SubtitlesLang.EN, "");
+
+            for (TranscriptFormat format : TranscriptFormat.values()) {
+                assertThat(write(format, subtitles), equalTo(""));
+            }
+        }
+
+        @Test
+        void when_write_withLoneSurrogate_then_replaceWithQuestionMark() throws IOException {
+            YtSubtitles subtitles = new YtSubtitles("link", null, SubtitlesLang.EN, "a\uD83Db");
+
+            assertThat(write(TranscriptFormat.PLAIN, subtitles), equalTo("a?b\n"));
+        }
+
+        @Test
+        void when_write_withTextLongerThanBuffer_then_encodeLikeStringGetBytes() throws IOException {
+            String text = "пример текста 😀 ".repeat(2_000).trim();
+            YtSubtitles subtitles = new YtSubtitles("link", null, SubtitlesLang.RU, text);
+
+            assertThat(write(TranscriptFormat.PLAIN, subtitles), equalTo(text + "\n"));
+        }
+    }
+
+    @Nested
+    class NewEncoderMethod {
+
+        @Test
+        void when_assembleVtt_withEncoder_then_matchCuesOfAssembledText() throws IOException {
+            String vtt = """
+                WEBVTT
+                Kind: captions
+                Language: ru
+
+                00:00:01.000 --> 00:00:02.500 align:start position:0%
+                первая строка
+
+                00:00:02.500 --> 00:00:04.000
+                вторая
+                строка
+
+                00:00:04.000 --> 00:00:05.000
+                конец
+                """;
+
+            SubtitleCues.Builder builder = new SubtitleCues.Builder();
+            String text = new VttTextAssembler(false, new StringBuilder(), builder).assemble(new BufferedReader(new StringReader(vtt)));
+            YtSubtitles assembled = new YtSubtitles("link", null, SubtitlesLang.RU, text, builder.build(text));
+
+            for (TranscriptFormat format : TranscriptFormat.values()) {
+                ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+                TranscriptEncoder encoder = format.newEncoder(streamed);
+                new VttTextAssembler(false, encoder).write(new BufferedReader(new StringReader(vtt)));
+                encoder.finish();
+
+                assertThat(streamed.toString(StandardCharsets.UTF_8), equalTo(write(format, assembled)));
+            }
+        }
+    }
+}
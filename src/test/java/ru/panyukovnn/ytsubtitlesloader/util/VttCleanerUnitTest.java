@@ -0,0 +1,151 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+class VttCleanerUnitTest {
+
+    @Nested
+    class CleanLineMethod {
+
+        @Test
+        void when_cleanLine_withAutoCaptionLine_then_removeTagsAndTimestamps() {
+            VttCleaner vttCleaner = new VttCleaner();
+            String line = "so<00:00:01.199><c> today</c><00:00:01.439><c> we're</c><00:00:01.680><c> going</c>";
+
+            String result = vttCleaner.cleanLine(line);
+
+            assertThat(result, equalTo("so today we're going"));
+        }
+
+        @Test
+        void when_cleanLine_withCueTimingLine_then_returnEmptyString() {
+            VttCleaner vttCleaner = new VttCleaner();
+            String line = "00:00:00.960 --> 00:00:03.270 align:start position:0%";
+
+            String result = vttCleaner.cleanLine(line);
+
+            assertThat(result, equalTo(""));
+        }
+
+        @Test
+        void when_cleanLine_withAlignSettingsInText_then_removeSettingsAndCollapseSpaces() {
+            VttCleaner vttCleaner = new VttCleaner();
+            String line = "hello  align:start position:10%   world";
+
+            String result = vttCleaner.cleanLine(line);
+
+            assertThat(result, equalTo("hello world"));
+        }
+
+        @Test
+        void when_cleanLine_withControlCharacters_then_removeThemButKeepTab() {
+            VttCleaner vttCleaner = new VttCleaner();
+            String line = "a\u0001b\u007Fc\td";
+
+            String result = vttCleaner.cleanLine(line);
+
+            assertThat(result, equalTo("abc\td"));
+        }
+
+        @Test
+        void when_cleanLine_withTimestampSplitByTag_then_removeGluedTimestamp() {
+            VttCleaner vttCleaner = new VttCleaner();
+            String line = "x 00:00:<b>01.000 y";
+
+            String result = vttCleaner.cleanLine(line);
+
+            assertThat(result, equalTo("x y"));
+        }
+
+        @Test
+        void when_cleanLine_withEmptyAngleBrackets_then_keepThem() {
+            VttCleaner vttCleaner = new VttCleaner();
+            String line = "a <> b <unclosed";
+
+            String result = vttCleaner.cleanLine(line);
+
+            assertThat(result, equalTo("a <> b <unclosed"));
+        }
+
+        @Test
+        void when_cleanLine_withRandomInput_then_matchRegexChain() {
+            VttCleaner vttCleaner = new VttCleaner();
+            Random random = new Random(42);
+            String alphabet = "<>-:.%0123456789 \t\r\u0001\u007F alignpostion_xyzАБ";
+
+            for (int i = 0; i < 20_000; i++) {
+                StringBuilder line = new StringBuilder();
+                int length = random.nextInt(40);
+                for (int j = 0; j < length; j++) {
+                    int fragment = random.nextInt(10);
+                    if (fragment == 0) {
+                        line.append("00:0").append(random.nextInt(10)).append(":1").append(random.nextInt(10)).append(".12");
+                    } else if (fragment == 1) {
+                        line.append("align:start position:").append(random.nextInt(100)).append('%');
+                    } else {
+                        line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                    }
+                }
+
+                assertThat(line.toString(), vttCleaner.cleanLine(line), equalTo(cleanWithRegex(line.toString())));
+            }
+        }
+    }
+
+    @Nested
+    class CleanMethod {
+
+        @Test
+        void when_clean_withWebVttHeader_then_skipMetaLines() {
+            VttCleaner vttCleaner = new VttCleaner();
+            List<String> lines = List.of(
+                "WEBVTT",
+                "Kind: captions",
+                "Language: ru",
+                "",
+                "00:00:00.000 --> 00:00:02.000 align:start position:0%",
+                "первая<00:00:00.500><c> фраза</c>",
+                "",
+                "00:00:02.000 --> 00:00:04.000 align:start position:0%",
+                "вторая фраза",
+                "последняя"
+            );
+
+            List<String> result = vttCleaner.clean(lines);
+
+            assertThat(result, contains("первая фраза", "вторая фраза"));
+        }
+
+        @Test
+        void when_clean_withoutHeader_then_returnAllNonEmptyLines() {
+            VttCleaner vttCleaner = new VttCleaner();
+            List<String> lines = List.of("one", "", "<i>two</i>");
+
+            List<String> result = vttCleaner.clean(lines);
+
+            assertThat(result, contains("one", "two"));
+        }
+    }
+
+    /**
+     * Эталонная цепочка регулярных выражений, которую заменил {@link VttCleaner}
+     */
+    private static String cleanWithRegex(String line) {
+        return line
+            .replaceAll("<[^>]+>", "")
+            .replaceAll("\\d{2}:\\d{2}:\\d{2}\\.\\d{3}", "")
+            .replaceAll("-->.*", "")
+            .replaceAll("align:\\w+ position:\\d+%", "")
+            .replaceAll("[\\p{Cntrl}&&[^\r\n\t]]", "")
+            .replaceAll("\\s{2,}", " ")
+            .trim();
+    }
+}
@@ -0,0 +1,168 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.SubtitleCues;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class VttTextAssemblerUnitTest {
+
+    private static final String MANUAL_VTT = """
+        WEBVTT
+        Kind: captions
+        Language: ru
+
+        00:00:00.000 --> 00:00:02.000
+        первая <i>фраза</i>
+
+        00:00:02.000 --> 00:00:04.000
+        вторая фраза
+
+        00:00:04.000 --> 00:00:06.000
+        третья фраза
+        """;
+
+    private static final String AUTO_VTT = """
+        WEBVTT
+        Kind: captions
+        Language: en
+
+        00:00:00.000 --> 00:00:01.000 align:start position:0%
+        \s
+        so<00:00:00.200><c> today</c><00:00:00.400><c> we</c>
+
+        00:00:01.000 --> 00:00:01.010 align:start position:0%
+        so today we
+        \s
+
+        00:00:01.010 --> 00:00:02.000 align:start position:0%
+        so today we
+        are<00:00:01.200><c> going</c><00:00:01.400><c> home</c>
+
+        00:00:02.000 --> 00:00:02.010 align:start position:0%
+        are going home
+        \s
+        """;
+
+    @Test
+    void when_assemble_withManualSubtitles_then_matchListPipeline() throws Exception {
+        String result = new VttTextAssembler(false).assemble(new BufferedReader(new StringReader(MANUAL_VTT)));
+
+        assertThat(result, equalTo("первая фраза вторая фраза"));
+        assertThat(result, equalTo(listPipeline(MANUAL_VTT, false)));
+    }
+
+    @Test
+    void when_assemble_withAutoSubtitles_then_removeRollingDuplicates() throws Exception {
+        String result = new VttTextAssembler(true).assemble(new BufferedReader(new StringReader(AUTO_VTT)));
+
+        assertThat(result, equalTo(listPipeline(AUTO_VTT, true)));
+    }
+
+    @Test
+    void when_write_withWriter_then_writeSameTextAndReturnLength() throws Exception {
+        StringWriter output = new StringWriter();
+
+        long written = new VttTextAssembler(true, output).write(new BufferedReader(new StringReader(AUTO_VTT)));
+
+        assertThat(output.toString(), equalTo(listPipeline(AUTO_VTT, true)));
+        assertThat(written, equalTo((long) output.toString().length()));
+    }
+
+    @Test
+    void when_write_withCuesBuilder_then_collectCueTimingsOverText() throws Exception {
+        StringBuilder output = new StringBuilder();
+        SubtitleCues.Builder cuesBuilder = new SubtitleCues.Builder();
+
+        new VttTextAssembler(false, output, cuesBuilder).write(new BufferedReader(new StringReader(MANUAL_VTT)));
+        SubtitleCues cues = cuesBuilder.build(output.toString());
+
+        assertThat(cues.size(), equalTo(2));
+        assertThat(cues.text(0), equalTo("первая фраза"));
+        assertThat(cues.startMillis(1), equalTo(2000));
+        assertThat(cues.endMillis(1), equalTo(4000));
+        assertThat(cues.text(1), equalTo("вторая фраза"));
+    }
+
+    @Test
+    void when_write_withAutoSubtitlesAndCues_then_skipDuplicateCues() throws Exception {
+        StringBuilder output = new StringBuilder();
+        SubtitleCues.Builder cuesBuilder = new SubtitleCues.Builder();
+
+        new VttTextAssembler(true, output, cuesBuilder).write(new BufferedReader(new StringReader(AUTO_VTT)));
+        SubtitleCues cues = cuesBuilder.build(output.toString());
+
+        assertThat(cues.size(), equalTo(2));
+        assertThat(cues.text(0), equalTo("so today we"));
+        assertThat(cues.startMillis(1), equalTo(1010));
+        assertThat(cues.text(1), equalTo("are going home"));
+    }
+
+    @Test
+    void when_parseTimestamp_withValidAndInvalidValues_then_returnMillisOrMinusOne() {
+        assertThat(VttTextAssembler.parseTimestamp("01:02:03.456"), equalTo(3_723_456));
+        assertThat(VttTextAssembler.parseTimestamp("02:03.456"), equalTo(123_456));
+        assertThat(VttTextAssembler.parseTimestamp("00:61:00.000"), equalTo(-1));
+        assertThat(VttTextAssembler.parseTimestamp("00:00:00,000"), equalTo(-1));
+        assertThat(VttTextAssembler.parseTimestamp("align:start"), equalTo(-1));
+    }
+
+    @Test
+    void when_assemble_withBlankContent_then_returnEmptyString() throws Exception {
+        String result = new VttTextAssembler(false).assemble(new BufferedReader(new StringReader("\n  \n\n")));
+
+        assertThat(result, equalTo(""));
+    }
+
+    @Test
+    void when_assemble_withRandomDocuments_then_matchListPipeline() throws Exception {
+        Random random = new Random(11);
+        String[] lines = {
+            "", " ", "00:00:01.000 --> 00:00:02.000 align:start position:0%", "раз два три", "два три четыре",
+            "три<00:00:01.500><c> четыре</c><00:00:01.700><c> пять</c>", "да да", "пять", "<i>шесть</i> семь"
+        };
+
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder vtt = new StringBuilder(random.nextBoolean() ? "WEBVTT\nKind: captions\nLanguage: ru\n" : "\n");
+            int lineCount = 6 + random.nextInt(30);
+            for (int j = 0; j < lineCount; j++) {
+                vtt.append(lines[random.nextInt(lines.length)]).append('\n');
+            }
+            vtt.append("финал\n");
+            boolean isAuto = random.nextBoolean();
+
+            String result = new VttTextAssembler(isAuto).assemble(new BufferedReader(new StringReader(vtt.toString())));
+
+            assertThat(vtt.toString(), result, equalTo(listPipeline(vtt.toString(), isAuto)));
+        }
+    }
+
+    /**
+     * Прежняя обработка: файл целиком в строку, разбиение на список, очистка, удаление повторов и склейка
+     */
+    private static String listPipeline(String content, boolean isAuto) {
+        List<String> cleanedLines = new VttCleaner().clean(List.of(content.trim().split("\n")));
+
+        if (isAuto) {
+            RollingCaptionDeduplicator deduplicator = new RollingCaptionDeduplicator();
+            List<String> uniqueLines = new ArrayList<>();
+            for (String line : cleanedLines) {
+                String newWords = deduplicator.accept(line);
+                if (!newWords.isEmpty()) {
+                    uniqueLines.add(newWords);
+                }
+            }
+            cleanedLines = uniqueLines;
+        }
+
+        return String.join(" ", cleanedLines);
+    }
+}
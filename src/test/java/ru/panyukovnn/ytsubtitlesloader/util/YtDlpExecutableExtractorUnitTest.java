@@ -0,0 +1,65 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class YtDlpExecutableExtractorUnitTest {
+
+    private static final String RESOURCE_PATH = "/fake-yt-dlp.sh";
+
+    @TempDir
+    private Path cacheDirectory;
+
+    @Test
+    void when_extractCached_twice_then_reuseExtractedFile() throws Exception {
+        Path extracted = YtDlpExecutableExtractor.extractCached(RESOURCE_PATH, "yt-dlp", cacheDirectory);
+        FileTime extractedTime = FileTime.from(Instant.parse("2024-01-01T00:00:00Z"));
+        Files.setLastModifiedTime(extracted, extractedTime);
+
+        Path reused = YtDlpExecutableExtractor.extractCached(RESOURCE_PATH, "yt-dlp", cacheDirectory);
+
+        assertThat(reused, equalTo(extracted));
+        assertThat(Files.getLastModifiedTime(reused), equalTo(extractedTime));
+        assertThat(Files.isExecutable(reused), equalTo(true));
+        assertThat(Files.readAllBytes(reused), equalTo(resourceBytes()));
+    }
+
+    @Test
+    void when_extractCached_withTruncatedFile_then_extractAgain() throws Exception {
+        Path extracted = YtDlpExecutableExtractor.extractCached(RESOURCE_PATH, "yt-dlp", cacheDirectory);
+        Files.write(extracted, new byte[] {'#', '!'});
+
+        Path repaired = YtDlpExecutableExtractor.extractCached(RESOURCE_PATH, "yt-dlp", cacheDirectory);
+
+        assertThat(Files.readAllBytes(repaired), equalTo(resourceBytes()));
+    }
+
+    @Test
+    void when_extractCached_concurrently_then_allGetCompleteFile() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<Path>> futures = executor.invokeAll(
+                Collections.nCopies(8, () -> YtDlpExecutableExtractor.extractCached(RESOURCE_PATH, "yt-dlp", cacheDirectory)));
+
+            for (Future<Path> future : futures) {
+                assertThat(Files.readAllBytes(future.get()), equalTo(resourceBytes()));
+            }
+        }
+    }
+
+    private byte[] resourceBytes() throws Exception {
+        return Files.readAllBytes(Path.of(getClass().getResource(RESOURCE_PATH).toURI()));
+    }
+}
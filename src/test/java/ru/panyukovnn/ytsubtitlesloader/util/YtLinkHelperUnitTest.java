@@ -440,4 +440,24 @@ class YtLinkHelperUnitTest {
             assertTrue(result);
         }
     }
+
+    @Nested
+    class ExtractVideoIdMethod {
+
+        @Test
+        void when_extractVideoId_withDifferentLinkForms_then_returnSameId() {
+            YtLinkHelper ytLinkHelper = new YtLinkHelper();
+
+            assertThat(ytLinkHelper.extractVideoId("https://www.youtube.com/watch?t=10&v=dQw4w9WgXcQ").orElseThrow().value(), equalTo("dQw4w9WgXcQ"));
+            assertThat(ytLinkHelper.extractVideoId("https://youtu.be/dQw4w9WgXcQ").orElseThrow().value(), equalTo("dQw4w9WgXcQ"));
+            assertThat(ytLinkHelper.extractVideoId("https://m.youtube.com/shorts/dQw4w9WgXcQ").orElseThrow().value(), equalTo("dQw4w9WgXcQ"));
+        }
+
+        @Test
+        void when_extractVideoId_withInvalidLink_then_returnEmpty() {
+            YtLinkHelper ytLinkHelper = new YtLinkHelper();
+
+            assertTrue(ytLinkHelper.extractVideoId("https://vimeo.com/watch?v=dQw4w9WgXcQ").isEmpty());
+        }
+    }
 }
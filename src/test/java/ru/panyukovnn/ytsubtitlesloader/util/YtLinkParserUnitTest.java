@@ -0,0 +1,110 @@
+package ru.panyukovnn.ytsubtitlesloader.util;
+
+import org.junit.jupiter.api.Test;
+import ru.panyukovnn.ytsubtitlesloader.dto.VideoId;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class YtLinkParserUnitTest {
+
+    private static final Pattern VIDEO_ID_PATTERN = Pattern.compile("^[\\w-]{11}$");
+
+    private static final String[] SCHEMES = {"https://", "http://", "HTTPS://", "", "https:/", "https:"};
+    private static final String[] HOSTS = {
+        "youtube.com", "www.youtube.com", "m.youtube.com", "WWW.YouTube.com", "youtu.be", "YOUTU.BE",
+        "fakeyoutube.com", ".youtube.com", "youtube.com.evil.com", "example.com", "a.b.youtube.com", "youtube.com:443"
+    };
+    private static final String[] PATHS = {"/watch", "/watch/", "/watchlater", "/shorts/", "/live/", "/", "", "/embed/", "/shorts//"};
+    private static final String[] IDS = {"dQw4w9WgXcQ", "abc-def_ghi", "abc", "dQw4w9WgXcQX", "", "12345678901", "dQw4w9WgXc%"};
+    private static final String[] TAILS = {"", "&t=10", "/extra", "?t=10", "#comments", "?v=dQw4w9WgXcQ", "&list=PL1", " ", "^", "%20", "&v=abc"};
+
+    @Test
+    void when_findVideoIdStart_withGeneratedLinks_then_matchPreviousUriBasedValidation() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            String path = pick(random, PATHS);
+            String id = pick(random, IDS);
+            String link = pick(random, SCHEMES) + pick(random, HOSTS) + path
+                + (path.startsWith("/watch") || random.nextInt(4) == 0 ? "?" + (random.nextBoolean() ? "t=1&" : "") + "v=" : "")
+                + id + pick(random, TAILS) + pick(random, TAILS);
+
+            Optional<String> expected = extractWithUri(link);
+            Optional<String> actual = YtLinkParser.parse(link).map(VideoId::value);
+
+            assertThat(link, actual, equalTo(expected));
+        }
+    }
+
+    @Test
+    void when_parse_withValidLink_then_returnVideoIdAndCanonicalUrl() {
+        VideoId videoId = YtLinkParser.parse("https://m.youtube.com/watch?t=10&v=dQw4w9WgXcQ&list=PL1#c").orElseThrow();
+
+        assertThat(videoId.value(), equalTo("dQw4w9WgXcQ"));
+        assertThat(videoId.watchUrl(), equalTo("https://www.youtube.com/watch?v=dQw4w9WgXcQ"));
+    }
+
+    @Test
+    void when_parse_withNonHttpScheme_then_returnEmpty() {
+        assertThat(YtLinkParser.parse("ftp://youtube.com/watch?v=dQw4w9WgXcQ"), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void when_parse_withUserInfo_then_returnEmpty() {
+        assertThat(YtLinkParser.parse("https://user@youtube.com/watch?v=dQw4w9WgXcQ"), equalTo(Optional.empty()));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Прежняя проверка через {@link URI} и {@link URL}, которую заменил {@link YtLinkParser}
+     */
+    private static Optional<String> extractWithUri(String url) {
+        try {
+            URL parsedUrl = new URI(url).toURL();
+            String host = parsedUrl.getHost().toLowerCase();
+            String path = parsedUrl.getPath();
+            String query = parsedUrl.getQuery();
+
+            if (host.isEmpty() || host.startsWith(".") || !host.matches("^[a-z0-9.-]+$")) {
+                return Optional.empty();
+            }
+            if (!host.equals("youtube.com") && !host.equals("youtu.be") && !host.endsWith(".youtube.com")) {
+                return Optional.empty();
+            }
+
+            String id = null;
+            if (host.equals("youtu.be")) {
+                id = path.replaceFirst("^/", "");
+            } else if (path.startsWith("/watch")) {
+                if (query == null) {
+                    return Optional.empty();
+                }
+                for (String param : query.split("&")) {
+                    if (param.startsWith("v=")) {
+                        id = param.substring(2);
+                        break;
+                    }
+                }
+            } else if (path.startsWith("/shorts/") || path.startsWith("/live/")) {
+                String[] segments = path.split("/");
+                if (segments.length >= 3) {
+                    id = segments[2];
+                }
+            }
+
+            return id != null && VIDEO_ID_PATTERN.matcher(id).matches() ? Optional.of(id) : Optional.empty();
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+}
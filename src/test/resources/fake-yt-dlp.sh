@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Фейковый yt-dlp для тестов: как и настоящий, тратит заметное время на запуск.
+# Без аргумента --worker выполняет одну задачу и завершается,
+# с --worker работает по протоколу YtDlpWorker, пока не закроют stdin,
+# с --hang зависает в дочернем процессе, как yt-dlp на зависшем запросе к YouTube,
+# с --orphan завершается, оставив потомка, который держит открытыми stdout и stderr.
+# Воркер на задаче с --partial-line пишет часть строки ответа и зависает.
+
+sleep 0.3
+
+if [ "$1" == "--hang" ]; then
+    sleep 60
+    exit 0
+fi
+
+if [ "$1" == "--orphan" ]; then
+    sleep 60 &
+    echo "orphan pid=$!"
+    exit 0
+fi
+
+if [ "$1" != "--worker" ]; then
+    echo "fake yt-dlp pid=$$ $*"
+    exit 0
+fi
+
+echo "READY"
+
+while IFS= read -r request; do
+    case "$request" in
+        PING)
+            echo "PONG"
+            ;;
+        RUN$'\t'--partial-line*)
+            printf 'OUT\tpartial'
+            sleep 60
+            ;;
+        RUN*)
+            arguments="${request#RUN}"
+            printf 'OUT\tfake yt-dlp pid=%s%s\n' "$$" "${arguments//$'\t'/ }"
+            printf 'ERR\tWARNING: fake warning\n'
+            printf 'EXIT\t0\n'
+            ;;
+        *)
+            printf 'EXIT\t2\n'
+            ;;
+    esac
+done